@@ -49,14 +49,10 @@ public class Aerodrome {
     }
 
     /**
-     * Returns whether a position is outside the aerodrome or not.
-     * Note: This method is private as it checks only position. A public method is available for
-     * checking individual aircraft.
+     * Returns whether a position, given by it's coordinates, is outside the aerodrome or not.
+     * Used by the update loop, which works over the columns of the AircraftStore.
      */
-    private boolean isOutOfBounds(Position position) {
-        double x = position.getX();
-        double y = position.getY();
-
+    public boolean isOutOfBounds(double x, double y) {
         if ((x < mBoundaryLeft) || (x > mBoundaryRight) || (y < mBoundaryBottom) ||
                 (y > mBoundaryTop)) {
             return true;
@@ -65,6 +61,15 @@ public class Aerodrome {
         }
     }
 
+    /**
+     * Returns whether a position is outside the aerodrome or not.
+     * Note: This method is private as it checks only position. A public method is available for
+     * checking individual aircraft.
+     */
+    private boolean isOutOfBounds(Position position) {
+        return isOutOfBounds(position.getX(), position.getY());
+    }
+
     /**
      * Returns whether an aircraft is outside the aerodrome or not.
      */
@@ -1,28 +1,49 @@
 package mas.german.landingplanes;
 
 import java.util.Random;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 import mas.german.landingplanes.aircrafts.Aircraft;
+import mas.german.landingplanes.aircrafts.AircraftPool;
 import mas.german.landingplanes.aircrafts.Helicopter;
 import mas.german.landingplanes.aircrafts.LargePlane;
 import mas.german.landingplanes.aircrafts.LightPlane;
+import mas.german.landingplanes.arrivals.ArrivalProcess;
+import mas.german.landingplanes.arrivals.UniformArrivals;
 
 /**
- * AircraftGenerator class is in charge of the task to create a random Aircraft every random time.
- * Once the aircraft is generated, it's communicates it to the classes implementing it's interface.
+ * AircraftGenerator class is in charge of creating random Aircraft at the times given by an
+ * ArrivalProcess. Once the aircraft is generated, it's communicates it to the classes implementing
+ * it's interface.
+ *
+ * The generator has no task of it's own. The arrival times are drawn in bulk into a timeline, and
+ * the Game's update asks for the aircraft due at every step, so they are generated on the update
+ * thread as part of the simulation, however high the rate of arrivals.
+ *
+ * This class is not thread-safe. The Game calls it while holding it's store.
  */
-public class AircraftGenerator implements Runnable {
+public class AircraftGenerator {
     private static final String TAG = AircraftGenerator.class.getSimpleName();
-    private final int TIME_MIN_MS = 1000;
-    private final int TIME_DELTA_MS = 1000;
+    // Default process: an aircraft every 1 to 2 seconds.
+    private static final int TIME_MIN_MS = 1000;
+    private static final int TIME_DELTA_MS = 1000;
+    // Arrival times drawn at once.
+    private static final int TIMELINE_SIZE = 256;
 
-    private ScheduledExecutorService mExecutor;
+    // Whether the generation is running.
+    private boolean mRunning = false;
 
     private Aerodrome mAerodrome;
     private Random mRandom;
-    private int mTime;
+    // The aircraft are recycled once they leave the game.
+    private AircraftPool mPool = new AircraftPool();
+    private ArrivalProcess mArrivals = new UniformArrivals(TIME_MIN_MS, TIME_DELTA_MS);
+
+    // Arrival times drawn and not generated yet, in milliseconds since begin().
+    private double[] mTimeline = new double[TIMELINE_SIZE];
+    private int mTimelineNext = 0;
+    private int mTimelineCount = 0;
+    // Time of the last arrival drawn, and whether the process has no more arrivals.
+    private double mLastArrival = 0;
+    private boolean mArrivalsEnded = false;
 
     private OnAircraftGenerated mOnAircraftGeneratedListener;
 
@@ -42,36 +63,101 @@ public class AircraftGenerator implements Runnable {
     }
 
     AircraftGenerator(Aerodrome currentAerodrome) {
-        mRandom = new Random(System.currentTimeMillis());
+        this(currentAerodrome, System.currentTimeMillis());
+    }
+
+    /**
+     * Creates a generator whose sequence of aircraft is given by the seed.
+     */
+    AircraftGenerator(Aerodrome currentAerodrome, long seed) {
+        mRandom = new Random(seed);
         mAerodrome = currentAerodrome;
-        // Start a new executor thread.
-        mExecutor = Executors.newScheduledThreadPool(1);
     }
 
     /**
-     * Schedules the first task. The task re-schedules itself after some time defined at random.
+     * Sets the process that gives the arrival times. It's used from the next begin().
+     */
+    public void setArrivalProcess(ArrivalProcess arrivals) {
+        mArrivals = arrivals;
+    }
+
+    /**
+     * Starts the generation. The arrival times count from now.
      */
     public void begin() {
-        // Starts a new thread if the executor was shut down before.
-        if (mExecutor.isShutdown()) {
-            mExecutor = Executors.newScheduledThreadPool(1);
+        mRunning = true;
+        mTimelineNext = 0;
+        mTimelineCount = 0;
+        mLastArrival = 0;
+        mArrivalsEnded = false;
+    }
+
+    /**
+     * Returns the time of the next arrival, drawing more from the process if the timeline is
+     * empty. Infinity if there are no more arrivals.
+     */
+    private double peekArrival() {
+        if (mTimelineNext == mTimelineCount) {
+            if (mArrivalsEnded) {
+                return Double.POSITIVE_INFINITY;
+            }
+            mTimelineCount = mArrivals.fill(mRandom, mLastArrival, mTimeline);
+            mTimelineNext = 0;
+            if (mTimelineCount < mTimeline.length) {
+                mArrivalsEnded = true;
+            }
+            if (mTimelineCount == 0) {
+                return Double.POSITIVE_INFINITY;
+            }
+            mLastArrival = mTimeline[mTimelineCount - 1];
         }
-        mTime = TIME_MIN_MS + mRandom.nextInt(TIME_DELTA_MS);
-        mExecutor.schedule(this, mTime, TimeUnit.MILLISECONDS);
+        return mTimeline[mTimelineNext];
     }
 
     /**
-     * Stops the random aircraft generation task. Scheduled generation tasks are canceled, as we
-     * don't want any after calling this method.
+     * Generates the aircraft of all the arrivals due by the given time, and gives them to the
+     * listener. Nothing is generated while the generator is stopped.
+     *
+     * @param time  Milliseconds since begin().
+     * @return  Number of aircraft generated.
+     */
+    int generateDue(long time) {
+        return generateDue(time, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Generates the aircraft of the arrivals due by the given time, up to the given amount. The
+     * arrivals beyond it are turned away: they're consumed without generating their aircraft, so
+     * they don't all arrive at once when there is room again.
+     *
+     * @param time  Milliseconds since begin().
+     * @param room  Maximum number of aircraft to generate.
+     * @return  Number of aircraft generated.
+     */
+    int generateDue(long time, int room) {
+        int count = 0;
+        while (mRunning && (peekArrival() <= time)) {
+            mTimelineNext++;
+            if (count < room) {
+                mOnAircraftGeneratedListener.onAircraftGenerated(generateRandomAircraft());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Stops the random aircraft generation. No aircraft is generated until begin() is called
+     * again.
      */
     public void stop() {
-        mExecutor.shutdownNow();
+        mRunning = false;
     }
 
     /**
      * Generates a random Aircraft.
      */
-    private Aircraft generateRandomAircraft() {
+    Aircraft generateRandomAircraft() {
         // First calculate the position, as the range of directions also depends on it.
         // The aircraft starts from a side of the Aerodrome, and it's direction is set accordingly.
         double x = 0;
@@ -113,36 +199,28 @@ public class AircraftGenerator implements Runnable {
         }
         // The angle generated is in degrees. Convert it to radians.
         angle = Math.toRadians(angle);
-        Position randomPosition = new Position(x, y);
 
-        // Calculate and instantiate the type of Aircraft.
+        // Calculate and instantiate the type of Aircraft, recycling one from the pool.
         // Speed is set at random according to the type.
         Aircraft randomAircraft = null;
+        double speed;
         switch (mRandom.nextInt(3)) {
             case 0:
-                randomAircraft = new LargePlane(mRandom.nextDouble() * (LargePlane.MAX_SPEED
-                    - LargePlane.MIN_SPEED) + LargePlane.MIN_SPEED, angle, randomPosition);
+                speed = mRandom.nextDouble() * (LargePlane.MAX_SPEED - LargePlane.MIN_SPEED) +
+                    LargePlane.MIN_SPEED;
+                randomAircraft = mPool.acquireLargePlane(speed, angle, x, y);
                 break;
             case 1:
-                randomAircraft = new LightPlane(mRandom.nextDouble() * (LightPlane.MAX_SPEED
-                    - LightPlane.MIN_SPEED) + LightPlane.MIN_SPEED, angle, randomPosition);
+                speed = mRandom.nextDouble() * (LightPlane.MAX_SPEED - LightPlane.MIN_SPEED) +
+                    LightPlane.MIN_SPEED;
+                randomAircraft = mPool.acquireLightPlane(speed, angle, x, y);
                 break;
             case 2:
-                randomAircraft = new Helicopter(mRandom.nextDouble() * (Helicopter.MAX_SPEED
-                    - Helicopter.MIN_SPEED) + Helicopter.MIN_SPEED, angle, randomPosition);
+                speed = mRandom.nextDouble() * (Helicopter.MAX_SPEED - Helicopter.MIN_SPEED) +
+                    Helicopter.MIN_SPEED;
+                randomAircraft = mPool.acquireHelicopter(speed, angle, x, y);
                 break;
         }
         return randomAircraft;
     }
-
-    @Override
-    public void run() {
-        mTime = TIME_MIN_MS + mRandom.nextInt(TIME_DELTA_MS);
-        Aircraft randomAircraft = generateRandomAircraft();
-        if (randomAircraft != null) {
-            mOnAircraftGeneratedListener.onAircraftGenerated(randomAircraft);
-        }
-        // Re-schedule the current task with the new time.
-        mExecutor.schedule(this, mTime, TimeUnit.MILLISECONDS);
-    }
 }
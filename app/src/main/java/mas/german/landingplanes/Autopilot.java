@@ -0,0 +1,359 @@
+package mas.german.landingplanes;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import mas.german.landingplanes.aircrafts.Aircraft;
+import mas.german.landingplanes.aircrafts.AircraftStore;
+import mas.german.landingplanes.landingsites.LandingSite;
+
+/**
+ * Steers the aircraft of a Game without a player. It gives the same commands as the Controller,
+ * a tap on the aircraft followed by a tap on where it must head to, so it's commands are recorded
+ * by a ReplayJournal like the ones of a player. It's used to drive long unattended runs, and to
+ * measure the game under a realistic load of commands.
+ *
+ * On every decision each aircraft is routed to the nearest site it can land on. When the site
+ * can't be entered from where the aircraft is, it's first routed to a point on the approach axis
+ * of the site. A set of headings around the route is then scored: turning away from the route
+ * costs a little, heading out of the Aerodrome costs more, and coming too close to another
+ * aircraft within the lookahead costs the most. The other aircraft are assumed to keep their
+ * heading. The aircraft is only turned when the best heading differs from the current one, and
+ * the aircraft decided later see the new heading.
+ *
+ * Scoring a heading is a closed-form closest approach against the aircraft near enough to matter,
+ * read from the columns of the AircraftStore, with no trigonometry and no allocation. Those
+ * aircraft are found through a CollisionGrid of it's own, rebuilt on every decision with cells as
+ * large as the reach of an aircraft during the lookahead, so an aircraft is only compared with the
+ * ones around it.
+ */
+public class Autopilot {
+    private static final String TAG = Autopilot.class.getSimpleName();
+    private static final int INITIAL_CAPACITY = 64;
+    // How far ahead the headings are scored, in milliseconds.
+    private static final long LOOKAHEAD_MS = 3000;
+    // Distance kept to other aircraft on top of both radius.
+    private static final double SEPARATION_MARGIN = 2;
+    // Distance of the approach point from the entrance of a site.
+    private static final double APPROACH_DISTANCE = 20;
+    // Difference with the current heading below which the aircraft is not turned, in radians.
+    private static final double HEADING_TOLERANCE = Math.toRadians(1);
+    // Distance of the second tap from the aircraft.
+    private static final double COMMAND_DISTANCE = 10;
+    // Headings scored around the route, in radians from it.
+    private static final double[] OFFSETS = {
+        0,
+        Math.toRadians(15), Math.toRadians(-15),
+        Math.toRadians(30), Math.toRadians(-30),
+        Math.toRadians(50), Math.toRadians(-50),
+        Math.toRadians(75), Math.toRadians(-75),
+        Math.toRadians(105), Math.toRadians(-105)
+    };
+    private static final double[] COS_OFFSETS = new double[OFFSETS.length];
+    private static final double[] SIN_OFFSETS = new double[OFFSETS.length];
+    // Cost of each radian away from the route, of heading out and of each predicted crash.
+    private static final double DEVIATION_COST = 1;
+    private static final double EXIT_COST = 100;
+    private static final double CONFLICT_COST = 1000;
+
+    static {
+        for (int k = 0; k < OFFSETS.length; k++) {
+            COS_OFFSETS[k] = Math.cos(OFFSETS[k]);
+            SIN_OFFSETS[k] = Math.sin(OFFSETS[k]);
+        }
+    }
+
+    private final Game mGame;
+    // Positions of the aircraft when the decision started. Commands don't move the aircraft, so
+    // it's valid for the whole decision.
+    private final CollisionGrid mGrid;
+
+    // Aircraft near the one being decided, by slot. Kept between decisions and only grows.
+    private int[] mNeighbours = new int[INITIAL_CAPACITY];
+    private int mNeighbourCount;
+
+    // Route of the aircraft being decided: unit vector and distance to where it heads to.
+    private double mRouteX;
+    private double mRouteY;
+    private double mRouteDistance;
+
+    // Totals since the autopilot was created.
+    private long mDecisions = 0;
+    private long mHeadings = 0;
+    private long mCommands = 0;
+
+    private ScheduledFuture<?> mTask;
+
+    public Autopilot(Game game) {
+        mGame = game;
+        mGrid = new CollisionGrid(game.getAerodrome(), 1);
+    }
+
+    /**
+     * Decides on every aircraft periodically, on the given executor. Used to steer a game that
+     * runs on it's own update task.
+     *
+     * @param periodMs  Real milliseconds between decisions.
+     */
+    public void start(ScheduledExecutorService executor, long periodMs) {
+        stop();
+        mTask = executor.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                decide();
+            }
+        }, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic decisions.
+     */
+    public void stop() {
+        if (mTask != null) {
+            mTask.cancel(false);
+            mTask = null;
+        }
+    }
+
+    /**
+     * Steps a headless game, deciding every given number of steps. Stops early on a game over.
+     * The game must have been initialized without an executor.
+     *
+     * @return  The steps run.
+     */
+    public long run(long steps, int stepsPerDecision) {
+        for (long step = 0; step < steps; step++) {
+            if (step % stepsPerDecision == 0) {
+                decide();
+            }
+            if (!mGame.step()) {
+                return step + 1;
+            }
+        }
+        return steps;
+    }
+
+    /**
+     * Scores the headings of every aircraft and turns the ones whose best heading changed.
+     *
+     * @return  The number of aircraft turned.
+     */
+    public int decide() {
+        AircraftStore store = mGame.getAircraftStore();
+        int turned = 0;
+        synchronized (store) {
+            SiteIndex sites = mGame.getSites();
+            Aerodrome aerodrome = mGame.getAerodrome();
+            double maxSpeed = 0;
+            for (int i = 0; i < store.size(); i++) {
+                maxSpeed = Math.max(maxSpeed, store.getSpeed(i));
+            }
+            mGrid.rebuild(store, LOOKAHEAD_MS);
+            // The slots don't change while deciding, as commands don't add nor remove aircraft.
+            for (int i = 0; i < store.size(); i++) {
+                route(store, sites, i);
+                findNeighbours(store, i, maxSpeed);
+                double heading = bestHeading(store, aerodrome, i);
+                if (Math.abs(angleBetween(heading, store.getDirection(i))) > HEADING_TOLERANCE) {
+                    if (turn(store, i, heading)) {
+                        turned++;
+                    }
+                }
+            }
+            mDecisions++;
+            mCommands += turned;
+        }
+        return turned;
+    }
+
+    /**
+     * Finds where the aircraft of a slot must head to: the nearest compatible site, through it's
+     * approach point when the site can't be entered from here. Without sites the aircraft keeps
+     * it's heading.
+     */
+    private void route(AircraftStore store, SiteIndex sites, int i) {
+        Aircraft aircraft = store.get(i);
+        double x = store.getX(i);
+        double y = store.getY(i);
+        double bestX = 0;
+        double bestY = 0;
+        double best = Double.MAX_VALUE;
+        for (int s = 0; s < sites.size(); s++) {
+            LandingSite site = sites.get(s);
+            if (!aircraft.canLandOn(site)) {
+                continue;
+            }
+            double siteX = site.getPosition().getX();
+            double siteY = site.getPosition().getY();
+            double targetX = siteX;
+            double targetY = siteY;
+            double distance = Math.hypot(siteX - x, siteY - y);
+            double direction = Math.atan2(siteY - y, siteX - x);
+            if (direction < 0) {
+                direction += 2 * Math.PI;
+            }
+            if (!site.verifyDirection(direction)) {
+                // Come in along the center of the entrance.
+                targetX = siteX - APPROACH_DISTANCE * Math.cos(site.getCenterAngle());
+                targetY = siteY - APPROACH_DISTANCE * Math.sin(site.getCenterAngle());
+                distance = Math.hypot(targetX - x, targetY - y) + APPROACH_DISTANCE;
+            }
+            if (distance < best) {
+                best = distance;
+                bestX = targetX;
+                bestY = targetY;
+            }
+        }
+        double length = Math.hypot(bestX - x, bestY - y);
+        if ((best == Double.MAX_VALUE) || (length == 0)) {
+            mRouteX = Math.cos(store.getDirection(i));
+            mRouteY = Math.sin(store.getDirection(i));
+            mRouteDistance = Double.MAX_VALUE;
+            return;
+        }
+        mRouteX = (bestX - x) / length;
+        mRouteY = (bestY - y) / length;
+        mRouteDistance = best;
+    }
+
+    /**
+     * Collects the aircraft that can come within the separation of the given one during the
+     * lookahead, whatever heading both take.
+     */
+    private void findNeighbours(AircraftStore store, int i, double maxSpeed) {
+        double x = store.getX(i);
+        double y = store.getY(i);
+        double reach = (store.getSpeed(i) + maxSpeed) * LOOKAHEAD_MS + store.getRadius(i) +
+            SEPARATION_MARGIN;
+        int count = mGrid.collectNear(x, y, reach, mNeighbours);
+        if (count > mNeighbours.length) {
+            mNeighbours = new int[Math.max(count, 2 * mNeighbours.length)];
+            count = mGrid.collectNear(x, y, reach, mNeighbours);
+        }
+        // The aircraft itself is among the ones found.
+        mNeighbourCount = 0;
+        for (int k = 0; k < count; k++) {
+            if (mNeighbours[k] != i) {
+                mNeighbours[mNeighbourCount++] = mNeighbours[k];
+            }
+        }
+    }
+
+    /**
+     * Scores the headings around the route, and the current heading, and returns the best one.
+     */
+    private double bestHeading(AircraftStore store, Aerodrome aerodrome, int i) {
+        double speed = store.getSpeed(i);
+        double direction = store.getDirection(i);
+        double routeAngle = Math.atan2(mRouteY, mRouteX);
+        // The current heading goes first, so it's kept when nothing is better.
+        double bestX = Math.cos(direction);
+        double bestY = Math.sin(direction);
+        double best = score(store, aerodrome, i, bestX * speed, bestY * speed,
+            Math.abs(angleBetween(direction, routeAngle)));
+        for (int k = 0; k < OFFSETS.length; k++) {
+            // The route rotated by the offset.
+            double unitX = mRouteX * COS_OFFSETS[k] - mRouteY * SIN_OFFSETS[k];
+            double unitY = mRouteX * SIN_OFFSETS[k] + mRouteY * COS_OFFSETS[k];
+            double cost = score(store, aerodrome, i, unitX * speed, unitY * speed,
+                Math.abs(OFFSETS[k]));
+            if (cost < best) {
+                best = cost;
+                bestX = unitX;
+                bestY = unitY;
+            }
+        }
+        mHeadings += OFFSETS.length + 1;
+        double heading = Math.atan2(bestY, bestX);
+        return (heading < 0) ? heading + 2 * Math.PI : heading;
+    }
+
+    /**
+     * Returns the cost of flying the aircraft of a slot with the given speed vector.
+     *
+     * @param deviation     Radians between the heading and the route.
+     */
+    private double score(AircraftStore store, Aerodrome aerodrome, int i, double vx, double vy,
+                         double deviation) {
+        double x = store.getX(i);
+        double y = store.getY(i);
+        double cost = deviation * DEVIATION_COST;
+        // Leaving the Aerodrome before getting where it heads to loses the aircraft.
+        double speed = store.getSpeed(i);
+        if ((mRouteDistance > speed * LOOKAHEAD_MS) &&
+            aerodrome.isOutOfBounds(x + vx * LOOKAHEAD_MS, y + vy * LOOKAHEAD_MS)) {
+            cost += EXIT_COST;
+        }
+        for (int k = 0; k < mNeighbourCount; k++) {
+            int j = mNeighbours[k];
+            double dx = store.getX(j) - x;
+            double dy = store.getY(j) - y;
+            double wx = store.getVelocityX(j) - vx;
+            double wy = store.getVelocityY(j) - vy;
+            double separation = store.getRadius(i) + store.getRadius(j) + SEPARATION_MARGIN;
+            // Closest approach within the lookahead.
+            double w = wx * wx + wy * wy;
+            double t = 0;
+            if (w > 0) {
+                t = Math.min(Math.max(-(dx * wx + dy * wy) / w, 0), LOOKAHEAD_MS);
+            }
+            double u = dx + wx * t;
+            double v = dy + wy * t;
+            if (u * u + v * v < separation * separation) {
+                // Sooner is worse.
+                cost += CONFLICT_COST * (2 - t / LOOKAHEAD_MS);
+            }
+        }
+        return cost;
+    }
+
+    /**
+     * Turns the aircraft of a slot with the same taps a player would give.
+     *
+     * @return  Whether the aircraft was turned.
+     */
+    private boolean turn(AircraftStore store, int i, double heading) {
+        double x = store.getX(i);
+        double y = store.getY(i);
+        if (!mGame.selectAircraftAtPosition(new Position(x, y))) {
+            return false;
+        }
+        mGame.orientateSelectedAircraft(new Position(x + COMMAND_DISTANCE * Math.cos(heading),
+            y + COMMAND_DISTANCE * Math.sin(heading)));
+        return true;
+    }
+
+    /**
+     * Returns the difference between two angles, in [-PI, PI].
+     */
+    private static double angleBetween(double a, double b) {
+        double difference = (a - b) % (2 * Math.PI);
+        if (difference > Math.PI) {
+            difference -= 2 * Math.PI;
+        } else if (difference < -Math.PI) {
+            difference += 2 * Math.PI;
+        }
+        return difference;
+    }
+
+    /**
+     * Returns the decisions made, each of them over all the aircraft.
+     */
+    public long getDecisionCount() {
+        return mDecisions;
+    }
+
+    /**
+     * Returns the headings scored, over all the decisions.
+     */
+    public long getHeadingCount() {
+        return mHeadings;
+    }
+
+    /**
+     * Returns the aircraft turned, over all the decisions.
+     */
+    public long getCommandCount() {
+        return mCommands;
+    }
+}
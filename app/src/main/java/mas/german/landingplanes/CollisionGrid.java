@@ -0,0 +1,375 @@
+package mas.german.landingplanes;
+
+import mas.german.landingplanes.aircrafts.AircraftStore;
+
+/**
+ * Uniform grid used as the broad phase of the crash detection. The Aerodrome is split in square
+ * cells whose side is at least twice the maximum reach of an aircraft: it's radius plus the
+ * distance it flies in a step. Two aircraft can only touch during a step if they are in the same or
+ * in adjacent cells at it's end. Each aircraft is then tested only against the aircraft in it's
+ * neighbouring cells, using the continuous test of AircraftStore.crashesDuring().
+ *
+ * The grid is rebuilt on every update with a counting sort over the cells. All the arrays are kept
+ * between updates and only grow, so a rebuild doesn't allocate once the traffic is stable.
+ *
+ * Between updates the grid also answers which aircraft is at a point, for the selection. Aircraft
+ * are added and removed meanwhile, so the slots whose aircraft is not in it's cell are listed
+ * apart until the next rebuild.
+ */
+public class CollisionGrid {
+    private static final String TAG = CollisionGrid.class.getSimpleName();
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Boundaries of the grid, taken from the Aerodrome.
+    private final double mLeft;
+    private final double mBottom;
+    private final double mWidth;
+    private final double mHeight;
+
+    // Size of the cells, derived from the largest reach seen so far.
+    private int mMaxReach;
+    private double mCellSize;
+    private int mColumns;
+    private int mRows;
+
+    // Start of each cell inside mCellItems. The items of the cell c are between mCellStart[c]
+    // (inclusive) and mCellStart[c + 1] (exclusive).
+    private int[] mCellStart;
+    // Indexes of the aircraft, sorted by cell.
+    private int[] mCellItems = new int[INITIAL_CAPACITY];
+    // Cell of each aircraft, by index.
+    private int[] mItemCell = new int[INITIAL_CAPACITY];
+    // ID of each aircraft, by index, so an aircraft moved or removed since is not taken for it.
+    private int[] mItemId = new int[INITIAL_CAPACITY];
+    // Slots of the store holding an aircraft that is not in it's cell since the last rebuild.
+    private int[] mUnindexed = new int[INITIAL_CAPACITY];
+    private int mUnindexedCount = 0;
+    // Store and length of the step given on the last rebuild.
+    private AircraftStore mStore;
+    private long mSampleTime;
+    private int mCount;
+
+    CollisionGrid(Aerodrome aerodrome, int maxReach) {
+        mLeft = aerodrome.getBoundaryLeft();
+        mBottom = aerodrome.getBoundaryBottom();
+        mWidth = aerodrome.getWidth();
+        mHeight = aerodrome.getHeight();
+        resize(maxReach);
+    }
+
+    /**
+     * Recalculates the cells for the given maximum reach.
+     */
+    private void resize(int maxReach) {
+        mMaxReach = Math.max(1, maxReach);
+        mCellSize = 2 * mMaxReach;
+        mColumns = Math.max(1, (int) Math.ceil(mWidth / mCellSize));
+        mRows = Math.max(1, (int) Math.ceil(mHeight / mCellSize));
+        mCellStart = new int[mColumns * mRows + 1];
+    }
+
+    /**
+     * Returns the cell of a position. Positions outside the Aerodrome are clamped to the border
+     * cells, which keeps close aircraft in adjacent cells.
+     */
+    private int cellOf(double x, double y) {
+        return rowOf(y) * mColumns + columnOf(x);
+    }
+
+    private int columnOf(double x) {
+        int column = (int) Math.floor((x - mLeft) / mCellSize);
+        return Math.min(Math.max(column, 0), mColumns - 1);
+    }
+
+    private int rowOf(double y) {
+        int row = (int) Math.floor((y - mBottom) / mCellSize);
+        return Math.min(Math.max(row, 0), mRows - 1);
+    }
+
+    /**
+     * Places the aircraft of the store in the grid, to test them at their current positions only.
+     */
+    public void rebuild(AircraftStore store) {
+        rebuild(store, 0);
+    }
+
+    /**
+     * Places the aircraft of the store in the grid. The index used in crashes(int) is the slot of
+     * the aircraft in the store.
+     *
+     * @param sampleTime    Length of the step the aircraft just moved, in milliseconds. The tests
+     *                      cover the whole movement.
+     */
+    public void rebuild(AircraftStore store, long sampleTime) {
+        mStore = store;
+        mSampleTime = sampleTime;
+        mCount = store.size();
+        if (mCount > mCellItems.length) {
+            int capacity = Math.max(mCount, 2 * mCellItems.length);
+            mCellItems = new int[capacity];
+            mItemCell = new int[capacity];
+            mItemId = new int[capacity];
+        }
+        mUnindexedCount = 0;
+
+        // The cells must be large enough for the biggest and fastest aircraft.
+        int maxReach = mMaxReach;
+        for (int i = 0; i < mCount; i++) {
+            maxReach = Math.max(maxReach,
+                (int) Math.ceil(store.getRadius(i) + store.getSpeed(i) * sampleTime));
+        }
+        if (maxReach > mMaxReach) {
+            resize(maxReach);
+        }
+
+        // Count the aircraft of each cell.
+        int cells = mColumns * mRows;
+        for (int c = 0; c <= cells; c++) {
+            mCellStart[c] = 0;
+        }
+        for (int i = 0; i < mCount; i++) {
+            int cell = cellOf(store.getX(i), store.getY(i));
+            mItemCell[i] = cell;
+            mItemId[i] = store.getId(i);
+            mCellStart[cell + 1]++;
+        }
+        // Turn the counts into the start of each cell.
+        for (int c = 0; c < cells; c++) {
+            mCellStart[c + 1] += mCellStart[c];
+        }
+        // Fill the cells. mCellStart is shifted while filling and restored afterwards.
+        for (int i = 0; i < mCount; i++) {
+            mCellItems[mCellStart[mItemCell[i]]++] = i;
+        }
+        for (int c = cells; c > 0; c--) {
+            mCellStart[c] = mCellStart[c - 1];
+        }
+        mCellStart[0] = 0;
+    }
+
+    /**
+     * Forgets all the aircraft. Must be called when the store is cleared.
+     */
+    public void clear() {
+        mCount = 0;
+        mUnindexedCount = 0;
+        for (int c = 0; c < mCellStart.length; c++) {
+            mCellStart[c] = 0;
+        }
+    }
+
+    /**
+     * Tells the grid that a slot of the store holds an aircraft that is not in it's cell: one
+     * added after the last rebuild, or one moved into the slot of a removed aircraft. The slot is
+     * searched on it's own until the next rebuild.
+     */
+    public void addUnindexed(int index) {
+        if (mUnindexedCount == mUnindexed.length) {
+            int[] unindexed = new int[2 * mUnindexed.length];
+            System.arraycopy(mUnindexed, 0, unindexed, 0, mUnindexedCount);
+            mUnindexed = unindexed;
+        }
+        mUnindexed[mUnindexedCount++] = index;
+    }
+
+    /**
+     * Returns the aircraft nearest to a point among the ones that reach it: those whose distance to
+     * the point is at most their radius plus the tolerance. Only the cells around the point and the
+     * unindexed slots are searched, so the cost doesn't depend on the traffic.
+     *
+     * @param tolerance     Distance added to the radius of the aircraft.
+     * @return  The slot of the aircraft in the store, or -1 if none reaches the point.
+     */
+    public int findNearest(AircraftStore store, double x, double y, double tolerance) {
+        // No aircraft in the grid reaches further than this.
+        double reach = mMaxReach + tolerance;
+        int firstRow = rowOf(y - reach);
+        int lastRow = rowOf(y + reach);
+        int firstColumn = columnOf(x - reach);
+        int lastColumn = columnOf(x + reach);
+
+        int nearest = -1;
+        double nearestDistance = Double.MAX_VALUE;
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                int cell = r * mColumns + c;
+                for (int k = mCellStart[cell]; k < mCellStart[cell + 1]; k++) {
+                    int index = mCellItems[k];
+                    // Skip the slots whose aircraft was removed or replaced since the rebuild.
+                    if ((index >= store.size()) || (store.getId(index) != mItemId[index])) {
+                        continue;
+                    }
+                    double distance = distance(store, index, x, y);
+                    if ((distance <= store.getRadius(index) + tolerance) &&
+                        (distance < nearestDistance)) {
+                        nearest = index;
+                        nearestDistance = distance;
+                    }
+                }
+            }
+        }
+        for (int k = 0; k < mUnindexedCount; k++) {
+            int index = mUnindexed[k];
+            if (index >= store.size()) {
+                continue;
+            }
+            double distance = distance(store, index, x, y);
+            if ((distance <= store.getRadius(index) + tolerance) && (distance < nearestDistance)) {
+                nearest = index;
+                nearestDistance = distance;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Collects the aircraft near a point: those whose distance to it is at most their radius plus
+     * the given range. Only the cells around the point are searched. The aircraft added since the
+     * last rebuild are not seen.
+     *
+     * @param items     Receives the slots of the aircraft found, in no particular order.
+     * @return  The number of aircraft found. When it's more than the length of items only the
+     *          first ones are written, and the call must be repeated with a larger array.
+     */
+    public int collectNear(double x, double y, double range, int[] items) {
+        // No aircraft in the grid is larger than this.
+        double reach = mMaxReach + range;
+        int firstRow = rowOf(y - reach);
+        int lastRow = rowOf(y + reach);
+        int firstColumn = columnOf(x - reach);
+        int lastColumn = columnOf(x + reach);
+
+        int count = 0;
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                int cell = r * mColumns + c;
+                for (int k = mCellStart[cell]; k < mCellStart[cell + 1]; k++) {
+                    int index = mCellItems[k];
+                    double dx = mStore.getX(index) - x;
+                    double dy = mStore.getY(index) - y;
+                    double limit = mStore.getRadius(index) + range;
+                    if (dx * dx + dy * dy <= limit * limit) {
+                        if (count < items.length) {
+                            items[count] = index;
+                        }
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private static double distance(AircraftStore store, int index, double x, double y) {
+        double dx = store.getX(index) - x;
+        double dy = store.getY(index) - y;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Returns the largest reach of an aircraft seen so far: it's radius plus the distance it flies
+     * in a step.
+     */
+    public int getMaxReach() {
+        return mMaxReach;
+    }
+
+    /**
+     * Returns whether any pair of aircraft crashes. Each pair is tested only once.
+     */
+    public boolean hasCrash() {
+        return hasCrash(0, mCount);
+    }
+
+    /**
+     * Returns whether any aircraft in a range of slots crashes with an aircraft of a greater slot.
+     * The ranges of a partition of the slots test each pair once between all of them. The grid
+     * isn't modified, so ranges can be tested concurrently.
+     *
+     * @param from  First slot, inclusive.
+     * @param to    Last slot, exclusive.
+     */
+    public boolean hasCrash(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (crashesWithNeighbours(i, true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of pairs of aircraft that crash. Unlike hasCrash(), every pair is tested,
+     * however many crash.
+     */
+    public int countCrashes() {
+        return countCrashes(0, mCount);
+    }
+
+    /**
+     * Returns the number of pairs crashing between an aircraft in a range of slots and an aircraft
+     * of a greater slot. As with hasCrash(int, int), ranges can be counted concurrently.
+     *
+     * @param from  First slot, inclusive.
+     * @param to    Last slot, exclusive.
+     */
+    public int countCrashes(int from, int to) {
+        int crashes = 0;
+        for (int i = from; i < to; i++) {
+            crashes += countCrashesWithNeighbours(i, true, Integer.MAX_VALUE);
+        }
+        return crashes;
+    }
+
+    /**
+     * Returns whether the aircraft at the given slot of the store crashes with any other.
+     */
+    public boolean crashes(int index) {
+        return crashesWithNeighbours(index, false);
+    }
+
+    /**
+     * Tests an aircraft against the aircraft in it's cell and the eight adjacent ones.
+     *
+     * @param index         Index of the aircraft to test.
+     * @param onlyGreater   Only test against aircraft with a greater index, so a full pass tests
+     *                      each pair once.
+     */
+    private boolean crashesWithNeighbours(int index, boolean onlyGreater) {
+        return countCrashesWithNeighbours(index, onlyGreater, 1) > 0;
+    }
+
+    /**
+     * Counts the crashes of an aircraft with the aircraft in it's cell and the eight adjacent ones.
+     *
+     * @param index         Index of the aircraft to test.
+     * @param onlyGreater   Only test against aircraft with a greater index.
+     * @param limit         Number of crashes after which the rest aren't tested.
+     */
+    private int countCrashesWithNeighbours(int index, boolean onlyGreater, int limit) {
+        int crashes = 0;
+        int cell = mItemCell[index];
+        int column = cell % mColumns;
+        int row = cell / mColumns;
+
+        int firstRow = Math.max(row - 1, 0);
+        int lastRow = Math.min(row + 1, mRows - 1);
+        int firstColumn = Math.max(column - 1, 0);
+        int lastColumn = Math.min(column + 1, mColumns - 1);
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                int neighbourCell = r * mColumns + c;
+                for (int k = mCellStart[neighbourCell]; k < mCellStart[neighbourCell + 1]; k++) {
+                    int other = mCellItems[k];
+                    if ((other == index) || (onlyGreater && other < index)) {
+                        continue;
+                    }
+                    if (mStore.crashesDuring(index, other, mSampleTime) && (++crashes >= limit)) {
+                        return crashes;
+                    }
+                }
+            }
+        }
+        return crashes;
+    }
+}
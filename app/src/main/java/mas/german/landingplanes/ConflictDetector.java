@@ -0,0 +1,451 @@
+package mas.german.landingplanes;
+
+import mas.german.landingplanes.aircrafts.AircraftStore;
+
+/**
+ * Predicts the crashes of the coming seconds, so the player can be warned before they happen.
+ * Aircraft fly in straight lines until they are turned, so the closest point of approach of every
+ * pair can be solved exactly from their current positions and speed vectors. A pair is in conflict
+ * while both aircraft would be within their crash distance.
+ *
+ * The conflicts are computed over a window longer than the horizon, and kept by the IDs of the
+ * aircraft with the absolute times they start and end. A pair only changes when one of it's
+ * aircraft turns, so after a spawn or a heading change only the pairs of that aircraft are solved
+ * again. All the pairs are only solved again once the horizon reaches the end of the window.
+ *
+ * Solving all the pairs uses a uniform grid over the paths of the aircraft as a broad phase, so
+ * only aircraft whose paths are close are solved.
+ *
+ * This class is not thread-safe. Callers must synchronize on the store, like the rest of the Game.
+ */
+public class ConflictDetector {
+    private static final String TAG = ConflictDetector.class.getSimpleName();
+    public static final long DEFAULT_HORIZON_MS = 2000;
+    private static final int INITIAL_CAPACITY = 64;
+    // Changed aircraft above which solving all the pairs is cheaper than solving theirs.
+    private static final int MAX_CHANGED = 16;
+    // Bounds the cells of the broad phase, so a few slow aircraft don't make it too fine.
+    private static final int MAX_CELLS_PER_SIDE = 64;
+
+    private final double mLeft;
+    private final double mBottom;
+    private final double mRight;
+    private final double mTop;
+
+    // How far ahead conflicts are reported, in milliseconds. 0 disables the detection.
+    private long mHorizon;
+    // End of the window the pairs were solved for, in simulation milliseconds.
+    private long mWindowEnd = Long.MIN_VALUE;
+
+    // Pairs in conflict within the window: IDs of both aircraft, and the times the conflict starts
+    // and ends, in simulation milliseconds.
+    private int mPairCount = 0;
+    private int[] mFirstIds = new int[INITIAL_CAPACITY];
+    private int[] mSecondIds = new int[INITIAL_CAPACITY];
+    private double[] mStarts = new double[INITIAL_CAPACITY];
+    private double[] mEnds = new double[INITIAL_CAPACITY];
+
+    // IDs of the aircraft that spawned or turned since the last update.
+    private int[] mChanged = new int[MAX_CHANGED];
+    private int mChangedCount = 0;
+
+    // State of each slot of the store while solving the pairs: the time it stays in the window,
+    // the bounds of it's path and whether it was already solved.
+    private double[] mLimits = new double[INITIAL_CAPACITY];
+    private double[] mMinX = new double[INITIAL_CAPACITY];
+    private double[] mMinY = new double[INITIAL_CAPACITY];
+    private double[] mMaxX = new double[INITIAL_CAPACITY];
+    private double[] mMaxY = new double[INITIAL_CAPACITY];
+    private boolean[] mSolved = new boolean[INITIAL_CAPACITY];
+
+    // Cells of the broad phase. The slots whose path crosses the cell c are between mCellStart[c]
+    // (inclusive) and mCellStart[c + 1] (exclusive) of mCellItems.
+    private int mColumns;
+    private int mRows;
+    private double mCellWidth;
+    private double mCellHeight;
+    private int[] mCellStart = new int[1];
+    private int[] mCellItems = new int[INITIAL_CAPACITY];
+
+    /**
+     * @param horizon   How far ahead conflicts are reported, in milliseconds. 0 disables them.
+     */
+    public ConflictDetector(Aerodrome aerodrome, long horizon) {
+        mLeft = aerodrome.getBoundaryLeft();
+        mBottom = aerodrome.getBoundaryBottom();
+        mRight = aerodrome.getBoundaryRight();
+        mTop = aerodrome.getBoundaryTop();
+        setHorizon(horizon);
+    }
+
+    /**
+     * Sets how far ahead conflicts are reported. All the pairs are solved again on the next update.
+     *
+     * @param horizon   Milliseconds of simulation time. 0 disables the detection.
+     */
+    public void setHorizon(long horizon) {
+        if (horizon < 0) {
+            throw new IllegalArgumentException("The horizon can't be negative.");
+        }
+        mHorizon = horizon;
+        clear();
+    }
+
+    public long getHorizon() {
+        return mHorizon;
+    }
+
+    /**
+     * Forgets all the pairs. Must be called when the store is cleared.
+     */
+    public void clear() {
+        mPairCount = 0;
+        mChangedCount = 0;
+        mWindowEnd = Long.MIN_VALUE;
+    }
+
+    /**
+     * The speed vector of an aircraft changed, or it was just added. It's pairs are solved again
+     * on the next update.
+     */
+    public void legChanged(int id) {
+        if (mChangedCount == MAX_CHANGED) {
+            // Too many to solve one by one. Solve everything instead.
+            mWindowEnd = Long.MIN_VALUE;
+            return;
+        }
+        mChanged[mChangedCount++] = id;
+    }
+
+    /**
+     * An aircraft left the store. It's pairs are dropped.
+     */
+    public void remove(int id) {
+        removePairs(id);
+    }
+
+    /**
+     * Brings the pairs up to date with the aircraft of the store. Must be called after the
+     * aircraft moved, with the simulation time they are at.
+     *
+     * @param now   Simulation time of the store, in milliseconds.
+     */
+    public void update(AircraftStore store, long now) {
+        if (mHorizon == 0) {
+            return;
+        }
+        if (now + mHorizon > mWindowEnd) {
+            solveAll(store, now);
+        } else if (mChangedCount > 0) {
+            solveChanged(store, now);
+        }
+        mChangedCount = 0;
+    }
+
+    /**
+     * Returns the number of pairs kept, which includes the ones beyond the horizon. Use
+     * isUpcoming() to tell which ones must be reported.
+     */
+    public int getPairCount() {
+        return mPairCount;
+    }
+
+    public int getFirstId(int pair) {
+        return mFirstIds[pair];
+    }
+
+    public int getSecondId(int pair) {
+        return mSecondIds[pair];
+    }
+
+    /**
+     * Returns when the aircraft of the pair come within crash distance, in simulation milliseconds.
+     */
+    public long getConflictTime(int pair) {
+        return Math.round(mStarts[pair]);
+    }
+
+    /**
+     * Whether the pair is in conflict within the horizon from the given time.
+     */
+    public boolean isUpcoming(int pair, long now) {
+        return (mStarts[pair] <= now + mHorizon) && (mEnds[pair] >= now);
+    }
+
+    /**
+     * Solves all the pairs for a new window, using the grid to find the aircraft whose paths are
+     * close.
+     */
+    private void solveAll(AircraftStore store, long now) {
+        mPairCount = 0;
+        // The window is twice the horizon, so it's only solved again once every horizon.
+        mWindowEnd = now + 2 * mHorizon;
+        int count = store.size();
+        ensureCapacity(count);
+
+        // Bounds of the path of each aircraft within the window, and their average size.
+        double extent = 0;
+        for (int i = 0; i < count; i++) {
+            bound(store, i, now);
+            extent += Math.max(mMaxX[i] - mMinX[i], mMaxY[i] - mMinY[i]);
+        }
+        if (count < 2) {
+            return;
+        }
+
+        // Cells about as large as the average path, so most paths only cross a few of them.
+        double cellSize = Math.max(extent / count, 1);
+        mColumns = Math.min(Math.max(1, (int) Math.ceil((mRight - mLeft) / cellSize)),
+            MAX_CELLS_PER_SIDE);
+        mRows = Math.min(Math.max(1, (int) Math.ceil((mTop - mBottom) / cellSize)),
+            MAX_CELLS_PER_SIDE);
+        mCellWidth = (mRight - mLeft) / mColumns;
+        mCellHeight = (mTop - mBottom) / mRows;
+        fillCells(count);
+
+        // Each pair is only solved in the first cell both paths cross, so it's solved once.
+        int cells = mColumns * mRows;
+        for (int c = 0; c < cells; c++) {
+            for (int k = mCellStart[c]; k < mCellStart[c + 1]; k++) {
+                int i = mCellItems[k];
+                for (int l = k + 1; l < mCellStart[c + 1]; l++) {
+                    int j = mCellItems[l];
+                    if (!overlap(i, j)) {
+                        continue;
+                    }
+                    int column = columnOf(Math.max(mMinX[i], mMinX[j]));
+                    int row = rowOf(Math.max(mMinY[i], mMinY[j]));
+                    if (row * mColumns + column == c) {
+                        solve(store, i, j, now, Math.min(mLimits[i], mLimits[j]));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Solves again the pairs of the aircraft that changed, against every other aircraft.
+     */
+    private void solveChanged(AircraftStore store, long now) {
+        int count = store.size();
+        ensureCapacity(count);
+        for (int k = 0; k < mChangedCount; k++) {
+            removePairs(mChanged[k]);
+        }
+        for (int i = 0; i < count; i++) {
+            mSolved[i] = false;
+            bound(store, i, now);
+        }
+        for (int i = 0; i < count; i++) {
+            if (!isChanged(store.getId(i))) {
+                continue;
+            }
+            for (int j = 0; j < count; j++) {
+                // Two changed aircraft are only solved once.
+                if ((j == i) || mSolved[j] || !overlap(i, j)) {
+                    continue;
+                }
+                solve(store, i, j, now, Math.min(mLimits[i], mLimits[j]));
+            }
+            mSolved[i] = true;
+        }
+    }
+
+    private boolean isChanged(int id) {
+        for (int k = 0; k < mChangedCount; k++) {
+            if (mChanged[k] == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds how long an aircraft stays in the window and the Aerodrome, and the bounds of it's path
+     * meanwhile.
+     */
+    private void bound(AircraftStore store, int i, long now) {
+        double x = store.getX(i);
+        double y = store.getY(i);
+        double vx = store.getVelocityX(i);
+        double vy = store.getVelocityY(i);
+        // Aircraft are removed once they leave the Aerodrome, so they can't crash after that.
+        double limit = mWindowEnd - now;
+        if (vx > 0) {
+            limit = Math.min(limit, (mRight - x) / vx);
+        } else if (vx < 0) {
+            limit = Math.min(limit, (mLeft - x) / vx);
+        }
+        if (vy > 0) {
+            limit = Math.min(limit, (mTop - y) / vy);
+        } else if (vy < 0) {
+            limit = Math.min(limit, (mBottom - y) / vy);
+        }
+        limit = Math.max(limit, 0);
+        int radius = store.getRadius(i);
+        double endX = x + vx * limit;
+        double endY = y + vy * limit;
+        mLimits[i] = limit;
+        mMinX[i] = Math.min(x, endX) - radius;
+        mMaxX[i] = Math.max(x, endX) + radius;
+        mMinY[i] = Math.min(y, endY) - radius;
+        mMaxY[i] = Math.max(y, endY) + radius;
+    }
+
+    private boolean overlap(int i, int j) {
+        return (mMinX[i] <= mMaxX[j]) && (mMinX[j] <= mMaxX[i]) && (mMinY[i] <= mMaxY[j]) &&
+            (mMinY[j] <= mMaxY[i]);
+    }
+
+    /**
+     * Finds when two aircraft are within crash distance, and keeps the pair if that happens within
+     * the given time.
+     *
+     * @param limit     Milliseconds from now both aircraft stay in the window.
+     */
+    private void solve(AircraftStore store, int i, int j, long now, double limit) {
+        double dx = store.getX(j) - store.getX(i);
+        double dy = store.getY(j) - store.getY(i);
+        double wx = store.getVelocityX(j) - store.getVelocityX(i);
+        double wy = store.getVelocityY(j) - store.getVelocityY(i);
+        double radius = store.getRadius(i) + store.getRadius(j);
+        // |d + w * t| <= radius is a quadratic inequation in t.
+        double a = wx * wx + wy * wy;
+        double b = dx * wx + dy * wy;
+        double c = dx * dx + dy * dy - radius * radius;
+        double start;
+        double end;
+        if (a == 0) {
+            // Same speed vector. The distance never changes.
+            if (c > 0) {
+                return;
+            }
+            start = 0;
+            end = limit;
+        } else {
+            double discriminant = b * b - a * c;
+            if (discriminant < 0) {
+                return;
+            }
+            double root = Math.sqrt(discriminant);
+            start = (-b - root) / a;
+            end = (-b + root) / a;
+            if ((end < 0) || (start > limit)) {
+                return;
+            }
+        }
+        addPair(store.getId(i), store.getId(j), now + Math.max(start, 0),
+            now + Math.min(end, limit));
+    }
+
+    private void addPair(int firstId, int secondId, double start, double end) {
+        if (mPairCount == mFirstIds.length) {
+            int capacity = 2 * mFirstIds.length;
+            mFirstIds = copyOf(mFirstIds, capacity);
+            mSecondIds = copyOf(mSecondIds, capacity);
+            mStarts = copyOf(mStarts, capacity);
+            mEnds = copyOf(mEnds, capacity);
+        }
+        mFirstIds[mPairCount] = firstId;
+        mSecondIds[mPairCount] = secondId;
+        mStarts[mPairCount] = start;
+        mEnds[mPairCount] = end;
+        mPairCount++;
+    }
+
+    /**
+     * Drops the pairs of an aircraft. The last pair is moved into the slot of a dropped one.
+     */
+    private void removePairs(int id) {
+        int k = 0;
+        while (k < mPairCount) {
+            if ((mFirstIds[k] == id) || (mSecondIds[k] == id)) {
+                int last = --mPairCount;
+                mFirstIds[k] = mFirstIds[last];
+                mSecondIds[k] = mSecondIds[last];
+                mStarts[k] = mStarts[last];
+                mEnds[k] = mEnds[last];
+                continue;
+            }
+            k++;
+        }
+    }
+
+    /**
+     * Places each slot in the cells crossed by the bounds of it's path, with a counting sort.
+     */
+    private void fillCells(int count) {
+        int cells = mColumns * mRows;
+        if (mCellStart.length < cells + 1) {
+            mCellStart = new int[cells + 1];
+        }
+        for (int c = 0; c <= cells; c++) {
+            mCellStart[c] = 0;
+        }
+        int entries = 0;
+        for (int i = 0; i < count; i++) {
+            for (int r = rowOf(mMinY[i]); r <= rowOf(mMaxY[i]); r++) {
+                for (int c = columnOf(mMinX[i]); c <= columnOf(mMaxX[i]); c++) {
+                    mCellStart[r * mColumns + c + 1]++;
+                    entries++;
+                }
+            }
+        }
+        if (entries > mCellItems.length) {
+            mCellItems = new int[Math.max(entries, 2 * mCellItems.length)];
+        }
+        for (int c = 0; c < cells; c++) {
+            mCellStart[c + 1] += mCellStart[c];
+        }
+        // mCellStart is shifted while filling and restored afterwards.
+        for (int i = 0; i < count; i++) {
+            for (int r = rowOf(mMinY[i]); r <= rowOf(mMaxY[i]); r++) {
+                for (int c = columnOf(mMinX[i]); c <= columnOf(mMaxX[i]); c++) {
+                    mCellItems[mCellStart[r * mColumns + c]++] = i;
+                }
+            }
+        }
+        for (int c = cells; c > 0; c--) {
+            mCellStart[c] = mCellStart[c - 1];
+        }
+        mCellStart[0] = 0;
+    }
+
+    private int columnOf(double x) {
+        int column = (int) Math.floor((x - mLeft) / mCellWidth);
+        return Math.min(Math.max(column, 0), mColumns - 1);
+    }
+
+    private int rowOf(double y) {
+        int row = (int) Math.floor((y - mBottom) / mCellHeight);
+        return Math.min(Math.max(row, 0), mRows - 1);
+    }
+
+    /**
+     * Grows the arrays of the slots. They are kept between updates and only grow.
+     */
+    private void ensureCapacity(int count) {
+        if (count <= mLimits.length) {
+            return;
+        }
+        int capacity = Math.max(count, 2 * mLimits.length);
+        mLimits = new double[capacity];
+        mMinX = new double[capacity];
+        mMinY = new double[capacity];
+        mMaxX = new double[capacity];
+        mMaxY = new double[capacity];
+        mSolved = new boolean[capacity];
+    }
+
+    private static int[] copyOf(int[] array, int capacity) {
+        int[] copy = new int[capacity];
+        System.arraycopy(array, 0, copy, 0, array.length);
+        return copy;
+    }
+
+    private static double[] copyOf(double[] array, int capacity) {
+        double[] copy = new double[capacity];
+        System.arraycopy(array, 0, copy, 0, array.length);
+        return copy;
+    }
+}
@@ -0,0 +1,484 @@
+package mas.german.landingplanes;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import mas.german.landingplanes.aircrafts.Aircraft;
+import mas.german.landingplanes.landingsites.LandingSite;
+
+/**
+ * Headless alternative to the periodic update of the Game. Aircraft fly in straight lines, so the
+ * next crash, landing and exit of the aerodrome of every aircraft can be calculated in advance.
+ * The predicted events are kept in a priority queue and the clock jumps directly from one event to
+ * the next, instead of checking every aircraft on every step.
+ *
+ * The time is counted in the same fixed steps used by the Game, and an event is predicted for the
+ * first step where the Game would detect it. Like the Game, crashes and landings are detected at
+ * any point of a step's movement, not only at it's end. Events of the same step are handled in the
+ * same order as the Game does: crashes first, then landings (on the first site in order) and then
+ * exits. This makes both produce the same outcomes.
+ *
+ * Predictions are invalidated lazily: each aircraft has a version that changes when it turns or
+ * leaves, and events made with an older version are discarded when they reach the head of the
+ * queue.
+ */
+public class EventDrivenSimulation {
+    private static final String TAG = EventDrivenSimulation.class.getSimpleName();
+
+    // Kind of events, in the order they are handled within a step.
+    private static final int EVENT_CRASH = 0;
+    private static final int EVENT_LAND = 1;
+    private static final int EVENT_EXIT = 2;
+
+    /**
+     * Outcomes of the simulation a listener may want to react upon.
+     */
+    public interface OutcomeListener {
+        /**
+         * An aircraft has landed.
+         *
+         * @param id    ID of the Aircraft that landed.
+         * @param step  Step of the simulation where it landed.
+         */
+        void onLand(int id, long step);
+
+        /**
+         * An aircraft has left the aerodrome.
+         *
+         * @param id    ID of the Aircraft that left the aerodrome.
+         * @param step  Step of the simulation where it left.
+         */
+        void onAircraftOutsideAerodrome(int id, long step);
+
+        /**
+         * Two aircraft crashed. The simulation is over.
+         *
+         * @param id        ID of one of the Aircraft.
+         * @param otherId   ID of the other Aircraft.
+         * @param step      Step of the simulation where they crashed.
+         */
+        void onCrash(int id, int otherId, long step);
+    }
+
+    /**
+     * Straight-line motion of an aircraft from a reference step.
+     */
+    private static class Track {
+        Aircraft aircraft;
+        int radius;
+        // Position at the reference step, and speed vector in Aerodrome Units per millisecond.
+        long referenceStep;
+        double x;
+        double y;
+        double velocityX;
+        double velocityY;
+        double direction;
+        // Changes every time the previous predictions of this track become invalid.
+        int version;
+        boolean active = true;
+    }
+
+    /**
+     * A predicted event. Valid while the versions of it's tracks don't change.
+     */
+    private static class Event implements Comparable<Event> {
+        long step;
+        int kind;
+        // Index of the landing site, so the first site in order wins on the same step.
+        int order;
+        long sequence;
+        Track track;
+        int version;
+        Track otherTrack;
+        int otherVersion;
+
+        boolean isValid() {
+            return track.active && (track.version == version) &&
+                ((otherTrack == null) || (otherTrack.active && otherTrack.version == otherVersion));
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            if (step != other.step) {
+                return step < other.step ? -1 : 1;
+            }
+            if (kind != other.kind) {
+                return kind < other.kind ? -1 : 1;
+            }
+            if (order != other.order) {
+                return order < other.order ? -1 : 1;
+            }
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+    }
+
+    private final Aerodrome mAerodrome;
+    private final long mStepMs;
+    private final List<LandingSite> mSites = new ArrayList<>();
+    private final List<Track> mTracks = new ArrayList<>();
+    private final Map<Integer, Track> mTracksById = new HashMap<>();
+    private final PriorityQueue<Event> mEvents = new PriorityQueue<>();
+    private OutcomeListener mListener;
+
+    private long mCurrentStep = 0;
+    private long mSequence = 0;
+    private int mScore = 0;
+    private boolean mGameOver = false;
+
+    public EventDrivenSimulation(Aerodrome aerodrome, long stepMs) {
+        mAerodrome = aerodrome;
+        mStepMs = stepMs;
+    }
+
+    public void setListener(OutcomeListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Adds a landing site. Sites must be added before the aircraft.
+     */
+    public void addLandingSite(LandingSite site) {
+        mSites.add(site);
+    }
+
+    public long getCurrentStep() {
+        return mCurrentStep;
+    }
+
+    public int getScore() {
+        return mScore;
+    }
+
+    public boolean isGameOver() {
+        return mGameOver;
+    }
+
+    public int getAircraftCount() {
+        return mTracksById.size();
+    }
+
+    /**
+     * Returns the step of the next valid event, or -1 if nothing else will happen.
+     */
+    public long getNextEventStep() {
+        discardInvalidEvents();
+        return mEvents.isEmpty() ? -1 : mEvents.peek().step;
+    }
+
+    /**
+     * Adds an aircraft at the current step. Like in the Game, it starts moving on the next step.
+     * Only the initial state of the Aircraft is read; the simulation doesn't update it.
+     */
+    public void spawn(Aircraft aircraft) {
+        if (mGameOver) {
+            return;
+        }
+        Track track = new Track();
+        track.aircraft = aircraft;
+        track.radius = aircraft.getRadius();
+        track.referenceStep = mCurrentStep;
+        track.x = aircraft.getPosition().getX();
+        track.y = aircraft.getPosition().getY();
+        track.velocityX = aircraft.getVelocityX();
+        track.velocityY = aircraft.getVelocityY();
+        track.direction = aircraft.getDirection();
+        mTracks.add(track);
+        mTracksById.put(aircraft.getId(), track);
+        predict(track);
+    }
+
+    /**
+     * Turns an aircraft towards a position at the current step, as Aircraft.changeDirection() does.
+     * The predictions of the aircraft are recalculated.
+     *
+     * @return  Whether the aircraft exists.
+     */
+    public boolean changeDirection(int id, Position position) {
+        Track track = mTracksById.get(id);
+        if (mGameOver || track == null) {
+            return false;
+        }
+        // Rebase the track on the current step.
+        track.x = getX(track, mCurrentStep);
+        track.y = getY(track, mCurrentStep);
+        track.referenceStep = mCurrentStep;
+        double direction = Math.atan2(position.getY() - track.y, position.getX() - track.x);
+        if (direction < 0) {
+            direction += 2 * Math.PI;
+        }
+        double speed = track.aircraft.getSpeed();
+        track.direction = direction;
+        track.velocityX = speed * Math.cos(direction);
+        track.velocityY = speed * Math.sin(direction);
+        track.version++;
+        predict(track);
+        return true;
+    }
+
+    /**
+     * Returns the position of an aircraft at the current step, or null if it isn't flying.
+     */
+    public Position getPosition(int id) {
+        Track track = mTracksById.get(id);
+        if (track == null) {
+            return null;
+        }
+        return new Position(getX(track, mCurrentStep), getY(track, mCurrentStep));
+    }
+
+    /**
+     * Handles all the events up to the given step, jumping from one event to the next.
+     *
+     * @param step  Step to advance to.
+     */
+    public void advanceTo(long step) {
+        while (!mGameOver) {
+            discardInvalidEvents();
+            if (mEvents.isEmpty() || mEvents.peek().step > step) {
+                break;
+            }
+            Event event = mEvents.poll();
+            mCurrentStep = event.step;
+            handle(event);
+        }
+        if (!mGameOver) {
+            mCurrentStep = Math.max(mCurrentStep, step);
+        }
+    }
+
+    private void discardInvalidEvents() {
+        while (!mEvents.isEmpty() && !mEvents.peek().isValid()) {
+            mEvents.poll();
+        }
+    }
+
+    private void handle(Event event) {
+        switch (event.kind) {
+            case EVENT_CRASH:
+                mGameOver = true;
+                if (mListener != null) {
+                    mListener.onCrash(event.track.aircraft.getId(),
+                        event.otherTrack.aircraft.getId(), event.step);
+                }
+                mEvents.clear();
+                break;
+            case EVENT_LAND:
+                remove(event.track);
+                mScore++;
+                if (mListener != null) {
+                    mListener.onLand(event.track.aircraft.getId(), event.step);
+                }
+                break;
+            case EVENT_EXIT:
+                remove(event.track);
+                if (mListener != null) {
+                    mListener.onAircraftOutsideAerodrome(event.track.aircraft.getId(), event.step);
+                }
+                break;
+        }
+    }
+
+    private void remove(Track track) {
+        track.active = false;
+        track.version++;
+        mTracks.remove(track);
+        mTracksById.remove(track.aircraft.getId());
+    }
+
+    private double getX(Track track, long step) {
+        return track.x + track.velocityX * ((step - track.referenceStep) * mStepMs);
+    }
+
+    private double getY(Track track, long step) {
+        return track.y + track.velocityY * ((step - track.referenceStep) * mStepMs);
+    }
+
+    /**
+     * Predicts the events of a track from the next step on: it's landing, exit and crashes with all
+     * the other tracks.
+     */
+    private void predict(Track track) {
+        long fromStep = mCurrentStep + 1;
+        for (int i = 0; i < mSites.size(); i++) {
+            long step = predictLanding(track, mSites.get(i), fromStep);
+            if (step >= 0) {
+                addEvent(step, EVENT_LAND, i, track, null);
+            }
+        }
+        long exitStep = predictExit(track, fromStep);
+        if (exitStep >= 0) {
+            addEvent(exitStep, EVENT_EXIT, 0, track, null);
+        }
+        for (Track other : mTracks) {
+            if (other != track) {
+                long step = predictCrash(track, other, fromStep);
+                if (step >= 0) {
+                    addEvent(step, EVENT_CRASH, 0, track, other);
+                }
+            }
+        }
+    }
+
+    private void addEvent(long step, int kind, int order, Track track, Track otherTrack) {
+        Event event = new Event();
+        event.step = step;
+        event.kind = kind;
+        event.order = order;
+        event.sequence = mSequence++;
+        event.track = track;
+        event.version = track.version;
+        if (otherTrack != null) {
+            event.otherTrack = otherTrack;
+            event.otherVersion = otherTrack.version;
+        }
+        mEvents.add(event);
+    }
+
+    /**
+     * Returns the time interval, in milliseconds from now, where |d + w * t| <= r, as {start, end}.
+     * Returns null if the distance never gets that small.
+     */
+    private static double[] solveWithinDistance(double dx, double dy, double wx, double wy,
+                                                double r) {
+        double a = wx * wx + wy * wy;
+        double b = 2 * (dx * wx + dy * wy);
+        double c = dx * dx + dy * dy - r * r;
+        if (a == 0) {
+            // No relative motion. Either always or never within the distance.
+            return (c <= 0) ? new double[] {Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY}
+                : null;
+        }
+        double discriminant = b * b - 4 * a * c;
+        if (discriminant < 0) {
+            return null;
+        }
+        double root = Math.sqrt(discriminant);
+        return new double[] {(-b - root) / (2 * a), (-b + root) / (2 * a)};
+    }
+
+    /**
+     * Returns the first step from fromStep whose movement overlaps the interval, or -1 if none.
+     * The movement of a step goes from the previous step to it, so the one of fromStep is the time
+     * [-mStepMs, 0].
+     */
+    private long firstStepInside(double[] interval, long fromStep) {
+        if (interval == null || interval[1] < -mStepMs) {
+            return -1;
+        }
+        long offset = (interval[0] <= 0) ? 0 : (long) Math.ceil(interval[0] / mStepMs);
+        return fromStep + offset;
+    }
+
+    /**
+     * Same test as AircraftStore.crashesDuring(), on the movement that ends at the given step.
+     */
+    private boolean crashesAt(Track track, Track other, long step) {
+        double u = getX(other, step) - getX(track, step);
+        double v = getY(other, step) - getY(track, step);
+        double radius = track.radius + other.radius;
+        if (Math.sqrt(u * u + v * v) <= radius) {
+            return true;
+        }
+        double wx = other.velocityX - track.velocityX;
+        double wy = other.velocityY - track.velocityY;
+        return Sweep.closestApproach(u - wx * mStepMs, v - wy * mStepMs, wx, wy, mStepMs) <=
+            radius;
+    }
+
+    private long predictCrash(Track track, Track other, long fromStep) {
+        double dx = getX(track, fromStep) - getX(other, fromStep);
+        double dy = getY(track, fromStep) - getY(other, fromStep);
+        double[] interval = solveWithinDistance(dx, dy, track.velocityX - other.velocityX,
+            track.velocityY - other.velocityY, track.radius + other.radius);
+        long step = firstStepInside(interval, fromStep);
+        if (step < 0) {
+            return -1;
+        }
+        // The closed form may differ from the exact test by rounding. Settle it with the test.
+        for (long candidate = Math.max(fromStep, step - 1); candidate <= step + 1; candidate++) {
+            if (crashesAt(track, other, candidate)) {
+                return candidate;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Same test as Aircraft.landedDuring(), on the movement that ends at the given step. Type and
+     * direction are checked by the caller.
+     */
+    private boolean landsAt(Track track, LandingSite site, long step) {
+        double u = getX(track, step) - site.getPosition().getX();
+        double v = getY(track, step) - site.getPosition().getY();
+        if (Math.sqrt(u * u + v * v) <= track.radius) {
+            return true;
+        }
+        return Sweep.closestApproach(u - track.velocityX * mStepMs, v - track.velocityY * mStepMs,
+            track.velocityX, track.velocityY, mStepMs) <= track.radius;
+    }
+
+    private long predictLanding(Track track, LandingSite site, long fromStep) {
+        // Type and direction don't change while the track is valid.
+        if (!track.aircraft.canLandOn(site) || !site.verifyDirection(track.direction)) {
+            return -1;
+        }
+        double dx = getX(track, fromStep) - site.getPosition().getX();
+        double dy = getY(track, fromStep) - site.getPosition().getY();
+        double[] interval = solveWithinDistance(dx, dy, track.velocityX, track.velocityY,
+            track.radius);
+        long step = firstStepInside(interval, fromStep);
+        if (step < 0) {
+            return -1;
+        }
+        for (long candidate = Math.max(fromStep, step - 1); candidate <= step + 1; candidate++) {
+            if (landsAt(track, site, candidate)) {
+                return candidate;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isOutOfBoundsAt(Track track, long step) {
+        return mAerodrome.isOutOfBounds(getX(track, step), getY(track, step));
+    }
+
+    /**
+     * Returns the time, in milliseconds from now, after which a coordinate moving at the given
+     * speed leaves the range [low, high]. Infinite if it never does.
+     */
+    private static double timeToLeave(double position, double velocity, double low, double high) {
+        if (velocity > 0) {
+            return (high - position) / velocity;
+        } else if (velocity < 0) {
+            return (low - position) / velocity;
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    private long predictExit(Track track, long fromStep) {
+        if (isOutOfBoundsAt(track, fromStep)) {
+            return fromStep;
+        }
+        double x = getX(track, fromStep);
+        double y = getY(track, fromStep);
+        double time = Math.min(
+            timeToLeave(x, track.velocityX, mAerodrome.getBoundaryLeft(),
+                mAerodrome.getBoundaryRight()),
+            timeToLeave(y, track.velocityY, mAerodrome.getBoundaryBottom(),
+                mAerodrome.getBoundaryTop()));
+        if (Double.isInfinite(time)) {
+            return -1;
+        }
+        // The first step strictly after the boundary is reached.
+        long step = fromStep + (long) Math.floor(time / mStepMs) + 1;
+        if ((step - 1 > fromStep) && isOutOfBoundsAt(track, step - 1)) {
+            step--;
+        }
+        while (!isOutOfBoundsAt(track, step)) {
+            step++;
+        }
+        return step;
+    }
+}
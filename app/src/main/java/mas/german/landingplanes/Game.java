@@ -1,30 +1,36 @@
 package mas.german.landingplanes;
 
-import java.util.Map;
-import java.util.HashMap;
 import mas.german.landingplanes.aircrafts.*;
+import mas.german.landingplanes.arrivals.ArrivalProcess;
 import mas.german.landingplanes.landingsites.*;
 
-import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Game class contains the logic of all the game. It is a singleton because only one instance should
- * exist.
+ * Game class contains the logic of all the game. The app uses a single instance, given by
+ * getInstance(). Other independent instances (sessions) can be created by a GameHost, which runs
+ * all of them on a shared scheduler.
  *
  * This class does the following tasks:
  * - Generates Landing Sites and store them on a array.
- * - Detects collisions of aircraft, and finishes the game if they happen.
+ * - Detects collisions of aircraft, and finishes the game if they happen. A CollisionGrid is
+ *   used so each aircraft is only checked against the ones near it.
+ * - Predicts the crashes within a horizon with a ConflictDetector, so the view can warn about them.
  * - Detects landings and increases the score.
  * - Checks if an aircraft has an invalid position and takes it off the array.
+ * - Records the input of the game (aircraft generated and commands) if a ReplayJournal is set.
  */
 public class Game implements AircraftGenerator.OnAircraftGenerated {
     private static final String TAG = Game.class.getSimpleName();
     private static final int UPDATE_MS = 30;
+    // Length of the fixed simulation steps. Each update runs as many steps as the time passed.
+    // Crashes and landings are detected during the whole step, so it can be as long as an update.
+    static final int STEP_MS = 30;
+    // Maximum steps per update. Bounds the work done after the host stalls.
+    private static final int MAX_STEPS_PER_UPDATE = 10;
     // Modifier of the Aircraft radius, in order to give a larger margin of selection.
     private static final float DISTANCE_TOLERANCE = 2f;
 
@@ -116,22 +122,76 @@ public class Game implements AircraftGenerator.OnAircraftGenerated {
         void onAircraftOutsideAerodrome(int id);
     }
 
+    /**
+     * Optional listener that gets the events of each update at once. While it's set, landings,
+     * exits, generated aircraft and position changes are only given to it, and not to the
+     * EventsListener, which still gets the rest of the events.
+     */
+    public interface BatchListener {
+        /**
+         * An update finished. It's called on the update thread while holding the game, so it
+         * must return quickly. The result can be kept and read on any thread.
+         *
+         * @param result    Everything that happened since the previous update.
+         */
+        void onTick(TickResult result);
+    }
+
     public void setListener(EventsListener eventsListener) {
         mEventsListener = eventsListener;
     }
 
-    private ArrayList<Aircraft> mAircraftList;
-    private ArrayList<LandingSite> mSites;
+    /**
+     * Sets the listener of the batched events. Null goes back to a call per event.
+     */
+    public void setBatchListener(BatchListener batchListener) {
+        synchronized (mAircraftStore) {
+            mBatchListener = batchListener;
+            mTickEvents.clear();
+        }
+    }
+
+    // Active aircraft. Their state is kept in columns for the update loop.
+    private AircraftStore mAircraftStore;
+    // Landing sites, indexed by the aircraft types they accept and by position.
+    private SiteIndex mSites;
 
     private int mScore;
     private Aerodrome mAerodrome;
     private EventsListener mEventsListener;
+    private BatchListener mBatchListener;
+    // Events of the running update, while there is a BatchListener.
+    private TickResult.Builder mTickEvents = new TickResult.Builder();
 
     private ScheduledExecutorService mExecutor;
     private ScheduledFuture<?> mUpdateTask;
-    private long mPreviousTimestamp = 0;
+    // Period of the update task, in milliseconds.
+    private long mUpdateMs = UPDATE_MS;
+    private SimulationClock mClock;
 
     private AircraftGenerator mGenerator;
+    private CollisionGrid mCollisionGrid;
+    // Upcoming crashes, published with the positions.
+    private ConflictDetector mConflicts;
+    // The selected aircraft, or null. Only one can be selected at a time.
+    private Aircraft mSelectedAircraft;
+    // Positions published after every update, read by the view without locking the store.
+    private PositionBuffer mPositionBuffer = new PositionBuffer();
+    // Splits the update across threads when there is enough traffic. Null for sequential updates.
+    private ParallelUpdate mParallelUpdate;
+    // Outcome of each slot of the store in a split update. Kept between updates and only grows.
+    private int[] mOutcomes = new int[0];
+    // Records the input of the games, so they can be replayed. Null when not recording.
+    private ReplayJournal mJournal;
+    private long mSeed;
+    // Steps simulated since the game started.
+    private long mStepCount;
+    // Most aircraft flying at once. The arrivals beyond it are turned away.
+    private int mPopulationCap = Integer.MAX_VALUE;
+    // Whether the game goes on after a crash. Only for headless runs that measure the traffic.
+    private boolean mCrashesIgnored = false;
+    // Pairs of aircraft crashed while the crashes are ignored, counted at every step.
+    private long mCrashCount;
 
     /**
      * Get the unique instance of the Game class.
@@ -146,82 +206,380 @@ public class Game implements AircraftGenerator.OnAircraftGenerated {
     }
 
     private Game() {
+        this(SimulationClock.SYSTEM_TIME);
+    }
+
+    /**
+     * Creates a Game driven by the given time source. Used to make runs reproducible.
+     */
+    Game(SimulationClock.TimeSource timeSource) {
         // Creates the executor Thread Pool.
-        mExecutor = Executors.newScheduledThreadPool(1);
+        this(Executors.newScheduledThreadPool(1), timeSource, System.currentTimeMillis());
+    }
+
+    /**
+     * Creates a Game whose periodic tasks run on the given executor, which may be shared with other
+     * games. The executor is never shut down by the game.
+     *
+     * @param executor      Executor of the update task, which also generates the aircraft. Null for
+     *                      headless games, which are stepped directly.
+     * @param timeSource    Time source of the simulation clock.
+     * @param seed          Seed of the aircraft generator.
+     */
+    Game(ScheduledExecutorService executor, SimulationClock.TimeSource timeSource, long seed) {
+        this(executor, timeSource, seed, new Aerodrome(0, 100, 100, 0));
+    }
+
+    /**
+     * Creates a Game on the given aerodrome. Used by headless runs that need room for a large
+     * amount of traffic.
+     */
+    Game(ScheduledExecutorService executor, SimulationClock.TimeSource timeSource, long seed,
+         Aerodrome aerodrome) {
+        int maxRadius = Math.max(LargePlane.RADIUS, Math.max(LightPlane.RADIUS, Helicopter.RADIUS));
+        mExecutor = executor;
+        mSeed = seed;
+        mClock = new SimulationClock(timeSource, STEP_MS, MAX_STEPS_PER_UPDATE);
+        mAerodrome = aerodrome;
         // Containers for all the active aircraft and landing sites.
-        mAircraftList = new ArrayList<>();
-        mSites = new ArrayList<>();
+        mAircraftStore = new AircraftStore();
+        mSites = new SiteIndex(mAerodrome, maxRadius);
         // Other game-related variables.
-        mAerodrome = new Aerodrome(0, 100, 100, 0);
-        mGenerator = new AircraftGenerator(mAerodrome);
+        mGenerator = new AircraftGenerator(mAerodrome, seed);
         mGenerator.setOnAircraftGeneratedListener(this);
+        // The grid cells are sized for the largest aircraft.
+        mCollisionGrid = new CollisionGrid(mAerodrome, maxRadius);
+        mConflicts = new ConflictDetector(mAerodrome, ConflictDetector.DEFAULT_HORIZON_MS);
     }
 
     /**
      * Start the Game. This resets the score and starts the periodic tasks.
      */
     public void initialize() {
+        // A game restarted while running doesn't keep the previous update task.
+        if (mUpdateTask != null) {
+            mUpdateTask.cancel(false);
+        }
         if (mEventsListener != null) {
             mEventsListener.onGameStart();
         }
-        mGenerator.begin();
-        mScore = 0;
-        setStartingSites();
+        synchronized (mAircraftStore) {
+            mTickEvents.clear();
+            mStepCount = 0;
+            mCrashCount = 0;
+            if (mJournal != null) {
+                mJournal.recordGameStart(mSeed, STEP_MS, mAerodrome);
+            }
+            mScore = 0;
+            setStartingSites();
+            mGenerator.begin();
+        }
 
-        // Periodic task to update the game status.
+        // Periodic task to update the game status and generate the aircraft. The clock starts
+        // counting now, so the first update doesn't see any time passed before the game started.
+        // A restarted game schedules it's task on the same executor, so it reuses the thread.
+        mClock.start();
+        if (mExecutor == null) {
+            // Headless games are stepped directly with step().
+            return;
+        }
         mUpdateTask = mExecutor.scheduleAtFixedRate(new Runnable() {
             @Override
             public void run() {
-                // Aircraft iterator for safely handle the removal of aircrafts from the list.
-                synchronized (mAircraftList) {
-                    // Calculate the time between calls, in order to move all aircraft accordingly.
-                    long timestamp = System.currentTimeMillis();
-                    long elapsedTime = timestamp - mPreviousTimestamp;
-                    mPreviousTimestamp = timestamp;
-
-                    Iterator<Aircraft> iterator = mAircraftList.iterator();
-                    while (iterator.hasNext()) {
-                        Aircraft aircraft = iterator.next();
-                        // The task runs at UPDATE_MS but it is not perfect. We use the previously
-                        // calculated elapsed time between iterations.
-                        aircraft.moveForward(elapsedTime);
-
-                        // Check for any crash.
-                        for (Aircraft otherAircraft : mAircraftList) {
-                            if (aircraft.crashesWith(otherAircraft)) {
-                                gameOver();
-                                return;
-                            }
-                        }
-
-                        // Check for any landing.
-                        for (LandingSite site : mSites) {
-                            if (aircraft.land(site)) {
-                                if (mEventsListener != null) {
-                                    mEventsListener.onLand(aircraft.getId());
-                                }
-                                mScore++;
-                                iterator.remove();
-                            }
-                        }
-
-                        // Delete any aircraft that is outside the aerodrome.
-                        if (mAerodrome.isOutOfBounds(aircraft)) {
-                            if (mEventsListener != null) {
-                                mEventsListener.onAircraftOutsideAerodrome(aircraft.getId());
-                            }
-
-                            iterator.remove();
-                        }
-                    }
-
-                    // All aircraft were moved.
-                    if (mEventsListener != null) {
-                        mEventsListener.onAircraftPositionChanged();
-                    }
+                tick();
+            }
+        }, 0, mUpdateMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Body of the periodic update task. The task runs every mUpdateMs but it is not perfect, so the
+     * clock tells how many fixed steps must be simulated for the time that actually passed.
+     *
+     * The aircraft due at each step are generated right before it, on this thread. Their arrival
+     * times follow the simulation time, not the real time.
+     */
+    void tick() {
+        // The store is synchronized to safely handle the removal of aircraft from it.
+        synchronized (mAircraftStore) {
+            int steps = mClock.advance();
+            if (steps == 0) {
+                return;
+            }
+            for (int step = 0; step < steps; step++) {
+                generateDue();
+                if (!update(mClock.getStepMs())) {
+                    return;
                 }
             }
-        }, 0, UPDATE_MS, TimeUnit.MILLISECONDS);
+            // Conflicts are only predicted once per update, for the positions that are published.
+            mConflicts.update(mAircraftStore, mClock.getSimulationTime());
+            publishPositions();
+            if (mJournal != null) {
+                mJournal.endUpdate(mStepCount);
+            }
+
+            // All aircraft were moved.
+            if (mBatchListener != null) {
+                deliverTickEvents();
+            } else if (mEventsListener != null) {
+                mEventsListener.onAircraftPositionChanged();
+            }
+            // The events were delivered, so the aircraft removed in the update can be reused.
+            mAircraftStore.releaseRemoved();
+        }
+    }
+
+    /**
+     * Runs a single step as the update task does, generating the aircraft due first. Used by
+     * headless runs, which step the game without the scheduler.
+     *
+     * @return  Whether the game goes on. False if the game is over.
+     */
+    boolean step() {
+        synchronized (mAircraftStore) {
+            generateDue();
+            if (!update(mClock.getStepMs())) {
+                return false;
+            }
+            if (mJournal != null) {
+                mJournal.endUpdate(mStepCount);
+            }
+            mAircraftStore.releaseRemoved();
+            return true;
+        }
+    }
+
+    /**
+     * Generates the aircraft due before the next step, as long as there is room for them.
+     */
+    private void generateDue() {
+        mGenerator.generateDue(mStepCount * mClock.getStepMs(),
+            mPopulationCap - mAircraftStore.size());
+    }
+
+    /**
+     * Gives the events collected since the previous update to the BatchListener.
+     */
+    private void deliverTickEvents() {
+        mBatchListener.onTick(mTickEvents.build(mClock.getSimulationTime(), mScore));
+    }
+
+    private void notifyLand(int id) {
+        if (mBatchListener != null) {
+            mTickEvents.addLanded(id);
+        } else if (mEventsListener != null) {
+            mEventsListener.onLand(id);
+        }
+    }
+
+    private void notifyOutsideAerodrome(int id) {
+        if (mBatchListener != null) {
+            mTickEvents.addExited(id);
+        } else if (mEventsListener != null) {
+            mEventsListener.onAircraftOutsideAerodrome(id);
+        }
+    }
+
+    /**
+     * Advances the game a single step: moves the aircraft and checks crashes, landings and aircraft
+     * leaving the aerodrome. Must be called while holding the store. Package-private so headless
+     * runs can step the game directly.
+     *
+     * @param sampleTime    Length of the step, in milliseconds.
+     * @return  Whether the game goes on. False if the game is over.
+     */
+    boolean update(long sampleTime) {
+        mStepCount++;
+        boolean parallel = (mParallelUpdate != null) &&
+            mParallelUpdate.isActive(mAircraftStore.size());
+
+        // All aircraft are moved before checking for crashes, so every check sees the positions of
+        // the same instant.
+        if (parallel) {
+            mParallelUpdate.moveAll(mAircraftStore, sampleTime);
+        } else {
+            mAircraftStore.moveAll(sampleTime);
+        }
+
+        // Check for any crash during the step, not only at it's end. The grid only tests each
+        // aircraft against the ones in the neighbouring cells.
+        mCollisionGrid.rebuild(mAircraftStore, sampleTime);
+        if (mCrashesIgnored) {
+            // Every pair is tested, as in a step without crashes, and not only up to the first.
+            mCrashCount += parallel ? mParallelUpdate.countCrashes(mCollisionGrid, mAircraftStore)
+                : mCollisionGrid.countCrashes();
+        } else if (parallel ? mParallelUpdate.hasCrash(mCollisionGrid, mAircraftStore)
+            : mCollisionGrid.hasCrash()) {
+            gameOver();
+            return false;
+        }
+
+        // Landings are also checked over the whole step, so the sites must cover the same reach.
+        mSites.fitRange(mCollisionGrid.getMaxReach());
+        if (parallel) {
+            if (mAircraftStore.size() > mOutcomes.length) {
+                mOutcomes = new int[Math.max(mAircraftStore.size(), 2 * mOutcomes.length)];
+            }
+            mParallelUpdate.findOutcomes(mAircraftStore, mSites, mAerodrome, sampleTime,
+                mOutcomes);
+            applyOutcomes(mOutcomes);
+            return true;
+        }
+
+        // Removing an aircraft moves the last one into it's slot, so the index is only advanced
+        // when the aircraft stays.
+        int i = 0;
+        while (i < mAircraftStore.size()) {
+            Aircraft aircraft = mAircraftStore.get(i);
+
+            // Check for any landing. Only the sites the aircraft can use, and that are within it's
+            // range, are checked.
+            double x = mAircraftStore.getX(i);
+            double y = mAircraftStore.getY(i);
+            if (mSites.findLanding(aircraft, x, y, sampleTime) >= 0) {
+                notifyLand(aircraft.getId());
+                mScore++;
+                removeAircraft(i);
+                continue;
+            }
+
+            // Delete any aircraft that is outside the aerodrome.
+            if (mAerodrome.isOutOfBounds(x, y)) {
+                notifyOutsideAerodrome(aircraft.getId());
+                removeAircraft(i);
+                continue;
+            }
+            i++;
+        }
+        return true;
+    }
+
+    /**
+     * Applies the landings and exits found by the parallel update. The slots are visited in the
+     * same order as the sequential update, so the listener gets the same calls in the same order.
+     *
+     * @param outcomes  Outcome of each slot of the store.
+     */
+    private void applyOutcomes(int[] outcomes) {
+        int i = 0;
+        while (i < mAircraftStore.size()) {
+            int outcome = outcomes[i];
+            if (outcome == ParallelUpdate.STAYS) {
+                i++;
+                continue;
+            }
+            int id = mAircraftStore.getId(i);
+            if (outcome == ParallelUpdate.OUTSIDE) {
+                notifyOutsideAerodrome(id);
+            } else {
+                notifyLand(id);
+                mScore++;
+            }
+            // The last aircraft is moved into the slot, so it's outcome is moved as well.
+            outcomes[i] = outcomes[mAircraftStore.size() - 1];
+            removeAircraft(i);
+        }
+    }
+
+    /**
+     * Removes the aircraft of a slot of the store. The last aircraft is moved into the slot, so the
+     * grid is told to look for it there.
+     */
+    private void removeAircraft(int index) {
+        if (mAircraftStore.get(index) == mSelectedAircraft) {
+            mSelectedAircraft = null;
+        }
+        mConflicts.remove(mAircraftStore.getId(index));
+        mAircraftStore.removeAt(index);
+        if (index < mAircraftStore.size()) {
+            mCollisionGrid.addUnindexed(index);
+        }
+    }
+
+    /**
+     * Splits the updates across the threads of the given ParallelUpdate, once the traffic reaches
+     * it's threshold. Null goes back to sequential updates.
+     */
+    public void setParallelUpdate(ParallelUpdate parallelUpdate) {
+        synchronized (mAircraftStore) {
+            mParallelUpdate = parallelUpdate;
+        }
+    }
+
+    /**
+     * Sets the process that gives the arrival times of the aircraft, from the next initialize().
+     */
+    public void setArrivalProcess(ArrivalProcess arrivals) {
+        synchronized (mAircraftStore) {
+            mGenerator.setArrivalProcess(arrivals);
+        }
+    }
+
+    /**
+     * Sets the most aircraft that can fly at once. The arrivals due while it's reached are turned
+     * away, so the traffic stays at the cap instead of piling up.
+     */
+    public void setPopulationCap(int populationCap) {
+        if (populationCap < 0) {
+            throw new IllegalArgumentException("The population cap can't be negative.");
+        }
+        synchronized (mAircraftStore) {
+            mPopulationCap = populationCap;
+        }
+    }
+
+    /**
+     * Makes the game go on after a crash, so a headless run can build up more traffic than a game
+     * would survive. Every pair of aircraft is still tested, and the crashing ones are counted, so
+     * the update does at least the work of a step without crashes.
+     */
+    void setCrashesIgnored(boolean crashesIgnored) {
+        synchronized (mAircraftStore) {
+            mCrashesIgnored = crashesIgnored;
+        }
+    }
+
+    /**
+     * Returns the pairs of aircraft crashed while the crashes are ignored. A pair is counted at
+     * every step it's found crashing.
+     */
+    long getCrashCount() {
+        return mCrashCount;
+    }
+
+    /**
+     * Records the games started from now on in the given journal. Null stops recording. The
+     * previous journal is not closed.
+     */
+    public void setJournal(ReplayJournal journal) {
+        synchronized (mAircraftStore) {
+            mJournal = journal;
+        }
+    }
+
+    public ReplayJournal getJournal() {
+        return mJournal;
+    }
+
+    /**
+     * Returns the aircraft of the game. Headless drivers read them while holding the store.
+     */
+    AircraftStore getAircraftStore() {
+        return mAircraftStore;
+    }
+
+    /**
+     * Returns the landing sites of the game. They must be read while holding the store.
+     */
+    SiteIndex getSites() {
+        return mSites;
+    }
+
+    /**
+     * Returns the steps simulated since the game started.
+     */
+    long getStepCount() {
+        return mStepCount;
     }
 
     /**
@@ -229,35 +587,67 @@ public class Game implements AircraftGenerator.OnAircraftGenerated {
      */
     private void setStartingSites() {
         LongRunway longRunway = new LongRunway(new Position(50, 75), 0, Math.toRadians(90));
-        mSites.add(longRunway);
+        addSite(longRunway);
         if (mEventsListener != null) {
             mEventsListener.onLongRunwayCreated(longRunway);
         }
 
         ShortRunway shortRunway = new ShortRunway(new Position(75, 25), Math.toRadians(90), Math.toRadians(90));
-        mSites.add(shortRunway);
+        addSite(shortRunway);
         if (mEventsListener != null) {
             mEventsListener.onShortRunwayCreated(shortRunway);
         }
 
         Helipad helipad = new Helipad(new Position(25, 25));
-        mSites.add(helipad);
+        addSite(helipad);
         if (mEventsListener != null) {
             mEventsListener.onHelipadCreated(helipad);
         }
     }
 
+    /**
+     * Adds a landing site to the game, without notifying the listener. Used by headless runs.
+     */
+    void addLandingSite(LandingSite site) {
+        synchronized (mAircraftStore) {
+            addSite(site);
+        }
+    }
+
+    private void addSite(LandingSite site) {
+        mSites.add(site);
+        if (mJournal != null) {
+            mJournal.recordSite(mStepCount, site);
+        }
+    }
+
     /**
      * Game over procedure.
      */
     private void gameOver() {
         // Stop the Generator.
         mGenerator.stop();
-        // Cancel the Update Task.
-        mUpdateTask.cancel(true);
+        // Cancel the Update Task. It's not interrupted, as this runs on the task itself, and the
+        // thread may be shared with other games.
+        if (mUpdateTask != null) {
+            mUpdateTask.cancel(false);
+            mUpdateTask = null;
+        }
         // Clean the lists of Aircraft and Sites.
-        mAircraftList.clear();
+        mAircraftStore.clear();
+        mCollisionGrid.clear();
+        mConflicts.clear();
+        mSelectedAircraft = null;
         mSites.clear();
+        publishPositions();
+        if (mJournal != null) {
+            mJournal.recordEnd(mStepCount, ReplayJournal.GAME_OVER);
+        }
+        // The events of the steps before the crash are given before the game over.
+        if (mBatchListener != null) {
+            deliverTickEvents();
+        }
+        mAircraftStore.releaseRemoved();
         // Notify the EventsListener about the event.
         if (mEventsListener != null) {
             mEventsListener.onGameOver();
@@ -265,17 +655,96 @@ public class Game implements AircraftGenerator.OnAircraftGenerated {
     }
 
     /**
-     * Return a Map with the Aircraft ID and a clone of it's Position.
+     * Stops the game without a game over: the periodic tasks are canceled and the aircraft and
+     * sites are removed. The game can be started again with initialize().
      */
-    public Map<Integer, Position> getAircraftPositionMap() {
-        Map<Integer, Position> positionMap = new HashMap<>();
-        // The Map is populated in a synchronized block.
-        synchronized (mAircraftList) {
-            for (Aircraft aircraft : mAircraftList) {
-                positionMap.put(aircraft.getId(), aircraft.getPosition().clone());
+    public void stop() {
+        synchronized (mAircraftStore) {
+            mGenerator.stop();
+            // Only a running game is recorded as stopped.
+            if ((mJournal != null) && (mUpdateTask != null)) {
+                mJournal.recordEnd(mStepCount, ReplayJournal.STOP);
             }
+            if (mUpdateTask != null) {
+                mUpdateTask.cancel(false);
+                mUpdateTask = null;
+            }
+            mAircraftStore.clear();
+            mCollisionGrid.clear();
+            mConflicts.clear();
+            mSelectedAircraft = null;
+            mSites.clear();
+            mTickEvents.clear();
+            mAircraftStore.releaseRemoved();
+            publishPositions();
+        }
+    }
+
+    /**
+     * Copies the positions of all the aircraft, and the conflicts within the horizon, into a
+     * snapshot and publishes it. Must be called while holding the store, which keeps a single
+     * writer. Package-private so benchmarks can measure it.
+     */
+    void publishPositions() {
+        PositionSnapshot snapshot = mPositionBuffer.getBack();
+        long now = mClock.getSimulationTime();
+        snapshot.reset(now, mClock.getTimeScale(), mAircraftStore.size());
+        for (int i = 0; i < mAircraftStore.size(); i++) {
+            snapshot.set(i, mAircraftStore.getId(i), mAircraftStore.getX(i),
+                mAircraftStore.getY(i), mAircraftStore.getDirection(i));
+        }
+        for (int k = 0; k < mConflicts.getPairCount(); k++) {
+            if (mConflicts.isUpcoming(k, now)) {
+                snapshot.addConflict(mConflicts.getFirstId(k), mConflicts.getSecondId(k),
+                    mConflicts.getConflictTime(k));
+            }
+        }
+        mPositionBuffer.publish();
+    }
+
+    /**
+     * Returns the positions of the aircraft after the latest update. It doesn't lock the game nor
+     * allocate. The snapshot is only valid until the next call, and there must be a single reader.
+     */
+    public PositionSnapshot getPositionSnapshot() {
+        return mPositionBuffer.acquire();
+    }
+
+    /**
+     * Sets how often the game is updated, from the next initialize(). The simulation steps don't
+     * change, so a longer period runs more steps per update: the game plays the same, it's only
+     * shown less often. A view that interpolates the positions between updates can use a longer
+     * period to save CPU and battery. It must be shorter than MAX_STEPS_PER_UPDATE steps, or the
+     * game falls behind real time.
+     *
+     * @param updateMs  Period of the updates, in milliseconds.
+     */
+    public void setUpdatePeriod(long updateMs) {
+        if (updateMs <= 0) {
+            throw new IllegalArgumentException("The update period must be positive.");
+        }
+        mUpdateMs = updateMs;
+    }
+
+    /**
+     * Sets how far ahead the crashes are predicted and published with the positions.
+     *
+     * @param horizon   Milliseconds of simulation time. 0 disables the prediction.
+     */
+    public void setConflictHorizon(long horizon) {
+        synchronized (mAircraftStore) {
+            mConflicts.setHorizon(horizon);
+        }
+    }
+
+    /**
+     * Sets how fast the game runs compared to real time. 1 is real time, 2 runs twice as fast.
+     * The simulation steps are the same in all cases, only more of them run per update.
+     */
+    public void setTimeScale(double timeScale) {
+        synchronized (mAircraftStore) {
+            mClock.setTimeScale(timeScale);
         }
-        return positionMap;
     }
 
     public Aerodrome getAerodrome() {
@@ -290,43 +759,43 @@ public class Game implements AircraftGenerator.OnAircraftGenerated {
     }
 
     /**
-     * Auxiliary method to select a single aircraft while deselecting the rest.
+     * Auxiliary method to select a single aircraft while deselecting the previous one.
      *
-     * @param id    ID of the Aircraft to select.
-     */
-    private void selectAircraft(int id) {
-        synchronized (mAircraftList) {
-            for (Aircraft aircraft : mAircraftList) {
-                if (aircraft.getId() == id) {
-                    aircraft.select(true);
-                } else {
-                    aircraft.select(false);
-                }
-            }
+     * @param aircraft  Aircraft to select.
+     */
+    private void selectAircraft(Aircraft aircraft) {
+        if ((mSelectedAircraft != null) && (mSelectedAircraft != aircraft)) {
+            mSelectedAircraft.select(false);
         }
+        aircraft.select(true);
+        mSelectedAircraft = aircraft;
     }
 
     /**
-     * Check if an Aircraft is near the given position and select it.
+     * Check if an Aircraft is near the given position and select it. The nearest one is selected
+     * when several are within reach. Only the cells of the grid around the position are searched.
      *
      * @param position  Position to check for aircraft.
      * @return  Whether an Aircraft was selected or not.
      */
     public boolean selectAircraftAtPosition(Position position) {
-        synchronized (mAircraftList) {
-            for (Aircraft aircraft : mAircraftList) {
-                if (aircraft.getPosition().distanceTo(position) <=
-                    aircraft.getRadius() + DISTANCE_TOLERANCE) {
-                    // An aircraft is within reach. Select it.
-                    selectAircraft(aircraft.getId());
-                    if (mEventsListener != null) {
-                        mEventsListener.onAircraftSelect(aircraft.getId(), true);
-                    }
-                    return true;
-                }
+        synchronized (mAircraftStore) {
+            if (mJournal != null) {
+                mJournal.recordCommand(mStepCount, ReplayJournal.SELECT, position);
+            }
+            int index = mCollisionGrid.findNearest(mAircraftStore, position.getX(),
+                position.getY(), DISTANCE_TOLERANCE);
+            if (index < 0) {
+                return false;
+            }
+            // An aircraft is within reach. Select it.
+            Aircraft aircraft = mAircraftStore.get(index);
+            selectAircraft(aircraft);
+            if (mEventsListener != null) {
+                mEventsListener.onAircraftSelect(aircraft.getId(), true);
             }
+            return true;
         }
-        return false;
     }
 
     /**
@@ -335,27 +804,45 @@ public class Game implements AircraftGenerator.OnAircraftGenerated {
      * @param position  Position the Aircraft needs to face.
      */
     public void orientateSelectedAircraft(Position position) {
-        // Synchronize the list, so we know we modify the correct Aircraft.
-        synchronized (mAircraftList) {
-            for (Aircraft aircraft : mAircraftList) {
-                if (aircraft.isSelected()) {
-                    aircraft.changeDirection(position);
-                    aircraft.select(false);
-                    mEventsListener.onAircraftSelect(aircraft.getId(), false);
-                    break;
-                }
+        // Synchronize the store, so we know we modify the correct Aircraft.
+        synchronized (mAircraftStore) {
+            if (mJournal != null) {
+                mJournal.recordCommand(mStepCount, ReplayJournal.ORIENTATE, position);
+            }
+            Aircraft aircraft = mSelectedAircraft;
+            if (aircraft == null) {
+                return;
+            }
+            aircraft.changeDirection(position);
+            mConflicts.legChanged(aircraft.getId());
+            aircraft.select(false);
+            mSelectedAircraft = null;
+            if (mEventsListener != null) {
+                mEventsListener.onAircraftSelect(aircraft.getId(), false);
             }
         }
     }
 
     @Override
     public void onAircraftGenerated(Aircraft generatedAircraft) {
-        // Synchronize the Aircraft list to prevent access during the operation.
-        synchronized (mAircraftList) {
-            mAircraftList.add(generatedAircraft);
+        // Synchronize the Aircraft store to prevent access during the operation. The Aircraft reads
+        // it's state from the store, so it's also notified while holding it.
+        synchronized (mAircraftStore) {
+            mAircraftStore.add(generatedAircraft);
+            // It's not in the grid until the next update.
+            mCollisionGrid.addUnindexed(mAircraftStore.size() - 1);
+            mConflicts.legChanged(generatedAircraft.getId());
+            if (mJournal != null) {
+                mJournal.recordSpawn(mStepCount, generatedAircraft);
+            }
+            if (mBatchListener != null) {
+                // Given with the events of the running update, or of the next one.
+                mTickEvents.addGenerated(generatedAircraft);
+                return;
+            }
+            // Make the Aircraft notify itself. It's subtypes will call the corresponding method.
+            generatedAircraft.notifyCreation(this);
         }
-        // Make the Aircraft notify itself. It's subtypes will call the corresponding method.
-        generatedAircraft.notifyCreation(this);
     }
 
     /**
@@ -0,0 +1,106 @@
+package mas.german.landingplanes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hosts many independent games (sessions) in the same process. Each Game would otherwise create
+ * it's own scheduler thread. Instead, the host owns a small fixed pool of threads that runs the
+ * update tasks of all the sessions, which also generate their aircraft.
+ *
+ * Sessions are isolated from each other: each one has it's own aircraft, sites, score and
+ * listener, and an exception thrown by a session's listener only stops that session's task.
+ */
+public class GameHost {
+    private static final String TAG = GameHost.class.getSimpleName();
+
+    private final ScheduledExecutorService mScheduler;
+    private final List<Game> mSessions = new ArrayList<>();
+    private final SimulationClock.TimeSource mTimeSource;
+    private boolean mShutdown = false;
+
+    /**
+     * Creates a host whose sessions share the given number of threads.
+     */
+    public GameHost(int threads) {
+        this(threads, SimulationClock.SYSTEM_TIME);
+    }
+
+    /**
+     * Creates a host whose sessions share the given number of threads and are driven by the given
+     * time source.
+     */
+    public GameHost(int threads, SimulationClock.TimeSource timeSource) {
+        mTimeSource = timeSource;
+        mScheduler = Executors.newScheduledThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger mCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, TAG + "-" + mCount.incrementAndGet());
+                // Sessions must not keep the process alive on their own.
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Creates a new session. It doesn't start until it's initialize() is called.
+     */
+    public Game createSession() {
+        return createSession(System.nanoTime());
+    }
+
+    /**
+     * Creates a new session whose aircraft generator uses the given seed.
+     */
+    public Game createSession(long seed) {
+        synchronized (mSessions) {
+            if (mShutdown) {
+                throw new IllegalStateException("The host was shut down.");
+            }
+            Game session = new Game(mScheduler, mTimeSource, seed);
+            mSessions.add(session);
+            return session;
+        }
+    }
+
+    /**
+     * Stops a session and releases it. The shared threads keep running the other sessions.
+     */
+    public void closeSession(Game session) {
+        synchronized (mSessions) {
+            if (!mSessions.remove(session)) {
+                return;
+            }
+        }
+        session.stop();
+    }
+
+    public int getSessionCount() {
+        synchronized (mSessions) {
+            return mSessions.size();
+        }
+    }
+
+    /**
+     * Stops all the sessions and the shared threads. No sessions can be created afterwards.
+     */
+    public void shutdown() {
+        List<Game> sessions;
+        synchronized (mSessions) {
+            mShutdown = true;
+            sessions = new ArrayList<>(mSessions);
+            mSessions.clear();
+        }
+        for (Game session : sessions) {
+            session.stop();
+        }
+        mScheduler.shutdownNow();
+    }
+}
@@ -2,14 +2,22 @@ package mas.german.landingplanes;
 
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
+import android.util.Log;
+import android.view.View;
 import android.widget.Button;
 import android.widget.TextView;
+import java.io.File;
+import java.io.IOException;
 import mas.german.landingplanes.controller.Controller;
+import mas.german.landingplanes.view.AerodromeDisplay;
+import mas.german.landingplanes.view.AerodromeSurfaceView;
 import mas.german.landingplanes.view.AerodromeView;
 import mas.german.landingplanes.view.GameView;
 
 public class MainActivity extends AppCompatActivity {
     private static final String TAG = MainActivity.class.getSimpleName();
+    // Journal of the games, replaced on every launch.
+    private static final String JOURNAL_FILE = "replay.journal";
     private GameView mGameView;
     private Controller mController = new Controller();
 
@@ -18,9 +26,35 @@ public class MainActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
+        // Record the games, so one that ends in a crash can be replayed. The activity may be
+        // created again while the game goes on, which keeps recording to the same journal.
+        Game game = Game.getInstance();
+        if (game.getJournal() == null) {
+            try {
+                game.setJournal(ReplayJournal.open(new File(getFilesDir(), JOURNAL_FILE)));
+            } catch (IOException e) {
+                Log.w(TAG, "The games won't be recorded.", e);
+            }
+        }
+
+        // Draw the aerodrome on the UI Thread, or on a render thread of it's own.
+        AerodromeDisplay aerodrome;
+        if (getResources().getBoolean(R.bool.surface_rendering)) {
+            AerodromeSurfaceView surfaceView =
+                (AerodromeSurfaceView) findViewById(R.id.aerodrome_surface);
+            surfaceView.setVisibility(View.VISIBLE);
+            findViewById(R.id.aerodrome_canvas).setVisibility(View.GONE);
+            aerodrome = surfaceView;
+        } else {
+            aerodrome = (AerodromeView) findViewById(R.id.aerodrome_canvas);
+        }
+
+        // With interpolation the game can be updated less often without the aircraft jumping.
+        aerodrome.getRenderer().setInterpolation(getResources().getBoolean(R.bool.interpolation));
+        game.setUpdatePeriod(getResources().getInteger(R.integer.update_period_ms));
+
         // Pass the layout elements to the View Class.
-        mGameView = new GameView(getApplicationContext(),
-            (AerodromeView) findViewById(R.id.view_aerodrome),
+        mGameView = new GameView(getApplicationContext(), aerodrome,
             (TextView) findViewById(R.id.score_field), (TextView) findViewById(R.id.game_over_text),
             (Button) findViewById(R.id.btn_restart));
 
@@ -0,0 +1,207 @@
+package mas.german.landingplanes;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import mas.german.landingplanes.aircrafts.AircraftStore;
+
+/**
+ * Splits the work of a Game update across the threads of a ForkJoinPool, for games with thousands
+ * of aircraft. The slots of the store are partitioned in ranges, and each range is moved, checked
+ * for crashes and checked for landings and exits on it's own task.
+ *
+ * The tasks only read the shared state and write to their own slots, so they don't need locks.
+ * Their results are outcomes per slot; the Game applies them afterwards on it's own thread, in the
+ * same order as the sequential update, so removals, score and listener calls don't depend on how
+ * the tasks were scheduled.
+ *
+ * The state of each call is kept apart, so a single instance can be shared by the games of a host.
+ *
+ * Below the threshold the split isn't worth it and the Game uses the sequential update.
+ * ForkJoinPool is only available from Android API 21, so this class must only be created there.
+ */
+public class ParallelUpdate {
+    private static final String TAG = ParallelUpdate.class.getSimpleName();
+    // Aircraft below which the sequential update is used.
+    public static final int DEFAULT_THRESHOLD = 2048;
+    // Minimum number of slots handled by a single task.
+    private static final int MIN_RANGE = 256;
+    // Ranges per thread. More ranges than threads balance the load between them.
+    private static final int RANGES_PER_THREAD = 4;
+
+    // Outcomes of the slots. Any other value is the index of the site the aircraft lands on.
+    static final int STAYS = -1;
+    static final int OUTSIDE = -2;
+
+    private static final int PHASE_MOVE = 0;
+    private static final int PHASE_CRASH = 1;
+    private static final int PHASE_OUTCOME = 2;
+    private static final int PHASE_CRASH_COUNT = 3;
+
+    private final ForkJoinPool mPool;
+    private final int mThreshold;
+
+    /**
+     * Inputs and results of a phase, shared by it's tasks. Every call has it's own, so the
+     * ParallelUpdate keeps no state between calls and can be shared by the games of a host.
+     */
+    private static class Phase {
+        final int mKind;
+        // Slots below which a task isn't split any further.
+        final int mRange;
+        final AircraftStore mStore;
+        final long mSampleTime;
+        CollisionGrid mGrid;
+        SiteIndex mSites;
+        Aerodrome mAerodrome;
+        int[] mOutcomes;
+        volatile boolean mCrashFound;
+        final AtomicInteger mCrashCount = new AtomicInteger();
+
+        Phase(int kind, int range, AircraftStore store, long sampleTime) {
+            mKind = kind;
+            mRange = range;
+            mStore = store;
+            mSampleTime = sampleTime;
+        }
+    }
+
+    /**
+     * Task that runs a phase over a range of slots, splitting it in halves until it's small enough.
+     */
+    @SuppressWarnings("serial")
+    private static class RangeTask extends RecursiveAction {
+        private final Phase mPhase;
+        private final int mFrom;
+        private final int mTo;
+
+        RangeTask(Phase phase, int from, int to) {
+            mPhase = phase;
+            mFrom = from;
+            mTo = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (mTo - mFrom > mPhase.mRange) {
+                int middle = (mFrom + mTo) >>> 1;
+                invokeAll(new RangeTask(mPhase, mFrom, middle), new RangeTask(mPhase, middle, mTo));
+                return;
+            }
+            switch (mPhase.mKind) {
+                case PHASE_MOVE:
+                    mPhase.mStore.moveRange(mFrom, mTo, mPhase.mSampleTime);
+                    break;
+                case PHASE_CRASH:
+                    // Once a crash is found the rest of the ranges have nothing to add.
+                    if (!mPhase.mCrashFound && mPhase.mGrid.hasCrash(mFrom, mTo)) {
+                        mPhase.mCrashFound = true;
+                    }
+                    break;
+                case PHASE_CRASH_COUNT:
+                    mPhase.mCrashCount.addAndGet(mPhase.mGrid.countCrashes(mFrom, mTo));
+                    break;
+                case PHASE_OUTCOME:
+                    for (int i = mFrom; i < mTo; i++) {
+                        mPhase.mOutcomes[i] = outcomeOf(mPhase, i);
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * @param pool          Pool whose threads run the update.
+     * @param threshold     Aircraft below which the sequential update is used.
+     */
+    public ParallelUpdate(ForkJoinPool pool, int threshold) {
+        mPool = pool;
+        mThreshold = threshold;
+    }
+
+    /**
+     * Returns whether an update of the given number of aircraft is split.
+     */
+    boolean isActive(int count) {
+        return count >= mThreshold;
+    }
+
+    public int getThreshold() {
+        return mThreshold;
+    }
+
+    public int getParallelism() {
+        return mPool.getParallelism();
+    }
+
+    private Phase createPhase(int kind, AircraftStore store, long sampleTime) {
+        int range = Math.max(MIN_RANGE,
+            store.size() / (RANGES_PER_THREAD * mPool.getParallelism()));
+        return new Phase(kind, range, store, sampleTime);
+    }
+
+    private void run(Phase phase, int count) {
+        mPool.invoke(new RangeTask(phase, 0, count));
+    }
+
+    /**
+     * Moves all the aircraft of the store.
+     */
+    void moveAll(AircraftStore store, long sampleTime) {
+        run(createPhase(PHASE_MOVE, store, sampleTime), store.size());
+    }
+
+    /**
+     * Returns whether any pair of aircraft crashes. The grid must have been rebuilt.
+     */
+    boolean hasCrash(CollisionGrid grid, AircraftStore store) {
+        Phase phase = createPhase(PHASE_CRASH, store, 0);
+        phase.mGrid = grid;
+        run(phase, store.size());
+        return phase.mCrashFound;
+    }
+
+    /**
+     * Returns the number of pairs of aircraft that crash, testing all of them. The grid must have
+     * been rebuilt.
+     */
+    int countCrashes(CollisionGrid grid, AircraftStore store) {
+        Phase phase = createPhase(PHASE_CRASH_COUNT, store, 0);
+        phase.mGrid = grid;
+        run(phase, store.size());
+        return phase.mCrashCount.get();
+    }
+
+    /**
+     * Works out what happens to each aircraft: it stays, it lands on one of the sites, or it's
+     * outside the aerodrome. Nothing is changed; the outcomes are applied by the caller.
+     *
+     * @param outcomes  Receives the outcome of each slot of the store. Must be at least as long as
+     *                  the store.
+     */
+    void findOutcomes(AircraftStore store, SiteIndex sites, Aerodrome aerodrome, long sampleTime,
+                      int[] outcomes) {
+        Phase phase = createPhase(PHASE_OUTCOME, store, sampleTime);
+        phase.mSites = sites;
+        phase.mAerodrome = aerodrome;
+        phase.mOutcomes = outcomes;
+        run(phase, store.size());
+    }
+
+    /**
+     * Same checks as the sequential update: the first site the aircraft lands on, and otherwise
+     * the bounds of the aerodrome.
+     */
+    private static int outcomeOf(Phase phase, int index) {
+        AircraftStore store = phase.mStore;
+        int site = phase.mSites.findLanding(store.get(index), store.getX(index), store.getY(index),
+            phase.mSampleTime);
+        if (site >= 0) {
+            return site;
+        }
+        if (phase.mAerodrome.isOutOfBounds(store.getX(index), store.getY(index))) {
+            return OUTSIDE;
+        }
+        return STAYS;
+    }
+}
@@ -19,11 +19,21 @@ public class Position implements Cloneable {
         return Math.sqrt(u * u + v * v);
     }
 
+    public void set(double x, double y) {
+        mX = x;
+        mY = y;
+    }
+
     public void add(Position position) {
         mX += position.mX;
         mY += position.mY;
     }
 
+    public void add(double x, double y) {
+        mX += x;
+        mY += y;
+    }
+
     public double getX() {
         return mX;
     }
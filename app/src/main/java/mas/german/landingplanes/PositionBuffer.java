@@ -0,0 +1,63 @@
+package mas.german.landingplanes;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Triple buffer of PositionSnapshots, used to hand the aircraft positions from the update thread
+ * to a reader (the view) without locks and without allocating.
+ *
+ * The writer owns one snapshot and fills it. Publishing swaps it with the ready snapshot, which is
+ * held by an atomic reference. The reader owns another snapshot, and swaps it with the ready one
+ * when the ready one is newer. Each snapshot is owned by a single side at a time, so the writer
+ * never modifies a snapshot the reader is using.
+ *
+ * There must be a single writer and a single reader at a time. The Game only publishes while
+ * holding it's aircraft store.
+ */
+public class PositionBuffer {
+    private static final String TAG = PositionBuffer.class.getSimpleName();
+
+    // Snapshot being filled by the writer.
+    private PositionSnapshot mBack = new PositionSnapshot();
+    // Latest published snapshot, not taken by the reader yet.
+    private final AtomicReference<PositionSnapshot> mReady =
+        new AtomicReference<>(new PositionSnapshot());
+    // Snapshot being read.
+    private PositionSnapshot mFront = new PositionSnapshot();
+    private long mVersion = 0;
+
+    /**
+     * Returns the snapshot the writer fills before calling publish().
+     */
+    PositionSnapshot getBack() {
+        return mBack;
+    }
+
+    /**
+     * Makes the filled snapshot available to the reader, and takes the previous ready one to be
+     * filled next.
+     */
+    void publish() {
+        mBack.mVersion = ++mVersion;
+        mBack = mReady.getAndSet(mBack);
+    }
+
+    /**
+     * Returns the latest published snapshot. It stays valid until the next call, so the reader
+     * must not keep it after that.
+     */
+    public PositionSnapshot acquire() {
+        while (true) {
+            PositionSnapshot ready = mReady.get();
+            if (ready.mVersion <= mFront.mVersion) {
+                // Nothing new since the last call.
+                return mFront;
+            }
+            // Fails only if the writer published meanwhile. Then there is an even newer one.
+            if (mReady.compareAndSet(ready, mFront)) {
+                mFront = ready;
+                return mFront;
+            }
+        }
+    }
+}
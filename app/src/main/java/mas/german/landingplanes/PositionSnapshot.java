@@ -0,0 +1,121 @@
+package mas.german.landingplanes;
+
+/**
+ * Positions and directions of all the aircraft at the end of an update, packed in primitive
+ * arrays. Snapshots are filled by the Game and handed to the readers by a PositionBuffer; a reader
+ * only sees a snapshot after it was completely filled, and it's never modified while the reader
+ * holds it.
+ *
+ * The snapshot also carries the conflicts predicted at the end of the update: pairs of aircraft
+ * that would crash within the horizon of the ConflictDetector if they kept their heading.
+ */
+public class PositionSnapshot {
+    private static final String TAG = PositionSnapshot.class.getSimpleName();
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Sequence number of the snapshot. Later snapshots have greater versions.
+    volatile long mVersion = 0;
+    // Simulation time of the snapshot, in milliseconds.
+    private long mTime;
+    // Simulated milliseconds per real millisecond when the snapshot was taken.
+    private double mTimeScale = 1;
+    private int mCount;
+    private int[] mIds = new int[INITIAL_CAPACITY];
+    // Coordinates of each aircraft, interleaved: x of the aircraft i at 2i and y at 2i + 1.
+    private double[] mPositions = new double[2 * INITIAL_CAPACITY];
+    // Direction each aircraft is facing, in radians.
+    private double[] mDirections = new double[INITIAL_CAPACITY];
+    private int mConflictCount;
+    // IDs of the aircraft of each conflict, interleaved like the coordinates.
+    private int[] mConflictIds = new int[2 * INITIAL_CAPACITY];
+    // Simulation time each conflict would become a crash, in milliseconds.
+    private long[] mConflictTimes = new long[INITIAL_CAPACITY];
+
+    public int size() {
+        return mCount;
+    }
+
+    public int getId(int index) {
+        return mIds[index];
+    }
+
+    public double getX(int index) {
+        return mPositions[2 * index];
+    }
+
+    public double getY(int index) {
+        return mPositions[2 * index + 1];
+    }
+
+    public double getDirection(int index) {
+        return mDirections[index];
+    }
+
+    public int getConflictCount() {
+        return mConflictCount;
+    }
+
+    public int getConflictFirstId(int conflict) {
+        return mConflictIds[2 * conflict];
+    }
+
+    public int getConflictSecondId(int conflict) {
+        return mConflictIds[2 * conflict + 1];
+    }
+
+    public long getConflictTime(int conflict) {
+        return mConflictTimes[conflict];
+    }
+
+    public long getTime() {
+        return mTime;
+    }
+
+    public double getTimeScale() {
+        return mTimeScale;
+    }
+
+    public long getVersion() {
+        return mVersion;
+    }
+
+    /**
+     * Starts filling the snapshot with the given number of aircraft. The arrays only grow, so once
+     * the traffic is stable filling a snapshot doesn't allocate. The conflicts are emptied.
+     */
+    void reset(long time, double timeScale, int count) {
+        if (count > mIds.length) {
+            int capacity = Math.max(count, 2 * mIds.length);
+            mIds = new int[capacity];
+            mPositions = new double[2 * capacity];
+            mDirections = new double[capacity];
+        }
+        mTime = time;
+        mTimeScale = timeScale;
+        mCount = count;
+        mConflictCount = 0;
+    }
+
+    void set(int index, int id, double x, double y, double direction) {
+        mIds[index] = id;
+        mPositions[2 * index] = x;
+        mPositions[2 * index + 1] = y;
+        mDirections[index] = direction;
+    }
+
+    void addConflict(int firstId, int secondId, long time) {
+        if (mConflictCount == mConflictTimes.length) {
+            int capacity = 2 * mConflictTimes.length;
+            int[] ids = new int[2 * capacity];
+            System.arraycopy(mConflictIds, 0, ids, 0, 2 * mConflictCount);
+            mConflictIds = ids;
+            long[] times = new long[capacity];
+            System.arraycopy(mConflictTimes, 0, times, 0, mConflictCount);
+            mConflictTimes = times;
+        }
+        mConflictIds[2 * mConflictCount] = firstId;
+        mConflictIds[2 * mConflictCount + 1] = secondId;
+        mConflictTimes[mConflictCount] = time;
+        mConflictCount++;
+    }
+}
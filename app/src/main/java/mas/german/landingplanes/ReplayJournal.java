@@ -0,0 +1,286 @@
+package mas.german.landingplanes;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import mas.german.landingplanes.aircrafts.Aircraft;
+import mas.german.landingplanes.aircrafts.LargePlane;
+import mas.german.landingplanes.aircrafts.LightPlane;
+import mas.german.landingplanes.landingsites.LandingSite;
+import mas.german.landingplanes.landingsites.LongRunway;
+import mas.german.landingplanes.landingsites.ShortRunway;
+
+/**
+ * Append-only binary journal of the games, from which a ReplaySimulator rebuilds them exactly.
+ * It records the input of a game and not it's state: the seed, the landing sites, every aircraft
+ * generated and every command given to the aircraft, each one with the number of steps simulated
+ * before it. The rest follows from the simulation, which is deterministic.
+ *
+ * Records are written into a buffer on the update thread, which only costs a few puts. Full
+ * buffers are written to the channel on a thread of the journal, and reused afterwards.
+ *
+ * The journal is a header followed by the records. Each record is a tag byte followed by fixed
+ * fields, big-endian. A journal can hold several games, each one starting with GAME_START.
+ *
+ * This class is not thread-safe. The Game calls it while holding it's store.
+ */
+public class ReplayJournal {
+    private static final String TAG = ReplayJournal.class.getSimpleName();
+
+    static final int MAGIC = 0x4c504a52;
+    static final short VERSION = 1;
+
+    // Tags of the records.
+    static final byte GAME_START = 1;
+    static final byte SITE = 2;
+    static final byte SPAWN = 3;
+    static final byte SELECT = 4;
+    static final byte ORIENTATE = 5;
+    static final byte GAME_OVER = 6;
+    static final byte STOP = 7;
+
+    // Types of aircraft and sites.
+    static final byte LARGE_PLANE = 0;
+    static final byte LIGHT_PLANE = 1;
+    static final byte HELICOPTER = 2;
+    static final byte LONG_RUNWAY = 0;
+    static final byte SHORT_RUNWAY = 1;
+    static final byte HELIPAD = 2;
+
+    private static final int BUFFER_BYTES = 16 * 1024;
+    // Largest record, so a record never has to be split between buffers.
+    private static final int MAX_RECORD_BYTES = 64;
+    // A buffer is written once it holds this much, or once it's this many steps old.
+    private static final int FLUSH_BYTES = 4 * 1024;
+    private static final long FLUSH_STEPS = 32;
+
+    private final WritableByteChannel mChannel;
+    private final ExecutorService mWriter;
+    private final ConcurrentLinkedQueue<ByteBuffer> mFreeBuffers = new ConcurrentLinkedQueue<>();
+    private ByteBuffer mBuffer = ByteBuffer.allocate(BUFFER_BYTES);
+    // Step of the first record in the buffer.
+    private long mBufferStep;
+    // First error of the writer thread. Nothing else is written after it.
+    private volatile IOException mError;
+    private boolean mClosed = false;
+
+    /**
+     * Creates a journal that writes to the given channel. The channel is closed by close().
+     */
+    public ReplayJournal(WritableByteChannel channel) {
+        mChannel = channel;
+        mWriter = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, TAG);
+                // The journal must not keep the process alive on it's own.
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        mBuffer.putInt(MAGIC);
+        mBuffer.putShort(VERSION);
+    }
+
+    /**
+     * Creates a journal that writes to the given file, replacing it's content.
+     */
+    public static ReplayJournal open(File file) throws IOException {
+        return new ReplayJournal(new FileOutputStream(file).getChannel());
+    }
+
+    /**
+     * Maps a journal file into memory, to be read by a ReplaySimulator.
+     */
+    public static ByteBuffer read(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Makes room for a record, writing the buffer if it's full.
+     */
+    private ByteBuffer reserve(long step) {
+        if (mBuffer.remaining() < MAX_RECORD_BYTES) {
+            flush();
+        }
+        if (mBuffer.position() == 0) {
+            mBufferStep = step;
+        }
+        return mBuffer;
+    }
+
+    void recordGameStart(long seed, long stepMs, Aerodrome aerodrome) {
+        ByteBuffer buffer = reserve(0);
+        buffer.put(GAME_START);
+        buffer.putLong(seed);
+        buffer.putInt((int) stepMs);
+        buffer.putDouble(aerodrome.getBoundaryLeft());
+        buffer.putDouble(aerodrome.getBoundaryTop());
+        buffer.putDouble(aerodrome.getBoundaryRight());
+        buffer.putDouble(aerodrome.getBoundaryBottom());
+    }
+
+    void recordSite(long step, LandingSite site) {
+        ByteBuffer buffer = reserve(step);
+        buffer.put(SITE);
+        buffer.putInt((int) step);
+        if (site instanceof LongRunway) {
+            buffer.put(LONG_RUNWAY);
+        } else if (site instanceof ShortRunway) {
+            buffer.put(SHORT_RUNWAY);
+        } else {
+            buffer.put(HELIPAD);
+        }
+        buffer.putDouble(site.getPosition().getX());
+        buffer.putDouble(site.getPosition().getY());
+        buffer.putDouble(site.getCenterAngle());
+        buffer.putDouble(site.getApertureAngle());
+    }
+
+    /**
+     * Records a generated aircraft. Must be called before it moves, as the position is recorded.
+     */
+    void recordSpawn(long step, Aircraft aircraft) {
+        ByteBuffer buffer = reserve(step);
+        buffer.put(SPAWN);
+        buffer.putInt((int) step);
+        if (aircraft instanceof LargePlane) {
+            buffer.put(LARGE_PLANE);
+        } else if (aircraft instanceof LightPlane) {
+            buffer.put(LIGHT_PLANE);
+        } else {
+            buffer.put(HELICOPTER);
+        }
+        buffer.putDouble(aircraft.getSpeed());
+        buffer.putDouble(aircraft.getDirection());
+        buffer.putDouble(aircraft.getPosition().getX());
+        buffer.putDouble(aircraft.getPosition().getY());
+    }
+
+    /**
+     * Records a command given at a position: SELECT or ORIENTATE.
+     */
+    void recordCommand(long step, byte command, Position position) {
+        ByteBuffer buffer = reserve(step);
+        buffer.put(command);
+        buffer.putInt((int) step);
+        buffer.putDouble(position.getX());
+        buffer.putDouble(position.getY());
+    }
+
+    /**
+     * Records the end of a game, GAME_OVER or STOP, and writes the buffer.
+     */
+    void recordEnd(long step, byte reason) {
+        ByteBuffer buffer = reserve(step);
+        buffer.put(reason);
+        buffer.putInt((int) step);
+        flush();
+    }
+
+    /**
+     * Called after every update. Writes the buffer once it's large or old enough, so a process
+     * killed in the middle of a game loses little of it.
+     */
+    void endUpdate(long step) {
+        if ((mBuffer.position() >= FLUSH_BYTES) ||
+            ((mBuffer.position() > 0) && (step - mBufferStep >= FLUSH_STEPS))) {
+            flush();
+        }
+    }
+
+    /**
+     * Hands the buffer to the writer thread, and takes a free one to continue recording.
+     */
+    public void flush() {
+        if ((mBuffer.position() == 0) || mClosed) {
+            return;
+        }
+        final ByteBuffer full = mBuffer;
+        full.flip();
+        mBuffer = mFreeBuffers.poll();
+        if (mBuffer == null) {
+            mBuffer = ByteBuffer.allocate(BUFFER_BYTES);
+        }
+        try {
+            mWriter.execute(new Runnable() {
+                @Override
+                public void run() {
+                    write(full);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The journal was closed. The records are dropped.
+        }
+    }
+
+    /**
+     * Runs on the writer thread.
+     */
+    private void write(ByteBuffer buffer) {
+        if (mError == null) {
+            try {
+                while (buffer.hasRemaining()) {
+                    mChannel.write(buffer);
+                }
+            } catch (IOException e) {
+                mError = e;
+            }
+        }
+        buffer.clear();
+        mFreeBuffers.offer(buffer);
+    }
+
+    /**
+     * Returns the first error writing the journal, or null.
+     */
+    public IOException getError() {
+        return mError;
+    }
+
+    /**
+     * Writes the pending records and closes the channel. It waits for the writer thread, so it
+     * must not be called while holding the game.
+     */
+    public void close() throws IOException {
+        flush();
+        mClosed = true;
+        mWriter.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    mChannel.close();
+                } catch (IOException e) {
+                    if (mError == null) {
+                        mError = e;
+                    }
+                }
+            }
+        });
+        mWriter.shutdown();
+        try {
+            mWriter.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (mError != null) {
+            throw mError;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package mas.german.landingplanes;
+
+import java.nio.ByteBuffer;
+import mas.german.landingplanes.aircrafts.Aircraft;
+import mas.german.landingplanes.aircrafts.Helicopter;
+import mas.german.landingplanes.aircrafts.LargePlane;
+import mas.german.landingplanes.aircrafts.LightPlane;
+import mas.german.landingplanes.landingsites.Helipad;
+import mas.german.landingplanes.landingsites.LandingSite;
+import mas.german.landingplanes.landingsites.LongRunway;
+import mas.german.landingplanes.landingsites.ShortRunway;
+
+/**
+ * Rebuilds the games of a ReplayJournal. Each game is simulated headless, step after step and
+ * without waiting for the clock, so it runs far faster than real time. The recorded aircraft and
+ * commands are given to the game after the same number of steps as in the original run, so the
+ * replay goes through exactly the same states: the same landings, exits and crash, at the same
+ * steps.
+ *
+ * A journal cut short, as when the process is killed, is replayed up to it's last full record.
+ */
+public class ReplaySimulator {
+    private static final String TAG = ReplaySimulator.class.getSimpleName();
+    // Size of the fields after the tag, for each tag.
+    private static final int GAME_START_BYTES = 8 + 4 + 4 * 8;
+    private static final int SITE_BYTES = 4 + 1 + 4 * 8;
+    private static final int SPAWN_BYTES = 4 + 1 + 4 * 8;
+    private static final int COMMAND_BYTES = 4 + 2 * 8;
+    private static final int END_BYTES = 4;
+
+    private final ByteBuffer mJournal;
+    private Game.EventsListener mListener;
+    private Game mGame;
+
+    /**
+     * Outcome of a replayed game.
+     */
+    public static class Result {
+        private final long mSteps;
+        private final int mScore;
+        private final boolean mGameOver;
+        private final boolean mMatchesJournal;
+
+        Result(long steps, int score, boolean gameOver, boolean matchesJournal) {
+            mSteps = steps;
+            mScore = score;
+            mGameOver = gameOver;
+            mMatchesJournal = matchesJournal;
+        }
+
+        /**
+         * Returns the steps simulated.
+         */
+        public long getSteps() {
+            return mSteps;
+        }
+
+        public int getScore() {
+            return mScore;
+        }
+
+        /**
+         * Returns whether the replay ended in a crash.
+         */
+        public boolean isGameOver() {
+            return mGameOver;
+        }
+
+        /**
+         * Returns whether the replay ended as recorded: the crash at the same step, and none
+         * before the last record.
+         */
+        public boolean matchesJournal() {
+            return mMatchesJournal;
+        }
+    }
+
+    /**
+     * @param journal   Content of the journal, as written by a ReplayJournal. It's not modified.
+     */
+    public ReplaySimulator(ByteBuffer journal) {
+        mJournal = journal.duplicate();
+        if ((mJournal.remaining() < 6) || (mJournal.getInt() != ReplayJournal.MAGIC)) {
+            throw new IllegalArgumentException("Not a replay journal.");
+        }
+        if (mJournal.getShort() != ReplayJournal.VERSION) {
+            throw new IllegalArgumentException("Unsupported version of the replay journal.");
+        }
+    }
+
+    /**
+     * Sets the listener of the replayed games. Only the events of the simulation are given; the
+     * position changes are not, as the steps are not grouped in updates.
+     */
+    public void setListener(Game.EventsListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Returns the game being replayed, or the last one replayed.
+     */
+    public Game getGame() {
+        return mGame;
+    }
+
+    /**
+     * Returns whether the journal has another game to replay.
+     */
+    public boolean hasNextGame() {
+        return (mJournal.remaining() >= 1 + GAME_START_BYTES) &&
+            (mJournal.get(mJournal.position()) == ReplayJournal.GAME_START);
+    }
+
+    /**
+     * Replays the next game of the journal.
+     */
+    public Result replayNextGame() {
+        if (!hasNextGame()) {
+            throw new IllegalStateException("There are no more games in the journal.");
+        }
+        mJournal.get();
+        long seed = mJournal.getLong();
+        int stepMs = mJournal.getInt();
+        if (stepMs != Game.STEP_MS) {
+            throw new IllegalArgumentException("The game was recorded with steps of " + stepMs +
+                " ms.");
+        }
+        Aerodrome aerodrome = new Aerodrome(mJournal.getDouble(), mJournal.getDouble(),
+            mJournal.getDouble(), mJournal.getDouble());
+        // The game is stepped directly, so it's periodic tasks never run and need no executor.
+        Game game = new Game(null, SimulationClock.SYSTEM_TIME, seed, aerodrome);
+        game.setListener(mListener);
+        mGame = game;
+
+        boolean gameOver = false;
+        boolean matches = true;
+        while (mJournal.hasRemaining()) {
+            byte tag = mJournal.get(mJournal.position());
+            if (tag == ReplayJournal.GAME_START) {
+                break;
+            }
+            if (mJournal.remaining() < 1 + sizeOf(tag)) {
+                // Cut short. The rest of the journal is dropped.
+                mJournal.position(mJournal.limit());
+                break;
+            }
+            mJournal.get();
+            long step = mJournal.getInt();
+            if (gameOver) {
+                // The replay crashed before the recorded game did. Skip the rest of it.
+                mJournal.position(mJournal.position() + sizeOf(tag) - 4);
+                matches = false;
+                continue;
+            }
+            while (game.getStepCount() < step) {
+                if (!game.update(stepMs)) {
+                    gameOver = true;
+                    break;
+                }
+            }
+            if (gameOver) {
+                matches = (tag == ReplayJournal.GAME_OVER) && (game.getStepCount() == step);
+                mJournal.position(mJournal.position() + sizeOf(tag) - 4);
+                continue;
+            }
+            switch (tag) {
+                case ReplayJournal.SITE:
+                    game.addLandingSite(readSite());
+                    break;
+                case ReplayJournal.SPAWN:
+                    game.onAircraftGenerated(readAircraft());
+                    break;
+                case ReplayJournal.SELECT:
+                    game.selectAircraftAtPosition(readPosition());
+                    break;
+                case ReplayJournal.ORIENTATE:
+                    game.orientateSelectedAircraft(readPosition());
+                    break;
+                case ReplayJournal.GAME_OVER:
+                    // The recorded game crashed here, but the replay didn't.
+                    matches = false;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return new Result(game.getStepCount(), game.getScore(), gameOver, matches);
+    }
+
+    private int sizeOf(byte tag) {
+        switch (tag) {
+            case ReplayJournal.GAME_START:
+                return GAME_START_BYTES;
+            case ReplayJournal.SITE:
+                return SITE_BYTES;
+            case ReplayJournal.SPAWN:
+                return SPAWN_BYTES;
+            case ReplayJournal.SELECT:
+            case ReplayJournal.ORIENTATE:
+                return COMMAND_BYTES;
+            case ReplayJournal.GAME_OVER:
+            case ReplayJournal.STOP:
+                return END_BYTES;
+            default:
+                throw new IllegalArgumentException("Unknown record " + tag + " in the journal.");
+        }
+    }
+
+    private Position readPosition() {
+        return new Position(mJournal.getDouble(), mJournal.getDouble());
+    }
+
+    private LandingSite readSite() {
+        byte type = mJournal.get();
+        Position position = readPosition();
+        double centerAngle = mJournal.getDouble();
+        double apertureAngle = mJournal.getDouble();
+        switch (type) {
+            case ReplayJournal.LONG_RUNWAY:
+                return new LongRunway(position, centerAngle, apertureAngle);
+            case ReplayJournal.SHORT_RUNWAY:
+                return new ShortRunway(position, centerAngle, apertureAngle);
+            default:
+                return new Helipad(position);
+        }
+    }
+
+    private Aircraft readAircraft() {
+        byte type = mJournal.get();
+        double speed = mJournal.getDouble();
+        double direction = mJournal.getDouble();
+        Position position = readPosition();
+        switch (type) {
+            case ReplayJournal.LARGE_PLANE:
+                return new LargePlane(speed, direction, position);
+            case ReplayJournal.LIGHT_PLANE:
+                return new LightPlane(speed, direction, position);
+            default:
+                return new Helicopter(speed, direction, position);
+        }
+    }
+}
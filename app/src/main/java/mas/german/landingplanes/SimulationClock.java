@@ -0,0 +1,113 @@
+package mas.german.landingplanes;
+
+/**
+ * Clock that advances the simulation in fixed steps. The time passed between calls to advance() is
+ * added to an accumulator, and the accumulator is consumed in steps of a fixed length. Running the
+ * simulation with always the same step makes the results independent of the scheduling jitter.
+ *
+ * The time can be scaled, so a real-time run and a faster than real-time run go through the same
+ * code. The number of steps per call is bounded: if the host stalls, the simulation slows down
+ * instead of trying to catch up with a burst of work.
+ */
+public class SimulationClock {
+    private static final String TAG = SimulationClock.class.getSimpleName();
+
+    /**
+     * Source of the current time. Injected so runs can be driven by a controlled clock.
+     */
+    public interface TimeSource {
+        /**
+         * Returns the current time in milliseconds. Only differences between calls are used.
+         */
+        long currentTimeMillis();
+    }
+
+    /**
+     * Time Source backed by the system clock.
+     */
+    public static final TimeSource SYSTEM_TIME = new TimeSource() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    private final TimeSource mTimeSource;
+    // Length of each step, in milliseconds.
+    private final long mStepMs;
+    // Maximum number of steps returned by a single call to advance().
+    private final int mMaxSteps;
+
+    // Simulated milliseconds per real millisecond.
+    private double mTimeScale = 1;
+    private long mPreviousTime;
+    // Simulated time not consumed by a step yet, in milliseconds.
+    private double mAccumulator;
+    // Steps done since the clock was started.
+    private long mStepCount;
+
+    public SimulationClock(TimeSource timeSource, long stepMs, int maxSteps) {
+        mTimeSource = timeSource;
+        mStepMs = stepMs;
+        mMaxSteps = maxSteps;
+    }
+
+    /**
+     * Starts counting from the current time. Must be called before the first advance(), otherwise
+     * the first call would see all the time since the source's origin.
+     */
+    public void start() {
+        mPreviousTime = mTimeSource.currentTimeMillis();
+        mAccumulator = 0;
+        mStepCount = 0;
+    }
+
+    /**
+     * Adds the time passed since the previous call to the accumulator and returns how many steps
+     * the simulation must advance. The time that doesn't fill a step is kept for the next call.
+     * Time beyond the maximum number of steps is dropped.
+     */
+    public int advance() {
+        long time = mTimeSource.currentTimeMillis();
+        // A clock going backwards is ignored.
+        mAccumulator += Math.max(0, time - mPreviousTime) * mTimeScale;
+        mPreviousTime = time;
+
+        long steps = (long) (mAccumulator / mStepMs);
+        if (steps > mMaxSteps) {
+            steps = mMaxSteps;
+            // Drop the time that couldn't be simulated, keeping only the fraction of a step.
+            mAccumulator = mAccumulator % mStepMs;
+        } else {
+            mAccumulator -= steps * mStepMs;
+        }
+        mStepCount += steps;
+        return (int) steps;
+    }
+
+    /**
+     * Sets how many simulated milliseconds pass per real millisecond. 1 is real time.
+     */
+    public void setTimeScale(double timeScale) {
+        mTimeScale = timeScale;
+    }
+
+    public double getTimeScale() {
+        return mTimeScale;
+    }
+
+    public long getStepMs() {
+        return mStepMs;
+    }
+
+    public long getStepCount() {
+        return mStepCount;
+    }
+
+    /**
+     * Returns the simulated time since the clock was started, in milliseconds.
+     */
+    public long getSimulationTime() {
+        return mStepCount * mStepMs;
+    }
+}
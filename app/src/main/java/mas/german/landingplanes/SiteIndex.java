@@ -0,0 +1,208 @@
+package mas.german.landingplanes;
+
+import java.util.ArrayList;
+import java.util.List;
+import mas.german.landingplanes.aircrafts.Aircraft;
+import mas.german.landingplanes.landingsites.LandingSite;
+
+/**
+ * Landing sites of the game, indexed so an aircraft only checks the sites it could land on. The
+ * sites are split by the aircraft types that can use them, and then placed in a uniform grid of
+ * the Aerodrome: each cell lists the compatible sites whose capture range reaches it. An aircraft
+ * only needs to check the sites in it's own cell.
+ *
+ * The capture range of a site is the radius of the aircraft plus the distance it flies in a step,
+ * as a fast aircraft can reach a site in the middle of the step. The index is built for the largest
+ * range and grows if a larger one is given.
+ *
+ * Which types a site accepts is found with the usual double dispatch, the first time an aircraft
+ * of each type is looked up. Lookups don't lock and can run concurrently; adding sites and
+ * growing the range must be synchronized by the caller, like the rest of the Game.
+ */
+public class SiteIndex {
+    private static final String TAG = SiteIndex.class.getSimpleName();
+
+    /**
+     * Grid of the sites compatible with a type of aircraft.
+     */
+    private static class Table {
+        private final Class<?> mType;
+        // Sites of each cell, in the order they were added. The sites of the cell c are between
+        // mCellStart[c] (inclusive) and mCellStart[c + 1] (exclusive).
+        private final int[] mCellStart;
+        private final int[] mCellSites;
+
+        Table(Class<?> type, int[] cellStart, int[] cellSites) {
+            mType = type;
+            mCellStart = cellStart;
+            mCellSites = cellSites;
+        }
+    }
+
+    // Boundaries of the grid, taken from the Aerodrome.
+    private final double mLeft;
+    private final double mBottom;
+    private final double mWidth;
+    private final double mHeight;
+
+    private final List<LandingSite> mSites = new ArrayList<>();
+
+    // Size of the cells, derived from the largest capture range.
+    private int mMaxRange;
+    private double mCellSize;
+    private int mColumns;
+    private int mRows;
+
+    // One table per type of aircraft seen. Replaced instead of modified, so lookups can read it
+    // without locking.
+    private volatile Table[] mTables = new Table[0];
+
+    SiteIndex(Aerodrome aerodrome, int maxRange) {
+        mLeft = aerodrome.getBoundaryLeft();
+        mBottom = aerodrome.getBoundaryBottom();
+        mWidth = aerodrome.getWidth();
+        mHeight = aerodrome.getHeight();
+        resize(maxRange);
+    }
+
+    private void resize(int maxRange) {
+        mMaxRange = Math.max(1, maxRange);
+        mCellSize = 2 * mMaxRange;
+        mColumns = Math.max(1, (int) Math.ceil(mWidth / mCellSize));
+        mRows = Math.max(1, (int) Math.ceil(mHeight / mCellSize));
+        mTables = new Table[0];
+    }
+
+    private int columnOf(double x) {
+        int column = (int) Math.floor((x - mLeft) / mCellSize);
+        return Math.min(Math.max(column, 0), mColumns - 1);
+    }
+
+    private int rowOf(double y) {
+        int row = (int) Math.floor((y - mBottom) / mCellSize);
+        return Math.min(Math.max(row, 0), mRows - 1);
+    }
+
+    /**
+     * Makes sure the capture range covers aircraft of the given reach. Must be called for every
+     * aircraft before it's looked up.
+     */
+    public void fitRange(int reach) {
+        if (reach > mMaxRange) {
+            resize(reach);
+        }
+    }
+
+    public void add(LandingSite site) {
+        mSites.add(site);
+        // The tables are built again on the next lookups.
+        mTables = new Table[0];
+    }
+
+    public void clear() {
+        mSites.clear();
+        mTables = new Table[0];
+    }
+
+    public int size() {
+        return mSites.size();
+    }
+
+    public LandingSite get(int index) {
+        return mSites.get(index);
+    }
+
+    /**
+     * Returns the index of the first site, in the order they were added, where the aircraft
+     * lands. The same as checking Aircraft.landedDuring() against every site.
+     *
+     * @param aircraft      Aircraft to check.
+     * @param x             X-coordinate of the aircraft.
+     * @param y             Y-coordinate of the aircraft.
+     * @param sampleTime    Length of the step the aircraft just moved, in milliseconds.
+     * @return  Index of the site, or -1 if the aircraft doesn't land.
+     */
+    public int findLanding(Aircraft aircraft, double x, double y, long sampleTime) {
+        Table table = getTable(aircraft);
+        int cell = rowOf(y) * mColumns + columnOf(x);
+        for (int k = table.mCellStart[cell]; k < table.mCellStart[cell + 1]; k++) {
+            int site = table.mCellSites[k];
+            if (aircraft.landedDuring(mSites.get(site), sampleTime)) {
+                return site;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the table of the aircraft's type, building it the first time.
+     */
+    private Table getTable(Aircraft aircraft) {
+        Table[] tables = mTables;
+        for (Table table : tables) {
+            if (table.mType == aircraft.getClass()) {
+                return table;
+            }
+        }
+        synchronized (this) {
+            // Another thread may have built it meanwhile.
+            for (Table table : mTables) {
+                if (table.mType == aircraft.getClass()) {
+                    return table;
+                }
+            }
+            Table table = buildTable(aircraft);
+            Table[] grown = new Table[mTables.length + 1];
+            System.arraycopy(mTables, 0, grown, 0, mTables.length);
+            grown[mTables.length] = table;
+            mTables = grown;
+            return table;
+        }
+    }
+
+    /**
+     * Places the sites the aircraft can land on in every cell within their capture range, with a
+     * counting sort over the cells.
+     */
+    private Table buildTable(Aircraft aircraft) {
+        int cells = mColumns * mRows;
+        int[] cellStart = new int[cells + 1];
+        boolean[] compatible = new boolean[mSites.size()];
+        // Count the sites of each cell.
+        for (int s = 0; s < mSites.size(); s++) {
+            compatible[s] = aircraft.canLandOn(mSites.get(s));
+            if (!compatible[s]) {
+                continue;
+            }
+            Position position = mSites.get(s).getPosition();
+            for (int r = rowOf(position.getY() - mMaxRange);
+                 r <= rowOf(position.getY() + mMaxRange); r++) {
+                for (int c = columnOf(position.getX() - mMaxRange);
+                     c <= columnOf(position.getX() + mMaxRange); c++) {
+                    cellStart[r * mColumns + c + 1]++;
+                }
+            }
+        }
+        // Turn the counts into the start of each cell.
+        for (int c = 0; c < cells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        // Fill the cells, keeping the order of the sites.
+        int[] cellSites = new int[cellStart[cells]];
+        int[] next = cellStart.clone();
+        for (int s = 0; s < mSites.size(); s++) {
+            if (!compatible[s]) {
+                continue;
+            }
+            Position position = mSites.get(s).getPosition();
+            for (int r = rowOf(position.getY() - mMaxRange);
+                 r <= rowOf(position.getY() + mMaxRange); r++) {
+                for (int c = columnOf(position.getX() - mMaxRange);
+                     c <= columnOf(position.getX() + mMaxRange); c++) {
+                    cellSites[next[r * mColumns + c]++] = s;
+                }
+            }
+        }
+        return new Table(aircraft.getClass(), cellStart, cellSites);
+    }
+}
@@ -0,0 +1,36 @@
+package mas.german.landingplanes;
+
+/**
+ * Continuous tests over the movement of a step. Checking only the positions at the end of a step
+ * lets a fast aircraft fly through another one, or over a site, when the step is long. Aircraft
+ * fly in straight lines during a step, so the closest approach within the step can be solved
+ * exactly instead.
+ */
+public final class Sweep {
+    private static final String TAG = Sweep.class.getSimpleName();
+
+    private Sweep() {
+    }
+
+    /**
+     * Returns the minimum of |d + w * t| for t in [0, time]: the closest two points get while one
+     * moves relative to the other.
+     *
+     * @param dx    X-component of the distance at the start.
+     * @param dy    Y-component of the distance at the start.
+     * @param wx    X-component of the relative speed, in Aerodrome Units per millisecond.
+     * @param wy    Y-component of the relative speed, in Aerodrome Units per millisecond.
+     * @param time  Length of the movement, in milliseconds.
+     */
+    public static double closestApproach(double dx, double dy, double wx, double wy, long time) {
+        double speed = wx * wx + wy * wy;
+        double t = 0;
+        if (speed > 0) {
+            // Time of the closest approach along the whole line, clamped to the movement.
+            t = Math.min(Math.max(-(dx * wx + dy * wy) / speed, 0), time);
+        }
+        double u = dx + wx * t;
+        double v = dy + wy * t;
+        return Math.sqrt(u * u + v * v);
+    }
+}
@@ -0,0 +1,209 @@
+package mas.german.landingplanes;
+
+import java.util.Arrays;
+import mas.german.landingplanes.aircrafts.Aircraft;
+import mas.german.landingplanes.aircrafts.LargePlane;
+import mas.german.landingplanes.aircrafts.LightPlane;
+
+/**
+ * Everything that happened in the game during an update: the aircraft that landed, left the
+ * aerodrome or were generated, and the change of the score. It's given to a Game.BatchListener
+ * once per update, instead of a call per event. The generated aircraft are copied as they were
+ * when generated, so the result doesn't refer to the game. It's immutable, so it can be handed to
+ * another thread.
+ */
+public class TickResult {
+    private static final String TAG = TickResult.class.getSimpleName();
+    private static final int[] NONE = new int[0];
+    private static final double[] NO_VALUES = new double[0];
+
+    // Types of the generated aircraft.
+    public static final int LARGE_PLANE = 0;
+    public static final int LIGHT_PLANE = 1;
+    public static final int HELICOPTER = 2;
+
+    // Simulation time at the end of the update, in milliseconds.
+    private final long mTime;
+    private final int[] mLanded;
+    private final int[] mExited;
+    // State of each generated aircraft when it was generated.
+    private final int[] mGeneratedIds;
+    private final int[] mGeneratedTypes;
+    private final double[] mGeneratedX;
+    private final double[] mGeneratedY;
+    private final double[] mGeneratedDirections;
+    private final int mScore;
+    private final int mScoreDelta;
+
+    private TickResult(Builder builder, long time, int score) {
+        mTime = time;
+        mLanded = (builder.mLandedCount == 0) ? NONE
+            : Arrays.copyOf(builder.mLanded, builder.mLandedCount);
+        mExited = (builder.mExitedCount == 0) ? NONE
+            : Arrays.copyOf(builder.mExited, builder.mExitedCount);
+        int generated = builder.mGeneratedCount;
+        mGeneratedIds = (generated == 0) ? NONE : Arrays.copyOf(builder.mGeneratedIds, generated);
+        mGeneratedTypes = (generated == 0) ? NONE
+            : Arrays.copyOf(builder.mGeneratedTypes, generated);
+        mGeneratedX = (generated == 0) ? NO_VALUES : Arrays.copyOf(builder.mGeneratedX, generated);
+        mGeneratedY = (generated == 0) ? NO_VALUES : Arrays.copyOf(builder.mGeneratedY, generated);
+        mGeneratedDirections = (generated == 0) ? NO_VALUES
+            : Arrays.copyOf(builder.mGeneratedDirections, generated);
+        mScore = score;
+        // Each landing scores a point.
+        mScoreDelta = builder.mLandedCount;
+    }
+
+    public long getTime() {
+        return mTime;
+    }
+
+    public int getLandedCount() {
+        return mLanded.length;
+    }
+
+    /**
+     * Returns the ID of a landed aircraft. Landings are in the order they happened.
+     */
+    public int getLanded(int index) {
+        return mLanded[index];
+    }
+
+    public int getExitedCount() {
+        return mExited.length;
+    }
+
+    /**
+     * Returns the ID of an aircraft that left the aerodrome. Exits are in the order they happened.
+     */
+    public int getExited(int index) {
+        return mExited[index];
+    }
+
+    public int getGeneratedCount() {
+        return mGeneratedIds.length;
+    }
+
+    /**
+     * Returns the ID of an aircraft generated since the previous update. Aircraft are in the order
+     * they were generated.
+     */
+    public int getGeneratedId(int index) {
+        return mGeneratedIds[index];
+    }
+
+    /**
+     * Returns the type of a generated aircraft: LARGE_PLANE, LIGHT_PLANE or HELICOPTER.
+     */
+    public int getGeneratedType(int index) {
+        return mGeneratedTypes[index];
+    }
+
+    /**
+     * Returns the x-coordinate where an aircraft was generated.
+     */
+    public double getGeneratedX(int index) {
+        return mGeneratedX[index];
+    }
+
+    /**
+     * Returns the y-coordinate where an aircraft was generated.
+     */
+    public double getGeneratedY(int index) {
+        return mGeneratedY[index];
+    }
+
+    /**
+     * Returns the direction of a generated aircraft when it was generated, in radians.
+     */
+    public double getGeneratedDirection(int index) {
+        return mGeneratedDirections[index];
+    }
+
+    /**
+     * Returns the score after the update.
+     */
+    public int getScore() {
+        return mScore;
+    }
+
+    public int getScoreDelta() {
+        return mScoreDelta;
+    }
+
+    /**
+     * Collects the events of an update. It's kept by the Game and reused for every update.
+     */
+    static class Builder {
+        private int[] mLanded = new int[8];
+        private int mLandedCount = 0;
+        private int[] mExited = new int[8];
+        private int mExitedCount = 0;
+        private int[] mGeneratedIds = new int[8];
+        private int[] mGeneratedTypes = new int[8];
+        private double[] mGeneratedX = new double[8];
+        private double[] mGeneratedY = new double[8];
+        private double[] mGeneratedDirections = new double[8];
+        private int mGeneratedCount = 0;
+
+        void addLanded(int id) {
+            if (mLandedCount == mLanded.length) {
+                mLanded = Arrays.copyOf(mLanded, 2 * mLanded.length);
+            }
+            mLanded[mLandedCount++] = id;
+        }
+
+        void addExited(int id) {
+            if (mExitedCount == mExited.length) {
+                mExited = Arrays.copyOf(mExited, 2 * mExited.length);
+            }
+            mExited[mExitedCount++] = id;
+        }
+
+        /**
+         * Copies the state of a generated aircraft, so the result doesn't change as it moves.
+         */
+        void addGenerated(Aircraft aircraft) {
+            if (mGeneratedCount == mGeneratedIds.length) {
+                int capacity = 2 * mGeneratedIds.length;
+                mGeneratedIds = Arrays.copyOf(mGeneratedIds, capacity);
+                mGeneratedTypes = Arrays.copyOf(mGeneratedTypes, capacity);
+                mGeneratedX = Arrays.copyOf(mGeneratedX, capacity);
+                mGeneratedY = Arrays.copyOf(mGeneratedY, capacity);
+                mGeneratedDirections = Arrays.copyOf(mGeneratedDirections, capacity);
+            }
+            int index = mGeneratedCount++;
+            mGeneratedIds[index] = aircraft.getId();
+            if (aircraft instanceof LargePlane) {
+                mGeneratedTypes[index] = LARGE_PLANE;
+            } else if (aircraft instanceof LightPlane) {
+                mGeneratedTypes[index] = LIGHT_PLANE;
+            } else {
+                mGeneratedTypes[index] = HELICOPTER;
+            }
+            mGeneratedX[index] = aircraft.getPosition().getX();
+            mGeneratedY[index] = aircraft.getPosition().getY();
+            mGeneratedDirections[index] = aircraft.getDirection();
+        }
+
+        /**
+         * Creates the result with the events collected so far, and starts collecting again.
+         */
+        TickResult build(long time, int score) {
+            TickResult result = new TickResult(this, time, score);
+            mLandedCount = 0;
+            mExitedCount = 0;
+            mGeneratedCount = 0;
+            return result;
+        }
+
+        /**
+         * Drops the events collected so far.
+         */
+        void clear() {
+            mLandedCount = 0;
+            mExitedCount = 0;
+            mGeneratedCount = 0;
+        }
+    }
+}
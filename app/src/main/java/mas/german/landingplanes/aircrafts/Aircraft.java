@@ -1,17 +1,22 @@
 package mas.german.landingplanes.aircrafts;
 
+import java.util.concurrent.atomic.AtomicInteger;
 import mas.german.landingplanes.Game;
 import mas.german.landingplanes.landingsites.LandingSite;
 import mas.german.landingplanes.Position;
+import mas.german.landingplanes.Sweep;
 
 /**
  * Represents an Aircraft. Specific aircraft types should extend from this class.
  * An Aircraft has speed, direction and size. An Aircraft can land on Landing Sites.
+ * While the Aircraft is in an AircraftStore, it's position, speed and direction are read from and
+ * written to the store.
  */
 public abstract class Aircraft {
     private static final String TAG = Aircraft.class.getSimpleName();
-    // Counter of the number of Aircraft instances. Used for assigning the IDs.
-    private static int sAircraftCreated = 0;
+    // Counter of the number of Aircraft instances. Used for assigning the IDs. Atomic, as several
+    // games may be generating aircraft on different threads.
+    private static final AtomicInteger sAircraftCreated = new AtomicInteger();
 
     // ID of the current Aircraft. Used Integer for simplicity.
     private int mId;
@@ -19,21 +24,50 @@ public abstract class Aircraft {
     private double mSpeed;
     // Direction is the angle of the speed vector in radians.
     private double mDirection;
+    // Components of the speed vector. They are only recalculated when speed or direction change.
+    private double mVelocityX;
+    private double mVelocityY;
     // Radius of the Aircraft.
     private int mRadius;
     // Position in the Aerodrome.
     private Position mPosition;
     // Selection behaviour.
     private boolean mSelected;
+    // Store holding the state of the Aircraft, and slot in it. The store is null when detached.
+    AircraftStore mStore;
+    int mIndex;
+    // Pool the Aircraft is given back to once it leaves the store. Null if it's not pooled.
+    AircraftPool mPool;
 
     Aircraft(double speed, double direction, Position position, int radius) {
-        sAircraftCreated++;
-        mId = sAircraftCreated;
+        mId = sAircraftCreated.incrementAndGet();
         mSpeed = speed;
         mDirection = direction;
         mPosition = position;
         mRadius = radius;
         mSelected = false;
+        updateVelocity();
+    }
+
+    /**
+     * Turns a recycled Aircraft into a new one. It gets a new ID, so it can't be taken for the
+     * Aircraft it was before.
+     */
+    void reset(double speed, double direction, double x, double y) {
+        mId = sAircraftCreated.incrementAndGet();
+        mSpeed = speed;
+        mDirection = direction;
+        mPosition.set(x, y);
+        mSelected = false;
+        updateVelocity();
+    }
+
+    /**
+     * Recalculates the components of the speed vector from the speed and direction.
+     */
+    private void updateVelocity() {
+        mVelocityX = mSpeed * Math.cos(mDirection);
+        mVelocityY = mSpeed * Math.sin(mDirection);
     }
 
     public int getId() {
@@ -45,13 +79,62 @@ public abstract class Aircraft {
     }
 
     public Position getPosition() {
+        if (mStore != null) {
+            mPosition.set(mStore.mX[mIndex], mStore.mY[mIndex]);
+        }
         return mPosition;
     }
 
     public double getDirection() {
+        if (mStore != null) {
+            return mStore.mDirection[mIndex];
+        }
         return mDirection;
     }
 
+    public double getSpeed() {
+        if (mStore != null) {
+            return mStore.mSpeed[mIndex];
+        }
+        return mSpeed;
+    }
+
+    public double getVelocityX() {
+        if (mStore != null) {
+            return mStore.mVelocityX[mIndex];
+        }
+        return mVelocityX;
+    }
+
+    public double getVelocityY() {
+        if (mStore != null) {
+            return mStore.mVelocityY[mIndex];
+        }
+        return mVelocityY;
+    }
+
+    /**
+     * Makes the Aircraft a view of the given slot of the store.
+     */
+    void attach(AircraftStore store, int index) {
+        mStore = store;
+        mIndex = index;
+    }
+
+    /**
+     * Copies the state from the store back into the Aircraft, which stops being a view of it.
+     */
+    void detach() {
+        if (mStore != null) {
+            mPosition.set(mStore.mX[mIndex], mStore.mY[mIndex]);
+            mSpeed = mStore.mSpeed[mIndex];
+            mDirection = mStore.mDirection[mIndex];
+            mVelocityX = mStore.mVelocityX[mIndex];
+            mVelocityY = mStore.mVelocityY[mIndex];
+            mStore = null;
+        }
+    }
+
     public void select(boolean state) {
         mSelected = state;
     }
@@ -61,14 +144,17 @@ public abstract class Aircraft {
     }
 
     /**
-     * Updates the aircraft's position according to it's speed and direction.
+     * Updates the aircraft's position according to it's speed and direction. The position is
+     * updated in place, using the precalculated speed vector.
      *
      * @param sampleTime    Time span in milliseconds, used to calculate the distance moved.
      */
     public void moveForward(long sampleTime) {
-        Position deltaPosition = new Position(mSpeed * sampleTime * Math.cos(mDirection),
-            mSpeed * sampleTime * Math.sin(mDirection));
-        mPosition.add(deltaPosition);
+        if (mStore != null) {
+            mStore.moveForward(mIndex, sampleTime);
+            return;
+        }
+        mPosition.add(mVelocityX * sampleTime, mVelocityY * sampleTime);
     }
 
     /**
@@ -77,12 +163,20 @@ public abstract class Aircraft {
      * @param position  The position to point the Aircraft to.
      */
     public void changeDirection(Position position) {
-        double u = position.getX() - mPosition.getX();
-        double v = position.getY() - mPosition.getY();
-        mDirection = Math.atan2(v, u);
+        double u = position.getX() - getPosition().getX();
+        double v = position.getY() - getPosition().getY();
+        double direction = Math.atan2(v, u);
         // Aircrafts are generated using angles between 0 and 2*PI radians.
-        if (mDirection < 0) {
-            mDirection += 2 * Math.PI;
+        if (direction < 0) {
+            direction += 2 * Math.PI;
+        }
+        mDirection = direction;
+        updateVelocity();
+        if (mStore != null) {
+            mStore.mDirection[mIndex] = mDirection;
+            mStore.mVelocityX[mIndex] = mVelocityX;
+            mStore.mVelocityY[mIndex] = mVelocityY;
+            mStore.startLeg(mIndex);
         }
     }
 
@@ -90,7 +184,7 @@ public abstract class Aircraft {
      * Crash with another Aircraft if it's within range.
      */
     public boolean crashesWith(Aircraft otherAircraft) {
-        if ((!this.equals(otherAircraft)) && (otherAircraft.mPosition.distanceTo(mPosition)
+        if ((!this.equals(otherAircraft)) && (otherAircraft.getPosition().distanceTo(getPosition())
                 <= (mRadius + otherAircraft.mRadius))) {
             return true;
         } else {
@@ -100,6 +194,34 @@ public abstract class Aircraft {
 
     public abstract boolean land(LandingSite site);
 
+    /**
+     * Whether the Aircraft reached the site at any point of it's last move, and not only at the
+     * current position like land(). A fast Aircraft can't fly over a site without landing.
+     *
+     * @param sampleTime    Length of the last move, in milliseconds. With 0 this is land().
+     */
+    public boolean landedDuring(LandingSite site, long sampleTime) {
+        if (land(site)) {
+            return true;
+        }
+        if ((sampleTime == 0) || !site.verifyDirection(getDirection()) || !canLandOn(site)) {
+            return false;
+        }
+        // Distance to the site at the end and at the start of the move.
+        double u = getPosition().getX() - site.getPosition().getX();
+        double v = getPosition().getY() - site.getPosition().getY();
+        double wx = getVelocityX();
+        double wy = getVelocityY();
+        double dx = u - wx * sampleTime;
+        double dy = v - wy * sampleTime;
+        return Sweep.closestApproach(dx, dy, wx, wy, sampleTime) <= mRadius;
+    }
+
+    /**
+     * Whether the site accepts this type of Aircraft, regardless of it's position and direction.
+     */
+    public abstract boolean canLandOn(LandingSite site);
+
     public abstract void notifyCreation(Game game);
 
     public boolean equals(Aircraft aircraft) {
@@ -114,9 +236,9 @@ public abstract class Aircraft {
     public String toString() {
         StringBuilder stringBuilder = new StringBuilder();
         stringBuilder.append(getClass().getSimpleName()).append(" Id=").append(mId);
-        stringBuilder.append(" Spd=").append(mSpeed);
-        stringBuilder.append(" Dir=").append(Math.toDegrees(mDirection));
-        stringBuilder.append(" Rad=").append(mRadius).append(" Pos=").append(mPosition.toString());
+        stringBuilder.append(" Spd=").append(getSpeed());
+        stringBuilder.append(" Dir=").append(Math.toDegrees(getDirection()));
+        stringBuilder.append(" Rad=").append(mRadius).append(" Pos=").append(getPosition().toString());
         return stringBuilder.toString();
     }
 }
@@ -0,0 +1,81 @@
+package mas.german.landingplanes.aircrafts;
+
+import java.util.ArrayList;
+import java.util.List;
+import mas.german.landingplanes.Position;
+
+/**
+ * Recycles Aircraft, so a game that keeps generating them doesn't allocate once it reaches a
+ * steady amount of traffic. An Aircraft taken from the pool is reset to the requested state and
+ * gets a new ID. It's given back by the AircraftStore it was removed from, when the store's owner
+ * calls releaseRemoved(). From then on it must not be kept, as it's reused for another aircraft.
+ *
+ * Only the Aircraft created by the pool are recycled. Aircraft created with their constructors
+ * are left to the garbage collector.
+ *
+ * This class is not thread-safe. The Game uses it while holding it's store.
+ */
+public class AircraftPool {
+    private static final String TAG = AircraftPool.class.getSimpleName();
+
+    // Free Aircraft of each type.
+    private final List<LargePlane> mLargePlanes = new ArrayList<>();
+    private final List<LightPlane> mLightPlanes = new ArrayList<>();
+    private final List<Helicopter> mHelicopters = new ArrayList<>();
+
+    public LargePlane acquireLargePlane(double speed, double direction, double x, double y) {
+        if (mLargePlanes.isEmpty()) {
+            return adopt(new LargePlane(speed, direction, new Position(x, y)));
+        }
+        LargePlane largePlane = mLargePlanes.remove(mLargePlanes.size() - 1);
+        largePlane.reset(speed, direction, x, y);
+        return largePlane;
+    }
+
+    public LightPlane acquireLightPlane(double speed, double direction, double x, double y) {
+        if (mLightPlanes.isEmpty()) {
+            return adopt(new LightPlane(speed, direction, new Position(x, y)));
+        }
+        LightPlane lightPlane = mLightPlanes.remove(mLightPlanes.size() - 1);
+        lightPlane.reset(speed, direction, x, y);
+        return lightPlane;
+    }
+
+    public Helicopter acquireHelicopter(double speed, double direction, double x, double y) {
+        if (mHelicopters.isEmpty()) {
+            return adopt(new Helicopter(speed, direction, new Position(x, y)));
+        }
+        Helicopter helicopter = mHelicopters.remove(mHelicopters.size() - 1);
+        helicopter.reset(speed, direction, x, y);
+        return helicopter;
+    }
+
+    private <T extends Aircraft> T adopt(T aircraft) {
+        aircraft.mPool = this;
+        return aircraft;
+    }
+
+    /**
+     * Gives an Aircraft back to the pool. Called by the store once the removed Aircraft is
+     * released.
+     */
+    void release(Aircraft aircraft) {
+        if (aircraft.mPool != this) {
+            return;
+        }
+        if (aircraft instanceof LargePlane) {
+            mLargePlanes.add((LargePlane) aircraft);
+        } else if (aircraft instanceof LightPlane) {
+            mLightPlanes.add((LightPlane) aircraft);
+        } else {
+            mHelicopters.add((Helicopter) aircraft);
+        }
+    }
+
+    /**
+     * Returns the number of Aircraft waiting to be reused.
+     */
+    public int getFreeCount() {
+        return mLargePlanes.size() + mLightPlanes.size() + mHelicopters.size();
+    }
+}
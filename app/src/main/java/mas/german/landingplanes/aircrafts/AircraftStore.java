@@ -0,0 +1,291 @@
+package mas.german.landingplanes.aircrafts;
+
+import java.util.ArrayList;
+import java.util.List;
+import mas.german.landingplanes.Sweep;
+
+/**
+ * Container of the aircraft in the game. The state used on every update (position, speed,
+ * direction and radius) is kept in parallel primitive arrays, so the update loop walks contiguous
+ * memory instead of following references to every Aircraft and Position.
+ *
+ * The components of the speed vector are kept as well, so moving an aircraft is two multiply-adds
+ * with no trigonometry and no allocation. Positions are calculated from the start of the current
+ * leg (where the aircraft last turned) and the time flown since then, instead of adding the
+ * movement of every step, so rounding errors don't build up over the steps.
+ *
+ * While an Aircraft is in the store it works as a view of it's slot: it reads and writes it's
+ * state from the arrays. When it's removed, the state is copied back into the Aircraft. An
+ * Aircraft from an AircraftPool is held until releaseRemoved() gives it back to it's pool, so it's
+ * not reused while the events of the update still refer to it.
+ * Removal swaps the last aircraft into the freed slot, so the order of the aircraft is not kept.
+ *
+ * This class is not thread-safe. Callers must synchronize on the store. Only moveRange() can run
+ * concurrently, on ranges that don't overlap.
+ */
+public class AircraftStore {
+    private static final String TAG = AircraftStore.class.getSimpleName();
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Columns of the aircraft state, indexed by slot. Package-private so Aircraft can read them.
+    Aircraft[] mAircraft = new Aircraft[INITIAL_CAPACITY];
+    int[] mIds = new int[INITIAL_CAPACITY];
+    double[] mX = new double[INITIAL_CAPACITY];
+    double[] mY = new double[INITIAL_CAPACITY];
+    double[] mSpeed = new double[INITIAL_CAPACITY];
+    double[] mDirection = new double[INITIAL_CAPACITY];
+    double[] mVelocityX = new double[INITIAL_CAPACITY];
+    double[] mVelocityY = new double[INITIAL_CAPACITY];
+    int[] mRadius = new int[INITIAL_CAPACITY];
+    // Start of the current leg, and milliseconds flown since.
+    double[] mOriginX = new double[INITIAL_CAPACITY];
+    double[] mOriginY = new double[INITIAL_CAPACITY];
+    long[] mElapsed = new long[INITIAL_CAPACITY];
+
+    private int mSize = 0;
+    // Aircraft from a pool removed since the last call to releaseRemoved().
+    private final List<Aircraft> mRemoved = new ArrayList<>();
+
+    public int size() {
+        return mSize;
+    }
+
+    public Aircraft get(int index) {
+        return mAircraft[index];
+    }
+
+    public int getId(int index) {
+        return mIds[index];
+    }
+
+    public double getX(int index) {
+        return mX[index];
+    }
+
+    public double getY(int index) {
+        return mY[index];
+    }
+
+    public double getSpeed(int index) {
+        return mSpeed[index];
+    }
+
+    public double getDirection(int index) {
+        return mDirection[index];
+    }
+
+    /**
+     * Returns the x-component of the speed vector, in Aerodrome Units per millisecond.
+     */
+    public double getVelocityX(int index) {
+        return mVelocityX[index];
+    }
+
+    /**
+     * Returns the y-component of the speed vector, in Aerodrome Units per millisecond.
+     */
+    public double getVelocityY(int index) {
+        return mVelocityY[index];
+    }
+
+    public int getRadius(int index) {
+        return mRadius[index];
+    }
+
+    /**
+     * Grows all the columns, keeping their content.
+     */
+    private void grow() {
+        int capacity = 2 * mAircraft.length;
+        Aircraft[] aircraft = new Aircraft[capacity];
+        System.arraycopy(mAircraft, 0, aircraft, 0, mSize);
+        mAircraft = aircraft;
+        mIds = copyOf(mIds, capacity);
+        mX = copyOf(mX, capacity);
+        mY = copyOf(mY, capacity);
+        mSpeed = copyOf(mSpeed, capacity);
+        mDirection = copyOf(mDirection, capacity);
+        mVelocityX = copyOf(mVelocityX, capacity);
+        mVelocityY = copyOf(mVelocityY, capacity);
+        mRadius = copyOf(mRadius, capacity);
+        mOriginX = copyOf(mOriginX, capacity);
+        mOriginY = copyOf(mOriginY, capacity);
+        mElapsed = copyOf(mElapsed, capacity);
+    }
+
+    private int[] copyOf(int[] column, int capacity) {
+        int[] copy = new int[capacity];
+        System.arraycopy(column, 0, copy, 0, mSize);
+        return copy;
+    }
+
+    private double[] copyOf(double[] column, int capacity) {
+        double[] copy = new double[capacity];
+        System.arraycopy(column, 0, copy, 0, mSize);
+        return copy;
+    }
+
+    private long[] copyOf(long[] column, int capacity) {
+        long[] copy = new long[capacity];
+        System.arraycopy(column, 0, copy, 0, mSize);
+        return copy;
+    }
+
+    /**
+     * Adds an aircraft at the end of the store. From now on the aircraft reads it's state from the
+     * store.
+     */
+    public void add(Aircraft aircraft) {
+        if (mSize == mAircraft.length) {
+            grow();
+        }
+        int index = mSize++;
+        mAircraft[index] = aircraft;
+        mIds[index] = aircraft.getId();
+        mX[index] = aircraft.getPosition().getX();
+        mY[index] = aircraft.getPosition().getY();
+        mSpeed[index] = aircraft.getSpeed();
+        mDirection[index] = aircraft.getDirection();
+        mVelocityX[index] = aircraft.getVelocityX();
+        mVelocityY[index] = aircraft.getVelocityY();
+        mRadius[index] = aircraft.getRadius();
+        startLeg(index);
+        aircraft.attach(this, index);
+    }
+
+    /**
+     * Removes the aircraft at the given slot. The last aircraft is moved into the slot, so callers
+     * iterating the store must visit the same index again.
+     */
+    public void removeAt(int index) {
+        Aircraft removed = mAircraft[index];
+        removed.detach();
+        int last = --mSize;
+        if (index != last) {
+            mAircraft[index] = mAircraft[last];
+            mIds[index] = mIds[last];
+            mX[index] = mX[last];
+            mY[index] = mY[last];
+            mSpeed[index] = mSpeed[last];
+            mDirection[index] = mDirection[last];
+            mVelocityX[index] = mVelocityX[last];
+            mVelocityY[index] = mVelocityY[last];
+            mRadius[index] = mRadius[last];
+            mOriginX[index] = mOriginX[last];
+            mOriginY[index] = mOriginY[last];
+            mElapsed[index] = mElapsed[last];
+            mAircraft[index].mIndex = index;
+        }
+        mAircraft[last] = null;
+        if (removed.mPool != null) {
+            mRemoved.add(removed);
+        }
+    }
+
+    /**
+     * Removes all the aircraft.
+     */
+    public void clear() {
+        for (int i = 0; i < mSize; i++) {
+            Aircraft removed = mAircraft[i];
+            removed.detach();
+            mAircraft[i] = null;
+            if (removed.mPool != null) {
+                mRemoved.add(removed);
+            }
+        }
+        mSize = 0;
+    }
+
+    /**
+     * Gives the Aircraft removed so far back to their pools. Must only be called once nothing
+     * refers to them any more, as the pools reuse them with other IDs.
+     */
+    public void releaseRemoved() {
+        for (int i = 0; i < mRemoved.size(); i++) {
+            Aircraft removed = mRemoved.get(i);
+            removed.mPool.release(removed);
+        }
+        mRemoved.clear();
+    }
+
+    /**
+     * Moves a single aircraft according to it's speed and direction.
+     *
+     * @param sampleTime    Time span in milliseconds, used to calculate the distance moved.
+     */
+    void moveForward(int index, long sampleTime) {
+        mElapsed[index] += sampleTime;
+        mX[index] = mOriginX[index] + mVelocityX[index] * mElapsed[index];
+        mY[index] = mOriginY[index] + mVelocityY[index] * mElapsed[index];
+    }
+
+    /**
+     * Starts a new leg at the current position. Must be called whenever the speed vector changes.
+     */
+    void startLeg(int index) {
+        mOriginX[index] = mX[index];
+        mOriginY[index] = mY[index];
+        mElapsed[index] = 0;
+    }
+
+    /**
+     * Moves all the aircraft according to their speed and direction.
+     *
+     * @param sampleTime    Time span in milliseconds, used to calculate the distance moved.
+     */
+    public void moveAll(long sampleTime) {
+        moveRange(0, mSize, sampleTime);
+    }
+
+    /**
+     * Moves the aircraft of a range of slots. Ranges that don't overlap can be moved concurrently.
+     *
+     * @param from          First slot, inclusive.
+     * @param to            Last slot, exclusive.
+     * @param sampleTime    Time span in milliseconds, used to calculate the distance moved.
+     */
+    public void moveRange(int from, int to, long sampleTime) {
+        for (int i = from; i < to; i++) {
+            mElapsed[i] += sampleTime;
+            mX[i] = mOriginX[i] + mVelocityX[i] * mElapsed[i];
+            mY[i] = mOriginY[i] + mVelocityY[i] * mElapsed[i];
+        }
+    }
+
+    /**
+     * Same test as Aircraft.crashesWith(), done over the columns.
+     */
+    public boolean crashes(int index, int otherIndex) {
+        if (mIds[index] == mIds[otherIndex]) {
+            return false;
+        }
+        double u = mX[otherIndex] - mX[index];
+        double v = mY[otherIndex] - mY[index];
+        return Math.sqrt(u * u + v * v) <= (mRadius[index] + mRadius[otherIndex]);
+    }
+
+    /**
+     * Whether two aircraft touched at any point of their last move, of the given length. Includes
+     * the test of crashes() at the end of the move.
+     *
+     * @param sampleTime    Length of the last move, in milliseconds. With 0 this is crashes().
+     */
+    public boolean crashesDuring(int index, int otherIndex, long sampleTime) {
+        if (crashes(index, otherIndex)) {
+            return true;
+        }
+        if ((sampleTime == 0) || (mIds[index] == mIds[otherIndex])) {
+            return false;
+        }
+        double wx = mVelocityX[otherIndex] - mVelocityX[index];
+        double wy = mVelocityY[otherIndex] - mVelocityY[index];
+        // Distance at the end and at the start of the move.
+        double u = mX[otherIndex] - mX[index];
+        double v = mY[otherIndex] - mY[index];
+        double radius = mRadius[index] + mRadius[otherIndex];
+        double dx = u - wx * sampleTime;
+        double dy = v - wy * sampleTime;
+        return Sweep.closestApproach(dx, dy, wx, wy, sampleTime) <= radius;
+    }
+}
@@ -14,7 +14,7 @@ public class LargePlane extends Aircraft {
     // Speed is in Map Units per millisecond.
     public static final double MAX_SPEED = 0.05;
     public static final double MIN_SPEED = 0.035;
-    private static final int RADIUS = 5;
+    public static final int RADIUS = 5;
 
     public LargePlane(double speed, double direction, Position pos) {
         super(speed, direction, pos, RADIUS);
@@ -25,13 +25,18 @@ public class LargePlane extends Aircraft {
      */
     public boolean land(LandingSite site) {
         if ((getPosition().distanceTo(site.getPosition()) <= getRadius()) &&
-            (site.verifyDirection(getDirection())) && (site.accept(this))) {
+            (site.verifyDirection(getDirection())) && (canLandOn(site))) {
             return true;
         } else {
             return false;
         }
     }
 
+    @Override
+    public boolean canLandOn(LandingSite site) {
+        return site.accept(this);
+    }
+
     @Override
     public void notifyCreation(Game game) {
         game.createdLargePlane(this);
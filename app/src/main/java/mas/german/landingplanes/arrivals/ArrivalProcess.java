@@ -0,0 +1,26 @@
+package mas.german.landingplanes.arrivals;
+
+import java.util.Random;
+
+/**
+ * Process that decides when aircraft arrive at the aerodrome. The AircraftGenerator asks for the
+ * arrival times in bulk and keeps them in a timeline, so a process with hundreds of arrivals per
+ * second costs a call every few hundred arrivals, and not one per aircraft.
+ *
+ * Times are in milliseconds since the generation began. A process keeps no state between calls:
+ * the next arrivals only depend on the previous one and on the random source, so the same seed
+ * gives the same timeline.
+ */
+public interface ArrivalProcess {
+    /**
+     * Fills the array with the times of the arrivals that follow the given one, in increasing
+     * order.
+     *
+     * @param random    Random source of the generator.
+     * @param previous  Time of the previous arrival. 0 for the first call.
+     * @param times     Array to fill, from it's start.
+     * @return  Number of times written. Less than the length of the array when the process has
+     *          no more arrivals.
+     */
+    int fill(Random random, double previous, double[] times);
+}
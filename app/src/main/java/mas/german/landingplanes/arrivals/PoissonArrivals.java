@@ -0,0 +1,33 @@
+package mas.german.landingplanes.arrivals;
+
+/**
+ * Arrivals at a constant rate, independent of each other: the time between arrivals follows an
+ * exponential distribution.
+ */
+public class PoissonArrivals extends RateArrivals {
+    private static final String TAG = PoissonArrivals.class.getSimpleName();
+
+    private final double mRate;
+
+    /**
+     * @param perSecond   Average arrivals per second.
+     */
+    public PoissonArrivals(double perSecond) {
+        mRate = perMs(perSecond);
+    }
+
+    @Override
+    protected double rateAt(double time) {
+        return mRate;
+    }
+
+    @Override
+    protected double segmentEnd(double time) {
+        return Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    protected double maxRate(double from, double to) {
+        return mRate;
+    }
+}
@@ -0,0 +1,75 @@
+package mas.german.landingplanes.arrivals;
+
+import java.util.Random;
+
+/**
+ * Base of the processes given by an arrival rate that changes over time (a non-homogeneous
+ * Poisson process). Time is split in segments, such as the waves of WaveArrivals or the rows of
+ * the table of ScheduledArrivals, and each segment gives the maximum of it's rate.
+ *
+ * The arrivals are drawn by thinning: candidates are drawn at the maximum rate of the segment,
+ * and each one is kept with the probability rate / maximum at it's time. On a segment with a
+ * constant rate every candidate is kept. A candidate past the end of the segment is dropped and
+ * the drawing starts again from the end, which is exact as the exponential distribution has no
+ * memory.
+ */
+public abstract class RateArrivals implements ArrivalProcess {
+    private static final String TAG = RateArrivals.class.getSimpleName();
+
+    /**
+     * Returns the arrival rate at the given time, in arrivals per millisecond.
+     */
+    protected abstract double rateAt(double time);
+
+    /**
+     * Returns the end of the segment the time belongs to. Infinity for the last segment. A
+     * process whose rate stays at 0 from some time on must end there with an infinite segment, or
+     * fill() would look for the next arrival forever.
+     */
+    protected abstract double segmentEnd(double time);
+
+    /**
+     * Returns the maximum rate between the given times, which are within the same segment, in
+     * arrivals per millisecond.
+     */
+    protected abstract double maxRate(double from, double to);
+
+    @Override
+    public int fill(Random random, double previous, double[] times) {
+        int count = 0;
+        double time = previous;
+        while (count < times.length) {
+            double end = segmentEnd(time);
+            double maxRate = maxRate(time, end);
+            if (maxRate <= 0) {
+                if (Double.isInfinite(end)) {
+                    // No more arrivals.
+                    break;
+                }
+                time = end;
+                continue;
+            }
+            time += -Math.log(1 - random.nextDouble()) / maxRate;
+            if (time >= end) {
+                time = end;
+                continue;
+            }
+            if (random.nextDouble() * maxRate <= rateAt(time)) {
+                times[count++] = time;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Converts a rate in arrivals per second into arrivals per millisecond.
+     *
+     * @throws IllegalArgumentException If the rate is negative or not a number.
+     */
+    static double perMs(double perSecond) {
+        if (!(perSecond >= 0)) {
+            throw new IllegalArgumentException("Invalid rate of " + perSecond + " per second.");
+        }
+        return perSecond / 1000;
+    }
+}
@@ -0,0 +1,75 @@
+package mas.german.landingplanes.arrivals;
+
+import java.util.Arrays;
+
+/**
+ * Arrivals whose rate follows a schedule table. The table gives the rate at some times, and the
+ * rate ramps linearly between them, so a rush hour can be described by a few rows. Before the
+ * first row the rate is the one of the first row, and after the last row it stays at the last one.
+ */
+public class ScheduledArrivals extends RateArrivals {
+    private static final String TAG = ScheduledArrivals.class.getSimpleName();
+
+    // Rows of the table: time, in milliseconds, and rate at that time, in arrivals per millisecond.
+    private final long[] mTimes;
+    private final double[] mRates;
+
+    /**
+     * @param timesMs       Times of the rows, in milliseconds, in increasing order.
+     * @param perSecond     Arrivals per second at the time of each row.
+     */
+    public ScheduledArrivals(long[] timesMs, double[] perSecond) {
+        if ((timesMs.length == 0) || (timesMs.length != perSecond.length)) {
+            throw new IllegalArgumentException("The schedule needs a rate for each time.");
+        }
+        for (int i = 1; i < timesMs.length; i++) {
+            if (timesMs[i] <= timesMs[i - 1]) {
+                throw new IllegalArgumentException("The times of the schedule must increase.");
+            }
+        }
+        mTimes = Arrays.copyOf(timesMs, timesMs.length);
+        mRates = new double[perSecond.length];
+        for (int i = 0; i < perSecond.length; i++) {
+            mRates[i] = perMs(perSecond[i]);
+        }
+    }
+
+    /**
+     * Returns the index of the last row at or before the time, or -1 if it's before the table.
+     */
+    private int rowOf(double time) {
+        int index = Arrays.binarySearch(mTimes, (long) Math.floor(time));
+        return (index >= 0) ? index : -index - 2;
+    }
+
+    @Override
+    protected double rateAt(double time) {
+        int row = rowOf(time);
+        if (row < 0) {
+            return mRates[0];
+        }
+        if (row == mTimes.length - 1) {
+            return mRates[row];
+        }
+        double fraction = (time - mTimes[row]) / (mTimes[row + 1] - mTimes[row]);
+        return mRates[row] + fraction * (mRates[row + 1] - mRates[row]);
+    }
+
+    @Override
+    protected double segmentEnd(double time) {
+        int row = rowOf(time);
+        if (row == mTimes.length - 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return mTimes[row + 1];
+    }
+
+    @Override
+    protected double maxRate(double from, double to) {
+        // The rate is linear within a segment, so the maximum is at one of it's ends.
+        if (Double.isInfinite(to)) {
+            return rateAt(from);
+        }
+        return Math.max(rateAt(from), rateAt(to));
+    }
+}
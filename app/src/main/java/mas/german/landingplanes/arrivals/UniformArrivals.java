@@ -0,0 +1,33 @@
+package mas.german.landingplanes.arrivals;
+
+import java.util.Random;
+
+/**
+ * Arrivals separated by a random time, uniformly distributed between a minimum and a maximum.
+ * It's the default process of the generator.
+ */
+public class UniformArrivals implements ArrivalProcess {
+    private static final String TAG = UniformArrivals.class.getSimpleName();
+
+    private final int mMinMs;
+    private final int mDeltaMs;
+
+    /**
+     * @param minMs     Minimum time between arrivals, in milliseconds.
+     * @param deltaMs   Range of the random part of the time between arrivals, in milliseconds.
+     */
+    public UniformArrivals(int minMs, int deltaMs) {
+        mMinMs = minMs;
+        mDeltaMs = deltaMs;
+    }
+
+    @Override
+    public int fill(Random random, double previous, double[] times) {
+        double time = previous;
+        for (int i = 0; i < times.length; i++) {
+            time += mMinMs + random.nextInt(mDeltaMs);
+            times[i] = time;
+        }
+        return times.length;
+    }
+}
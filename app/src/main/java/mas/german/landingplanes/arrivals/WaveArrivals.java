@@ -0,0 +1,55 @@
+package mas.german.landingplanes.arrivals;
+
+/**
+ * Bursty arrivals: waves at a peak rate that repeat periodically, with a base rate between them.
+ * Each wave starts at the beginning of it's period.
+ */
+public class WaveArrivals extends RateArrivals {
+    private static final String TAG = WaveArrivals.class.getSimpleName();
+
+    private final double mBaseRate;
+    private final double mPeakRate;
+    private final long mPeriodMs;
+    private final long mWaveMs;
+
+    /**
+     * @param basePerSecond     Arrivals per second between waves.
+     * @param peakPerSecond     Arrivals per second during a wave.
+     * @param periodMs          Time from the start of a wave to the start of the next one.
+     * @param waveMs            Length of a wave. Not longer than the period.
+     */
+    public WaveArrivals(double basePerSecond, double peakPerSecond, long periodMs, long waveMs) {
+        if ((periodMs <= 0) || (waveMs < 0) || (waveMs > periodMs)) {
+            throw new IllegalArgumentException("Invalid wave of " + waveMs + " ms every " +
+                periodMs + " ms.");
+        }
+        mBaseRate = perMs(basePerSecond);
+        mPeakRate = perMs(peakPerSecond);
+        // The periods never end in an infinite segment, so there must be arrivals in each of them.
+        if (!((waveMs > 0) && (mPeakRate > 0)) && !((waveMs < periodMs) && (mBaseRate > 0))) {
+            throw new IllegalArgumentException("The waves have no arrivals.");
+        }
+        mPeriodMs = periodMs;
+        mWaveMs = waveMs;
+    }
+
+    private boolean inWave(double time) {
+        return (time % mPeriodMs) < mWaveMs;
+    }
+
+    @Override
+    protected double rateAt(double time) {
+        return inWave(time) ? mPeakRate : mBaseRate;
+    }
+
+    @Override
+    protected double segmentEnd(double time) {
+        double periodStart = time - (time % mPeriodMs);
+        return inWave(time) ? periodStart + mWaveMs : periodStart + mPeriodMs;
+    }
+
+    @Override
+    protected double maxRate(double from, double to) {
+        return rateAt(from);
+    }
+}
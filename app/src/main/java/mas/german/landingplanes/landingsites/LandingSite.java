@@ -55,6 +55,10 @@ public abstract class LandingSite {
         return mCenterAngle;
     }
 
+    public double getApertureAngle() {
+        return mApertureAngle;
+    }
+
     public abstract boolean accept(LargePlane largePlane);
 
     public abstract boolean accept(LightPlane lightPlane);
@@ -0,0 +1,34 @@
+package mas.german.landingplanes.view;
+
+import mas.german.landingplanes.Position;
+
+/**
+ * View showing the field where the landing sites stand and where the aircraft fly. It's drawn by
+ * an AerodromeRenderer, either on the UI Thread (AerodromeView) or on a render thread of it's own
+ * (AerodromeSurfaceView).
+ */
+public interface AerodromeDisplay {
+  /**
+   * Aerodrome-related events that need to be communicated to the corresponding listeners.
+   */
+  interface OnAerodromeEventListener {
+    /**
+     * Notify the listeners that a position in the aerodrome was tapped.
+     *
+     * @param position  The position in Aerodrome Coordinates.
+     */
+    void onAerodromeTapped(Position position);
+
+    /**
+     * Notify the listeners that this view is ready to be used.
+     */
+    void onAerodromeReady();
+  }
+
+  void setListener(OnAerodromeEventListener listener);
+
+  /**
+   * Returns the renderer that keeps the visual representation of the aerodrome.
+   */
+  AerodromeRenderer getRenderer();
+}
@@ -0,0 +1,563 @@
+package mas.german.landingplanes.view;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.view.Choreographer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import mas.german.landingplanes.Game;
+import mas.german.landingplanes.Position;
+import mas.german.landingplanes.PositionSnapshot;
+import mas.german.landingplanes.R;
+import mas.german.landingplanes.TickResult;
+import mas.german.landingplanes.aircrafts.Aircraft;
+import mas.german.landingplanes.aircrafts.Helicopter;
+import mas.german.landingplanes.aircrafts.LargePlane;
+import mas.german.landingplanes.aircrafts.LightPlane;
+import mas.german.landingplanes.landingsites.Helipad;
+import mas.german.landingplanes.landingsites.LongRunway;
+import mas.german.landingplanes.landingsites.ShortRunway;
+
+/**
+ * Keeps the visual representation of the aerodrome (the background, the landing sites and the
+ * aircraft) and draws it on a Canvas. It doesn't depend on the view it's drawn on, so the same
+ * renderer works for the AerodromeView, drawn on the UI Thread, and for the AerodromeSurfaceView,
+ * drawn on it's own thread.
+ *
+ * The background and the landing sites don't move, so they are drawn once into an offscreen
+ * bitmap, which is only drawn again when the sites or the background change. Each frame then costs
+ * one bitmap plus the aircraft.
+ *
+ * With interpolation, the aircraft don't jump from one update to the next: each frame of the
+ * display draws them along the way between the last two updates, according to the time passed
+ * since the last one arrived. They are drawn up to one update late in exchange. The frames are
+ * paced by the Choreographer, which needs API 16, so older devices draw the updates as they come.
+ *
+ * draw() can run on any thread, without waiting for the updates. When frame_time_logging is set,
+ * it also keeps the time taken by the frames, and logs it regularly, so both views can be compared.
+ */
+public class AerodromeRenderer {
+  private static final String TAG = AerodromeRenderer.class.getSimpleName();
+  // Number of frames between each report of the frame times.
+  private static final int FRAMES_PER_REPORT = 300;
+  // The frames stop once no update arrived for this long, as when the game is over.
+  private static final long IDLE_NANOS = 500 * 1000 * 1000L;
+
+  /**
+   * View the aerodrome is drawn on.
+   */
+  interface Target {
+    /**
+     * The aerodrome changed and must be drawn again. It can be called from any thread.
+     */
+    void requestRender();
+  }
+
+  // Each drawable needs Context in order to access the resources and get their colours.
+  private final Context mContext;
+  private final Target mTarget;
+  // Name of the view, for the frame time reports.
+  private final String mName;
+  // Whether the frame times are logged.
+  private final boolean mFrameTimesLogged;
+
+  // Paint used for the background.
+  private final Paint mBackgroundPaint = new Paint();
+
+  // Game instance that contains the Model data.
+  private final Game mGame = Game.getInstance();
+
+  // Aerodrome Matrix used to fit the model into the view.
+  private final Matrix mAerodrome = new Matrix();
+  private volatile boolean mPrepared = false;
+  private float mScale = 1f;
+  private int mWidth;
+  private int mHeight;
+
+  // Map of Aircraft Drawables by ID. They represent the aircraft from the model. Changes are made
+  // while holding it, and drawing reads it's snapshot without holding it.
+  private final AircraftDrawableMap mDrawables = new AircraftDrawableMap();
+  // Drawables of the removed aircraft, to be reused by the generated ones.
+  private final AircraftDrawablePool mDrawablePool;
+  // Drawables removed from the map since the last frame. The frame being drawn may still use them,
+  // so they are only given back to the pool when the next one starts. Guarded by mDrawables.
+  private final List<AircraftDrawable> mRemovedDrawables = new ArrayList<>();
+  // Sites only change when a game starts, so they are copied on write and drawn without locking.
+  private final List<LandingSiteDrawable> mSiteDrawables = new CopyOnWriteArrayList<>();
+
+  // Background and landing sites, drawn once. Only used by draw().
+  private Bitmap mStaticLayer;
+  private Canvas mStaticCanvas;
+  // Whether the layer must be drawn again before the next frame.
+  private volatile boolean mStaticLayerChanged = true;
+
+  // Interpolation of the positions between the updates. Null if it's not used.
+  private FrameTicker mFrameTicker;
+  // Latest update applied to the drawables, and when it was. Only used by draw().
+  private long mUpdateVersion = 0;
+  private long mUpdateTime;
+  private long mUpdateFrameNanos;
+  // Real time between the last two updates, over which the drawables are moved.
+  private long mUpdateIntervalNanos = 0;
+
+  /**
+   * Asks for a frame on every refresh of the display while the updates keep coming. Runs on the
+   * UI Thread.
+   */
+  private class FrameTicker implements Choreographer.FrameCallback, Runnable {
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    // Time of the current frame, read by draw().
+    private volatile long mFrameTimeNanos;
+    private long mLastUpdateNanos;
+    private boolean mPosted = false;
+
+    /**
+     * Called on any thread when an update arrived.
+     */
+    void onUpdate() {
+      mMainHandler.post(this);
+    }
+
+    @Override
+    public void run() {
+      mLastUpdateNanos = System.nanoTime();
+      if (!mPosted) {
+        mPosted = true;
+        Choreographer.getInstance().postFrameCallback(this);
+      }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+      mFrameTimeNanos = frameTimeNanos;
+      mTarget.requestRender();
+      if (frameTimeNanos - mLastUpdateNanos < IDLE_NANOS) {
+        Choreographer.getInstance().postFrameCallback(this);
+      } else {
+        mPosted = false;
+      }
+    }
+
+    long getFrameTimeNanos() {
+      return mFrameTimeNanos;
+    }
+  }
+
+  // Frame times since the last report, in nanoseconds.
+  private int mFrames = 0;
+  private long mFrameNanos = 0;
+  private long mMaxFrameNanos = 0;
+  private long mReportStart = 0;
+
+  AerodromeRenderer(Context context, Target target, String name) {
+    mContext = context;
+    mTarget = target;
+    mName = name;
+    mFrameTimesLogged = context.getResources().getBoolean(R.bool.frame_time_logging);
+    mBackgroundPaint.setColor(context.getResources().getColor(R.color.grass));
+    mDrawablePool = new AircraftDrawablePool(context);
+  }
+
+  /**
+   * Scales the Aerodrome Matrix in order to fit the given space. Note that this is only done once,
+   * as the view's size is constant throughout the game. This Matrix helps mapping between
+   * Aerodrome and Canvas Coordinates.
+   *
+   * @param width   Width of the view.
+   * @param height  Height of the view.
+   */
+  void prepare(int width, int height) {
+    float scaleX = width / (float) (mGame.getAerodrome().getWidth());
+    float scaleY = height / (float) (mGame.getAerodrome().getHeight());
+    mAerodrome.postScale(scaleX, scaleY);
+    mWidth = width;
+    mHeight = height;
+    // Since the Aerodrome is square, either scale can be used. Should the aerodrome be rectangular,
+    // the scale would have to be chosen in order to fit the aerodrome in the screen.
+    mScale = scaleX;
+    mPrepared = true;
+  }
+
+  boolean isPrepared() {
+    return mPrepared;
+  }
+
+  /**
+   * Moves the aircraft smoothly between the updates, if the device supports it. Must be called
+   * before the game starts.
+   */
+  public void setInterpolation(boolean interpolation) {
+    if (interpolation && (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN)) {
+      mFrameTicker = new FrameTicker();
+    } else {
+      mFrameTicker = null;
+    }
+  }
+
+  /**
+   * Map an (x,y) point into Aerodrome coordinates.
+   *
+   * @param x The X-coordinate of the point to map.
+   * @param y The Y-coordinate of the point to map.
+   * @return  The mapped Position in Aerodrome coordinates.
+   */
+  Position getAerodromePosition(float x, float y) {
+    float xy[] = {x, y};
+    Matrix inverse = new Matrix();
+    mAerodrome.invert(inverse);
+    inverse.mapPoints(xy);
+    return new Position(xy[0], xy[1]);
+  }
+
+  /**
+   * Draws the whole aerodrome. Nothing is drawn until prepare() is called, as the size isn't known
+   * before. The render thread may get here first.
+   */
+  void draw(Canvas canvas) {
+    // Reading the volatile flag first also makes the size written by prepare() visible.
+    if (!mPrepared) {
+      return;
+    }
+    long start = System.nanoTime();
+    canvas.save();
+
+    // Draw the Aerodrome's Background and Landing Sites.
+    if (mStaticLayerChanged) {
+      drawStaticLayer();
+    }
+    canvas.drawBitmap(mStaticLayer, 0, 0, null);
+
+    releaseRemovedDrawables();
+    if (mFrameTicker != null) {
+      interpolatePositions(mFrameTicker.getFrameTimeNanos());
+    }
+
+    // Draw all Aircraft, each shape in one pass. The snapshot is read without waiting for the
+    // updates, and it's grouped by type.
+    AircraftDrawable[] aircraft = mDrawables.getSnapshot();
+    int from = 0;
+    while (from < aircraft.length) {
+      AircraftShape shape = aircraft[from].getShape();
+      int to = from + 1;
+      while ((to < aircraft.length) && (aircraft[to].getShape() == shape)) {
+        to++;
+      }
+      shape.drawAll(canvas, aircraft, from, to);
+      from = to;
+    }
+
+    canvas.restore();
+    if (mFrameTimesLogged) {
+      recordFrame(start, System.nanoTime());
+    }
+  }
+
+  /**
+   * Gives the drawables removed before this frame back to the pool. The previous frame is done
+   * with them, and the snapshots read from now on don't have them. Only called by draw().
+   */
+  private void releaseRemovedDrawables() {
+    synchronized (mDrawables) {
+      for (AircraftDrawable aircraft : mRemovedDrawables) {
+        mDrawablePool.release(aircraft);
+      }
+      mRemovedDrawables.clear();
+    }
+  }
+
+  /**
+   * Removes the drawable of an aircraft from the map. It's given back to the pool when the next
+   * frame starts. Must be called while holding the drawables.
+   */
+  private void removeDrawable(int id) {
+    AircraftDrawable aircraft = mDrawables.remove(id);
+    if (aircraft != null) {
+      mRemovedDrawables.add(aircraft);
+    }
+  }
+
+  /**
+   * Moves the drawables to where they are at the given frame, between the last two updates. The
+   * latest update is only read here, so there is still a single reader of the positions.
+   */
+  private void interpolatePositions(long frameTimeNanos) {
+    PositionSnapshot positions = mGame.getPositionSnapshot();
+    if (positions.getVersion() != mUpdateVersion) {
+      // The drawables are moved during the real time the simulation took to get here.
+      long elapsed = positions.getTime() - mUpdateTime;
+      if ((mUpdateVersion == 0) || (elapsed <= 0)) {
+        mUpdateIntervalNanos = 0;
+      } else {
+        mUpdateIntervalNanos = (long) (elapsed * 1e6 / positions.getTimeScale());
+      }
+      mUpdateVersion = positions.getVersion();
+      mUpdateTime = positions.getTime();
+      mUpdateFrameNanos = frameTimeNanos;
+      synchronized (mDrawables) {
+        for (int i = 0; i < positions.size(); i++) {
+          AircraftDrawable aircraft = mDrawables.get(positions.getId(i));
+          // The drawable may have been removed after the snapshot was taken.
+          if (aircraft != null) {
+            aircraft.setTarget(positions.getX(i), positions.getY(i), positions.getDirection(i));
+            aircraft.setConflict(false);
+          }
+        }
+        markConflicts(positions);
+      }
+    }
+    float fraction = 1f;
+    if (mUpdateIntervalNanos > 0) {
+      fraction = (frameTimeNanos - mUpdateFrameNanos) / (float) mUpdateIntervalNanos;
+      fraction = Math.max(0f, Math.min(1f, fraction));
+    }
+    for (AircraftDrawable aircraft : mDrawables.getSnapshot()) {
+      aircraft.interpolate(fraction);
+    }
+  }
+
+  /**
+   * Marks the aircraft of the conflicts of an update, so they are drawn with a warning. Must be
+   * called while holding the drawables, after clearing the marks of the previous update.
+   */
+  private void markConflicts(PositionSnapshot positions) {
+    for (int k = 0; k < positions.getConflictCount(); k++) {
+      AircraftDrawable first = mDrawables.get(positions.getConflictFirstId(k));
+      if (first != null) {
+        first.setConflict(true);
+      }
+      AircraftDrawable second = mDrawables.get(positions.getConflictSecondId(k));
+      if (second != null) {
+        second.setConflict(true);
+      }
+    }
+  }
+
+  /**
+   * Draws the background and the landing sites into the static layer, creating it the first time.
+   */
+  private void drawStaticLayer() {
+    // Cleared before drawing, so a change made meanwhile is drawn on the next frame.
+    mStaticLayerChanged = false;
+    if (mStaticLayer == null) {
+      mStaticLayer = Bitmap.createBitmap(mWidth, mHeight, Bitmap.Config.ARGB_8888);
+      mStaticCanvas = new Canvas(mStaticLayer);
+    }
+    mStaticCanvas.drawRect(0, 0, mWidth, mHeight, mBackgroundPaint);
+    for (LandingSiteDrawable site : mSiteDrawables) {
+      site.draw(mStaticCanvas);
+    }
+  }
+
+  /**
+   * The background or the landing sites changed. The static layer is drawn again on the next
+   * frame.
+   */
+  private void invalidateStaticLayer() {
+    mStaticLayerChanged = true;
+    mTarget.requestRender();
+  }
+
+  /**
+   * Adds a frame to the frame times, and logs them once there are enough.
+   */
+  private void recordFrame(long start, long end) {
+    if (mFrames == 0) {
+      mReportStart = start;
+    }
+    long frameNanos = end - start;
+    mFrames++;
+    mFrameNanos += frameNanos;
+    mMaxFrameNanos = Math.max(mMaxFrameNanos, frameNanos);
+    if (mFrames == FRAMES_PER_REPORT) {
+      Log.d(TAG, String.format("%s: %.1f frames per second, %.2f ms per frame, %.2f ms max.",
+          mName, mFrames * 1e9 / (end - mReportStart), mFrameNanos / 1e6 / mFrames,
+          mMaxFrameNanos / 1e6));
+      mFrames = 0;
+      mFrameNanos = 0;
+      mMaxFrameNanos = 0;
+    }
+  }
+
+  /**
+   * Restores the Aerodrome's representation. Clear it's drawables and returns the background to
+   * it's original color.
+   */
+  public void cleanView() {
+    synchronized (mDrawables) {
+      for (AircraftDrawable aircraft : mDrawables.getSnapshot()) {
+        mRemovedDrawables.add(aircraft);
+      }
+      mDrawables.clear();
+      mDrawables.publish();
+    }
+    mSiteDrawables.clear();
+    mBackgroundPaint.setColor(mContext.getResources().getColor(R.color.grass));
+    invalidateStaticLayer();
+  }
+
+  /**
+   * Remove a Drawable from the Collection, given it's ID. This operation is synchronized to keep it
+   * thread-safe.
+   *
+   * @param id  Drawable Aircraft to be removed.
+   */
+  public void removeAircraftDrawableById(int id) {
+    synchronized (mDrawables) {
+      removeDrawable(id);
+      mDrawables.publish();
+    }
+    mTarget.requestRender();
+  }
+
+  /**
+   * Update the position of all aircraft. With interpolation, they are moved by the next frames.
+   */
+  public void onAircraftPositionChanged() {
+    if (mFrameTicker != null) {
+      mFrameTicker.onUpdate();
+      return;
+    }
+    // The snapshot is read without locking the game.
+    PositionSnapshot positions = mGame.getPositionSnapshot();
+    // Synchronize the Drawable's list, so we make sure we update all the positions safely.
+    synchronized (mDrawables) {
+      for (int i = 0; i < positions.size(); i++) {
+        AircraftDrawable aircraft = mDrawables.get(positions.getId(i));
+        // The drawable may have been removed after the snapshot was taken.
+        if (aircraft != null) {
+          aircraft.setPosition(positions.getX(i), positions.getY(i), positions.getDirection(i));
+          aircraft.setConflict(false);
+        }
+      }
+      markConflicts(positions);
+    }
+    mTarget.requestRender();
+  }
+
+  /**
+   * Applies all the changes of a game update at once: adds the generated aircraft, removes the
+   * ones that landed or left the aerodrome, and updates the positions, so the aerodrome is drawn
+   * again a single time. The drawable of a removed aircraft is reused when there is one.
+   *
+   * @param result  Events of the update.
+   */
+  public void applyTick(TickResult result) {
+    synchronized (mDrawables) {
+      for (int i = 0; i < result.getGeneratedCount(); i++) {
+        mDrawables.put(mDrawablePool.acquire(result.getGeneratedType(i),
+            result.getGeneratedId(i), result.getGeneratedX(i), result.getGeneratedY(i),
+            result.getGeneratedDirection(i), mScale));
+      }
+      for (int i = 0; i < result.getLandedCount(); i++) {
+        removeDrawable(result.getLanded(i));
+      }
+      for (int i = 0; i < result.getExitedCount(); i++) {
+        removeDrawable(result.getExited(i));
+      }
+      mDrawables.publish();
+    }
+    onAircraftPositionChanged();
+  }
+
+  /**
+   * Change the visual state of the given aircraft.
+   *
+   * @param id      ID of the target aircraft.
+   * @param state   Selection state to represent.
+   */
+  public void onAircraftSelect(int id, boolean state) {
+    synchronized (mDrawables) {
+      // Only one can be selected at a time. The map deselects the previous one.
+      mDrawables.select(id, state);
+    }
+    mTarget.requestRender();
+  }
+
+  /**
+   * Visual effect of the game over.
+   */
+  public void onGameOver() {
+    // Game Over visual effect.
+    mBackgroundPaint.setColor(mContext.getResources().getColor(R.color.landingSite));
+    invalidateStaticLayer();
+  }
+
+  /**
+   * Create the visual representation of the given Long Runway and add it to the list of landing
+   * site drawables.
+   *
+   * @param longRunway  The long runway created.
+   */
+  public void onLongRunwayCreated(LongRunway longRunway) {
+    mSiteDrawables.add(new LongRunwayDrawable(mContext, mScale, longRunway));
+    invalidateStaticLayer();
+  }
+
+  /**
+   * Create the visual representation of the given Short Runway and add it to the list of landing
+   * site drawables.
+   *
+   * @param shortRunway  The short runway created.
+   */
+  public void onShortRunwayCreated(ShortRunway shortRunway) {
+    mSiteDrawables.add(new ShortRunwayDrawable(mContext, mScale, shortRunway));
+    invalidateStaticLayer();
+  }
+
+  /**
+   * Create the visual representation of the given Helipad and add it to the list of landing
+   * site drawables.
+   *
+   * @param helipad   The helipad created.
+   */
+  public void onHelipadCreated(Helipad helipad) {
+    mSiteDrawables.add(new HelipadDrawable(mContext, mScale, helipad));
+    invalidateStaticLayer();
+  }
+
+  /**
+   * Create the visual representation of the given Large Plane and add it to the list of aircraft
+   * drawables.
+   *
+   * @param largePlane  The large plane created.
+   */
+  public void onLargePlaneGenerated(LargePlane largePlane) {
+    addAircraftDrawable(largePlane);
+  }
+
+  /**
+   * Create the visual representation of the given Light Plane and add it to the list of aircraft
+   * drawables.
+   *
+   * @param lightPlane  The light plane created.
+   */
+  public void onLightPlaneGenerated(LightPlane lightPlane) {
+    addAircraftDrawable(lightPlane);
+  }
+
+  /**
+   * Create the visual representation of the given Helicopter and add it to the list of aircraft
+   * drawables.
+   *
+   * @param helicopter  The helicopter created.
+   */
+  public void onHelicopterGenerated(Helicopter helicopter) {
+    addAircraftDrawable(helicopter);
+  }
+
+  private void addAircraftDrawable(Aircraft aircraft) {
+    synchronized (mDrawables) {
+      mDrawables.put(mDrawablePool.acquire(aircraft, mScale));
+      mDrawables.publish();
+    }
+    mTarget.requestRender();
+  }
+}
@@ -0,0 +1,175 @@
+package mas.german.landingplanes.view;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+import mas.german.landingplanes.Position;
+
+/**
+ * Same as the AerodromeView, but drawn on a render thread of it's own, so drawing doesn't compete
+ * with input and layout on the UI Thread. The thread sleeps until the aerodrome changes, and then
+ * draws the latest state. Posting a frame waits for the display to take the previous ones, so the
+ * thread never draws faster than the display refreshes, and the changes made in between are drawn
+ * together.
+ */
+public class AerodromeSurfaceView extends SurfaceView implements AerodromeDisplay,
+    AerodromeRenderer.Target, SurfaceHolder.Callback {
+  private static final String TAG = AerodromeSurfaceView.class.getSimpleName();
+
+  // The Listener that will be receiving notifications from this class.
+  private OnAerodromeEventListener mListener;
+
+  // Visual representation of the aerodrome.
+  private AerodromeRenderer mRenderer;
+
+  // Thread drawing on the surface. It only exists while the surface does.
+  private volatile RenderThread mRenderThread;
+
+  /**
+   * Draws the aerodrome on the surface whenever it changed.
+   */
+  private class RenderThread extends Thread {
+    private final SurfaceHolder mHolder;
+    private boolean mRunning = true;
+    private boolean mChanged = true;
+
+    RenderThread(SurfaceHolder holder) {
+      super(TAG);
+      mHolder = holder;
+    }
+
+    synchronized void requestRender() {
+      mChanged = true;
+      notify();
+    }
+
+    synchronized void quit() {
+      mRunning = false;
+      notify();
+    }
+
+    /**
+     * Waits until the aerodrome changed.
+     *
+     * @return  Whether a frame must be drawn, or false if the thread must finish.
+     */
+    private synchronized boolean awaitChange() {
+      while (mRunning && !mChanged) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          return false;
+        }
+      }
+      mChanged = false;
+      return mRunning;
+    }
+
+    @Override
+    public void run() {
+      while (awaitChange()) {
+        Canvas canvas = mHolder.lockCanvas();
+        if (canvas == null) {
+          continue;
+        }
+        try {
+          mRenderer.draw(canvas);
+        } finally {
+          mHolder.unlockCanvasAndPost(canvas);
+        }
+      }
+    }
+  }
+
+  public AerodromeSurfaceView(Context context) {
+    super(context);
+    init(context);
+  }
+
+  public AerodromeSurfaceView(Context context, AttributeSet attrs) {
+    super(context, attrs);
+    init(context);
+  }
+
+  public AerodromeSurfaceView(Context context, AttributeSet attrs, int defStyleAttr) {
+    super(context, attrs, defStyleAttr);
+    init(context);
+  }
+
+  private void init(Context context) {
+    mRenderer = new AerodromeRenderer(context, this, TAG);
+    getHolder().addCallback(this);
+  }
+
+  @Override
+  public void setListener(OnAerodromeEventListener listener) {
+    mListener = listener;
+  }
+
+  @Override
+  public AerodromeRenderer getRenderer() {
+    return mRenderer;
+  }
+
+  @Override
+  public void requestRender() {
+    RenderThread renderThread = mRenderThread;
+    if (renderThread != null) {
+      renderThread.requestRender();
+    }
+  }
+
+  @Override
+  public void surfaceCreated(SurfaceHolder holder) {
+    mRenderThread = new RenderThread(holder);
+    mRenderThread.start();
+  }
+
+  @Override
+  public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+    // Set the Aerodrome Matrix only once.
+    if (!mRenderer.isPrepared()) {
+      mRenderer.prepare(width, height);
+      if (mListener != null) {
+        mListener.onAerodromeReady();
+      }
+    }
+    requestRender();
+  }
+
+  @Override
+  public void surfaceDestroyed(SurfaceHolder holder) {
+    // The surface must not be drawn on once this returns, so wait for the thread to finish.
+    RenderThread renderThread = mRenderThread;
+    mRenderThread = null;
+    renderThread.quit();
+    boolean interrupted = false;
+    while (renderThread.isAlive()) {
+      try {
+        renderThread.join();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public boolean onTouchEvent(MotionEvent event) {
+    switch (event.getActionMasked()) {
+      case MotionEvent.ACTION_DOWN:
+        if (mListener != null) {
+          // Map the coordinates into the Aerodrome.
+          Position aerodromePosition = mRenderer.getAerodromePosition(event.getX(), event.getY());
+          mListener.onAerodromeTapped(aerodromePosition);
+        }
+        return true;
+    }
+    return super.onTouchEvent(event);
+  }
+}
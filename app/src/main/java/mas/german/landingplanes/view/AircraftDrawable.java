@@ -2,20 +2,17 @@ package mas.german.landingplanes.view;
 
 import android.graphics.Canvas;
 import android.graphics.ColorFilter;
-import android.graphics.Paint;
-import android.graphics.Path;
 import android.graphics.PixelFormat;
 import android.graphics.drawable.Drawable;
 import mas.german.landingplanes.Position;
 
 /**
- * Abstract class to represent all types of aircraft to be drawn on the View.
+ * Abstract class to represent all types of aircraft to be drawn on the View. The shape and paints
+ * are shared by all the aircraft of a type (see AircraftShape), so each drawable only keeps where
+ * it's drawn.
  */
 public abstract class AircraftDrawable extends Drawable {
   private static final String TAG = AircraftDrawable.class.getSimpleName();
-  private static final float SIZE_MODIFIER = 1.5f;
-  private static final int ALPHA_SELECTED = 70;
-  private static final int ALPHA_OPAQUE = 255;
 
   // ID of the Model Aircraft.
   private int mId;
@@ -24,96 +21,151 @@ public abstract class AircraftDrawable extends Drawable {
   private float mX;
   private float mY;
 
-  // Radius of the Aircraft, in Canvas Coordinates.
-  private float mRadius;
-
   // Scale to convert from Aerodrome Coordinates into Canvas Coordinates.
   private float mScale = 1f;
 
   // Direction which the aircraft is facing, in radians.
   private double mDirection;
 
-  // Representation of the Aircraft.
-  private Paint mPaint;
-  private Path mPath;
+  // Interpolation from the position drawn when the last update arrived to the updated one, in
+  // Canvas Coordinates.
+  private float mFromX;
+  private float mFromY;
+  private float mToX;
+  private float mToY;
+
+  // Representation of the Aircraft, shared with the other aircraft of the same type.
+  private AircraftShape mShape;
 
   // Drawable Selection Flag.
   private boolean mSelected = false;
 
-  AircraftDrawable(int id, Position position, float radius, double direction, float scale, int color) {
+  // Whether the aircraft is about to crash with another one.
+  private boolean mConflict = false;
+
+  /**
+   * Creates the drawable of an aircraft at the given position, in Aerodrome Coordinates.
+   */
+  AircraftDrawable(int id, double x, double y, double direction, float scale,
+      AircraftShape shape) {
     mId = id;
     mScale = scale;
-    mX = (float) position.getX() * scale;
-    mY = (float) position.getY() * scale;
-    mRadius = radius * scale;
+    mX = (float) x * scale;
+    mY = (float) y * scale;
     mDirection = direction;
-    mPaint = new Paint();
-    mPaint.setStyle(Paint.Style.FILL);
-    mPaint.setColor(color);
-    mPath = new Path();
+    mShape = shape;
+    mFromX = mToX = mX;
+    mFromY = mToY = mY;
   }
 
-  private void configurePath() {
-    mPath.reset();
-    mPath.moveTo(mX + mRadius, mY);
-    mPath.lineTo(mX - 0.5f * mRadius, mY - mRadius * (float) Math.sin(Math.toRadians(60)));
-    mPath.lineTo(mX - 0.25f * mRadius, mY);
-    mPath.lineTo(mX - 0.5f * mRadius, mY + mRadius * (float) Math.sin(Math.toRadians(60)));
-    mPath.close();
+  /**
+   * Makes the drawable represent another aircraft of the same type, so it can be reused instead
+   * of creating a new one. The position is in Aerodrome Coordinates.
+   */
+  void reset(int id, double x, double y, double direction, float scale, AircraftShape shape) {
+    mId = id;
+    mScale = scale;
+    mX = (float) x * scale;
+    mY = (float) y * scale;
+    mDirection = direction;
+    mShape = shape;
+    mSelected = false;
+    mConflict = false;
+    mFromX = mToX = mX;
+    mFromY = mToY = mY;
   }
 
   protected int getId() {
     return mId;
   }
 
-  protected void setPosition(Position position) {
-    // Change the direction accordingly.
-    float x = (float) position.getX() * mScale;
-    float y = (float) position.getY() * mScale;
-    mDirection = Math.atan2(y - mY, x - mX);
-    // Keep the angle positive.
-    if (mDirection < 0) {
-      mDirection += 2 * Math.PI;
-    }
-    mX = x;
-    mY = y;
+  /**
+   * Moves the drawable to the given point, in Aerodrome Coordinates.
+   *
+   * @param direction   Direction of the aircraft in the model, in radians.
+   */
+  protected void setPosition(double aerodromeX, double aerodromeY, double direction) {
+    mX = mFromX = mToX = (float) aerodromeX * mScale;
+    mY = mFromY = mToY = (float) aerodromeY * mScale;
+    mDirection = direction;
+  }
+
+  /**
+   * Starts moving the drawable from where it's drawn now to the given point, in Aerodrome
+   * Coordinates. The aircraft turns at once, as it does in the model.
+   *
+   * @param direction   Direction of the aircraft in the model, in radians.
+   */
+  void setTarget(double aerodromeX, double aerodromeY, double direction) {
+    mFromX = mX;
+    mFromY = mY;
+    mToX = (float) aerodromeX * mScale;
+    mToY = (float) aerodromeY * mScale;
+    mDirection = direction;
+  }
+
+  /**
+   * Places the drawable along the way to it's target.
+   *
+   * @param fraction  Fraction of the way, from 0 to 1.
+   */
+  void interpolate(float fraction) {
+    mX = mFromX + (mToX - mFromX) * fraction;
+    mY = mFromY + (mToY - mFromY) * fraction;
   }
 
   protected Position getPosition() {
     return new Position(mX, mY);
   }
 
-  protected void setRadius(float radius) {
-    mRadius = radius;
+  float getX() {
+    return mX;
+  }
+
+  float getY() {
+    return mY;
+  }
+
+  /**
+   * Returns the direction which the aircraft is facing, in degrees.
+   */
+  float getDegrees() {
+    return (float) Math.toDegrees(mDirection);
   }
 
   protected float getRadius() {
-    return mRadius;
+    return mShape.getRadius();
   }
 
-  protected void setPaintColor(int color) {
-    mPaint = new Paint();
-    mPaint.setStyle(Paint.Style.FILL);
-    mPaint.setColor(color);
+  AircraftShape getShape() {
+    return mShape;
   }
 
+  /**
+   * Returns the index of the type of aircraft, from 0. The snapshots of the drawables are grouped
+   * by it, so each type is drawn in one pass.
+   */
+  abstract int getTypeIndex();
+
   protected void select(boolean state) {
     mSelected = state;
   }
 
+  boolean isSelected() {
+    return mSelected;
+  }
+
+  void setConflict(boolean conflict) {
+    mConflict = conflict;
+  }
+
+  boolean isInConflict() {
+    return mConflict;
+  }
+
   @Override
   public void draw(Canvas canvas) {
-    canvas.save();
-    // A bigger, transparent circle is drawn to provide selection feedback.
-    if (mSelected) {
-      mPaint.setAlpha(ALPHA_SELECTED);
-      canvas.drawCircle(mX, mY, mRadius * SIZE_MODIFIER, mPaint);
-    }
-    mPaint.setAlpha(ALPHA_OPAQUE);
-    configurePath();
-    canvas.rotate((float) Math.toDegrees(mDirection), mX, mY);
-    canvas.drawPath(mPath, mPaint);
-    canvas.restore();
+    mShape.draw(canvas, this);
   }
 
   @Override
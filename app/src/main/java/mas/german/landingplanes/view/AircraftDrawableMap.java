@@ -0,0 +1,207 @@
+package mas.german.landingplanes.view;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Map of the Aircraft Drawables by the ID of their aircraft. The IDs are kept as primitive ints in
+ * an open-addressing table with linear probing, so lookups neither box the ID nor follow chains of
+ * entries. Aircraft IDs start at 1, so 0 marks the free slots.
+ *
+ * Changes must be made while holding the map, and published with publish() before releasing it.
+ * The drawables can then be read without holding the map through getSnapshot(), which returns them
+ * as of the last publish. The snapshot is only copied when drawables were added or removed, which
+ * happens far less often than drawing.
+ *
+ * The snapshot is grouped by the type of aircraft, so each type can be drawn in one pass.
+ *
+ * The map also remembers the selected aircraft, so selecting another one only touches the two
+ * drawables involved.
+ */
+class AircraftDrawableMap {
+  private static final String TAG = AircraftDrawableMap.class.getSimpleName();
+  private static final int INITIAL_CAPACITY = 64;
+  private static final int FREE = 0;
+  // Multiplier of the Fibonacci hashing, spreading consecutive IDs over the table.
+  private static final int HASH_MULTIPLIER = 0x9e3779b9;
+  private static final AircraftDrawable[] EMPTY_SNAPSHOT = new AircraftDrawable[0];
+  private static final Comparator<AircraftDrawable> BY_TYPE = new Comparator<AircraftDrawable>() {
+    @Override
+    public int compare(AircraftDrawable a, AircraftDrawable b) {
+      return a.getTypeIndex() - b.getTypeIndex();
+    }
+  };
+
+  private int[] mIds = new int[INITIAL_CAPACITY];
+  private AircraftDrawable[] mDrawables = new AircraftDrawable[INITIAL_CAPACITY];
+  private int mShift = 32 - Integer.numberOfTrailingZeros(INITIAL_CAPACITY);
+  private int mSize = 0;
+
+  // Drawables as of the last publish, read without holding the map.
+  private volatile AircraftDrawable[] mSnapshot = EMPTY_SNAPSHOT;
+  private boolean mChanged = false;
+
+  // ID of the selected aircraft, or FREE if there is none.
+  private int mSelectedId = FREE;
+
+  int size() {
+    return mSize;
+  }
+
+  /**
+   * Returns the slot where the search for an ID starts. Package-private so the tests can find IDs
+   * that collide.
+   */
+  int slotOf(int id) {
+    return (id * HASH_MULTIPLIER) >>> mShift;
+  }
+
+  /**
+   * Returns the slot holding the given ID, or -1 if it's not in the map.
+   */
+  private int find(int id) {
+    int mask = mIds.length - 1;
+    for (int slot = slotOf(id); mIds[slot] != FREE; slot = (slot + 1) & mask) {
+      if (mIds[slot] == id) {
+        return slot;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the drawable of the given aircraft, or null.
+   */
+  AircraftDrawable get(int id) {
+    int slot = find(id);
+    return (slot < 0) ? null : mDrawables[slot];
+  }
+
+  /**
+   * Adds a drawable, replacing the one with the same ID.
+   */
+  void put(AircraftDrawable drawable) {
+    // The table is kept at most half full, so the probes stay short.
+    if (2 * (mSize + 1) > mIds.length) {
+      grow();
+    }
+    int id = drawable.getId();
+    int mask = mIds.length - 1;
+    int slot = slotOf(id);
+    while ((mIds[slot] != FREE) && (mIds[slot] != id)) {
+      slot = (slot + 1) & mask;
+    }
+    if (mIds[slot] == FREE) {
+      mSize++;
+    }
+    mIds[slot] = id;
+    mDrawables[slot] = drawable;
+    mChanged = true;
+  }
+
+  private void grow() {
+    int[] ids = mIds;
+    AircraftDrawable[] drawables = mDrawables;
+    mIds = new int[2 * ids.length];
+    mDrawables = new AircraftDrawable[2 * ids.length];
+    mShift--;
+    int mask = mIds.length - 1;
+    for (int i = 0; i < ids.length; i++) {
+      if (ids[i] != FREE) {
+        int slot = slotOf(ids[i]);
+        while (mIds[slot] != FREE) {
+          slot = (slot + 1) & mask;
+        }
+        mIds[slot] = ids[i];
+        mDrawables[slot] = drawables[i];
+      }
+    }
+  }
+
+  /**
+   * Removes the drawable of the given aircraft.
+   *
+   * @return  The drawable removed, or null if there was none.
+   */
+  AircraftDrawable remove(int id) {
+    int hole = find(id);
+    if (hole < 0) {
+      return null;
+    }
+    AircraftDrawable removed = mDrawables[hole];
+    // Shift back the entries after the hole that probed past it, so no lookup stops early.
+    int mask = mIds.length - 1;
+    for (int slot = (hole + 1) & mask; mIds[slot] != FREE; slot = (slot + 1) & mask) {
+      int home = slotOf(mIds[slot]);
+      if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+        mIds[hole] = mIds[slot];
+        mDrawables[hole] = mDrawables[slot];
+        hole = slot;
+      }
+    }
+    mIds[hole] = FREE;
+    mDrawables[hole] = null;
+    mSize--;
+    mChanged = true;
+    return removed;
+  }
+
+  void clear() {
+    for (int i = 0; i < mIds.length; i++) {
+      mIds[i] = FREE;
+      mDrawables[i] = null;
+    }
+    mSize = 0;
+    mSelectedId = FREE;
+    mChanged = true;
+  }
+
+  /**
+   * Selects or deselects an aircraft. Only one can be selected at a time, so selecting an aircraft
+   * deselects the previous one.
+   */
+  void select(int id, boolean state) {
+    if (state && (mSelectedId != id)) {
+      AircraftDrawable previous = get(mSelectedId);
+      if (previous != null) {
+        previous.select(false);
+      }
+    }
+    AircraftDrawable drawable = get(id);
+    if (drawable != null) {
+      drawable.select(state);
+    }
+    if (state) {
+      mSelectedId = id;
+    } else if (mSelectedId == id) {
+      mSelectedId = FREE;
+    }
+  }
+
+  /**
+   * Makes the changes visible to getSnapshot().
+   */
+  void publish() {
+    if (!mChanged) {
+      return;
+    }
+    AircraftDrawable[] snapshot = new AircraftDrawable[mSize];
+    int count = 0;
+    for (int i = 0; i < mIds.length; i++) {
+      if (mIds[i] != FREE) {
+        snapshot[count++] = mDrawables[i];
+      }
+    }
+    Arrays.sort(snapshot, BY_TYPE);
+    mSnapshot = snapshot;
+    mChanged = false;
+  }
+
+  /**
+   * Returns the drawables as of the last publish. It can be called without holding the map, and
+   * the array returned must not be modified.
+   */
+  AircraftDrawable[] getSnapshot() {
+    return mSnapshot;
+  }
+}
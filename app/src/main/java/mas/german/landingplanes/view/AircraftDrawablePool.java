@@ -0,0 +1,129 @@
+package mas.german.landingplanes.view;
+
+import android.content.Context;
+import java.util.ArrayList;
+import java.util.List;
+import mas.german.landingplanes.TickResult;
+import mas.german.landingplanes.aircrafts.Aircraft;
+import mas.german.landingplanes.aircrafts.Helicopter;
+import mas.german.landingplanes.aircrafts.LargePlane;
+import mas.german.landingplanes.aircrafts.LightPlane;
+
+/**
+ * Recycles the Aircraft Drawables, so the view doesn't create a new one for every aircraft
+ * generated. A drawable is given back once no frame can draw it anymore: after it's removed from
+ * the view and the frame that may still be drawing it is done. It also keeps the shape of each
+ * type of aircraft, shared by all it's drawables, and only builds it again if the size of the
+ * aircraft in the Canvas changes.
+ *
+ * Drawables are taken on the game thread and given back on the thread that draws, so the pool is
+ * synchronized.
+ */
+class AircraftDrawablePool {
+  private static final String TAG = AircraftDrawablePool.class.getSimpleName();
+
+  // Each shape needs Context in order to get it's colour.
+  private final Context mContext;
+
+  // Shapes of each type.
+  private AircraftShape mLargePlaneShape;
+  private AircraftShape mLightPlaneShape;
+  private AircraftShape mHelicopterShape;
+
+  // Free drawables of each type.
+  private final List<AircraftDrawable> mLargePlanes = new ArrayList<>();
+  private final List<AircraftDrawable> mLightPlanes = new ArrayList<>();
+  private final List<AircraftDrawable> mHelicopters = new ArrayList<>();
+
+  AircraftDrawablePool(Context context) {
+    mContext = context;
+  }
+
+  /**
+   * Returns a drawable representing the given aircraft, reusing a free one when possible.
+   */
+  AircraftDrawable acquire(Aircraft aircraft, float scale) {
+    return acquire(typeOf(aircraft), aircraft.getId(), aircraft.getPosition().getX(),
+        aircraft.getPosition().getY(), aircraft.getDirection(), scale);
+  }
+
+  /**
+   * Returns a drawable representing an aircraft of the given type, reusing a free one when
+   * possible.
+   *
+   * @param type  Type of the aircraft, as given by the TickResult.
+   * @param x     Position of the aircraft, in Aerodrome Coordinates.
+   * @param y     Position of the aircraft, in Aerodrome Coordinates.
+   */
+  synchronized AircraftDrawable acquire(int type, int id, double x, double y, double direction,
+      float scale) {
+    AircraftShape shape = getShape(type, scale);
+    List<AircraftDrawable> free = getFreeList(type);
+    if (free.isEmpty()) {
+      if (type == TickResult.LARGE_PLANE) {
+        return new LargePlaneDrawable(shape, scale, id, x, y, direction);
+      } else if (type == TickResult.LIGHT_PLANE) {
+        return new LightPlaneDrawable(shape, scale, id, x, y, direction);
+      }
+      return new HelicopterDrawable(shape, scale, id, x, y, direction);
+    }
+    AircraftDrawable drawable = free.remove(free.size() - 1);
+    drawable.reset(id, x, y, direction, scale, shape);
+    return drawable;
+  }
+
+  private static int typeOf(Aircraft aircraft) {
+    if (aircraft instanceof LargePlane) {
+      return TickResult.LARGE_PLANE;
+    } else if (aircraft instanceof LightPlane) {
+      return TickResult.LIGHT_PLANE;
+    }
+    return TickResult.HELICOPTER;
+  }
+
+  /**
+   * Returns the shape of the given type, building it the first time.
+   */
+  private AircraftShape getShape(int type, float scale) {
+    if (type == TickResult.LARGE_PLANE) {
+      float radius = LargePlane.RADIUS * scale;
+      if ((mLargePlaneShape == null) || (mLargePlaneShape.getRadius() != radius)) {
+        mLargePlaneShape = LargePlaneDrawable.createShape(mContext, radius);
+      }
+      return mLargePlaneShape;
+    } else if (type == TickResult.LIGHT_PLANE) {
+      float radius = LightPlane.RADIUS * scale;
+      if ((mLightPlaneShape == null) || (mLightPlaneShape.getRadius() != radius)) {
+        mLightPlaneShape = LightPlaneDrawable.createShape(mContext, radius);
+      }
+      return mLightPlaneShape;
+    }
+    float radius = Helicopter.RADIUS * scale;
+    if ((mHelicopterShape == null) || (mHelicopterShape.getRadius() != radius)) {
+      mHelicopterShape = HelicopterDrawable.createShape(mContext, radius);
+    }
+    return mHelicopterShape;
+  }
+
+  /**
+   * Gives a drawable back to the pool. Null is ignored.
+   */
+  synchronized void release(AircraftDrawable drawable) {
+    if (drawable instanceof LargePlaneDrawable) {
+      mLargePlanes.add(drawable);
+    } else if (drawable instanceof LightPlaneDrawable) {
+      mLightPlanes.add(drawable);
+    } else if (drawable instanceof HelicopterDrawable) {
+      mHelicopters.add(drawable);
+    }
+  }
+
+  private List<AircraftDrawable> getFreeList(int type) {
+    if (type == TickResult.LARGE_PLANE) {
+      return mLargePlanes;
+    } else if (type == TickResult.LIGHT_PLANE) {
+      return mLightPlanes;
+    }
+    return mHelicopters;
+  }
+}
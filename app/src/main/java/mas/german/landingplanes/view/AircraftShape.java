@@ -0,0 +1,105 @@
+package mas.german.landingplanes.view;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import mas.german.landingplanes.R;
+
+/**
+ * Shape and paints of a type of aircraft at a given scale, shared by all it's drawables. The
+ * triangle is built once, around the origin and facing right, so each drawable only adds it's own
+ * translation and rotation when it's drawn.
+ *
+ * Aircraft about to crash are drawn with a ring around them, in the same colour for all types.
+ *
+ * The shape is only read once built, so it can be drawn from any thread.
+ */
+class AircraftShape {
+  private static final String TAG = AircraftShape.class.getSimpleName();
+  private static final float HALO_MODIFIER = 1.5f;
+  private static final int ALPHA_HALO = 70;
+  private static final float CONFLICT_MODIFIER = 1.8f;
+  private static final float CONFLICT_STROKE = 0.25f;
+  private static final float SIN_60 = (float) Math.sin(Math.toRadians(60));
+
+  // Radius of the Aircraft, in Canvas Coordinates.
+  private final float mRadius;
+
+  private final Path mPath = new Path();
+  private final Paint mPaint = new Paint();
+  // A bigger, transparent circle is drawn to provide selection feedback.
+  private final Paint mHaloPaint = new Paint();
+  // A ring warns about an upcoming crash.
+  private final Paint mConflictPaint = new Paint();
+
+  /**
+   * @param colorId Resource of the colour of the aircraft.
+   * @param radius  Radius of the aircraft, in Canvas Coordinates.
+   */
+  AircraftShape(Context context, int colorId, float radius) {
+    int color = context.getResources().getColor(colorId);
+    mRadius = radius;
+    mPath.moveTo(radius, 0);
+    mPath.lineTo(-0.5f * radius, -radius * SIN_60);
+    mPath.lineTo(-0.25f * radius, 0);
+    mPath.lineTo(-0.5f * radius, radius * SIN_60);
+    mPath.close();
+    mPaint.setStyle(Paint.Style.FILL);
+    mPaint.setColor(color);
+    mHaloPaint.setStyle(Paint.Style.FILL);
+    mHaloPaint.setColor(color);
+    mHaloPaint.setAlpha(ALPHA_HALO);
+    mConflictPaint.setStyle(Paint.Style.STROKE);
+    mConflictPaint.setStrokeWidth(radius * CONFLICT_STROKE);
+    mConflictPaint.setColor(context.getResources().getColor(R.color.conflict));
+  }
+
+  float getRadius() {
+    return mRadius;
+  }
+
+  /**
+   * Draws a single aircraft.
+   */
+  void draw(Canvas canvas, AircraftDrawable aircraft) {
+    canvas.save();
+    drawAt(canvas, aircraft);
+    canvas.restore();
+  }
+
+  /**
+   * Draws a range of aircraft with this shape in one pass, saving the Canvas a single time.
+   *
+   * @param aircraft  Drawables of the aircraft. All the ones in the range must have this shape.
+   * @param from      First drawable to draw.
+   * @param to        Drawable after the last one to draw.
+   */
+  void drawAll(Canvas canvas, AircraftDrawable[] aircraft, int from, int to) {
+    canvas.save();
+    for (int i = from; i < to; i++) {
+      drawAt(canvas, aircraft[i]);
+    }
+    canvas.restore();
+  }
+
+  /**
+   * Draws an aircraft, leaving the Canvas as it was.
+   */
+  private void drawAt(Canvas canvas, AircraftDrawable aircraft) {
+    float x = aircraft.getX();
+    float y = aircraft.getY();
+    float degrees = aircraft.getDegrees();
+    canvas.translate(x, y);
+    if (aircraft.isSelected()) {
+      canvas.drawCircle(0, 0, mRadius * HALO_MODIFIER, mHaloPaint);
+    }
+    if (aircraft.isInConflict()) {
+      canvas.drawCircle(0, 0, mRadius * CONFLICT_MODIFIER, mConflictPaint);
+    }
+    canvas.rotate(degrees);
+    canvas.drawPath(mPath, mPaint);
+    canvas.rotate(-degrees);
+    canvas.translate(-x, -y);
+  }
+}
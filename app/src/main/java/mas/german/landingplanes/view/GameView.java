@@ -9,6 +9,7 @@ import android.widget.TextView;
 import mas.german.landingplanes.Game;
 import mas.german.landingplanes.Position;
 import mas.german.landingplanes.R;
+import mas.german.landingplanes.TickResult;
 import mas.german.landingplanes.aircrafts.Helicopter;
 import mas.german.landingplanes.aircrafts.LargePlane;
 import mas.german.landingplanes.aircrafts.LightPlane;
@@ -18,9 +19,11 @@ import mas.german.landingplanes.landingsites.ShortRunway;
 
 /**
  * This class contains all the view-related elements. It listens to the game events in order to
- * provide visual feedback.
+ * provide visual feedback. The events of each game update are received as a batch, and applied on
+ * the UI Thread with a single post.
  */
-public class GameView implements Game.EventsListener, AerodromeView.OnAerodromeEventListener {
+public class GameView implements Game.EventsListener, Game.BatchListener,
+    AerodromeDisplay.OnAerodromeEventListener {
   private static final String TAG = GameView.class.getSimpleName();
 
   /**
@@ -50,19 +53,23 @@ public class GameView implements Game.EventsListener, AerodromeView.OnAerodromeE
   }
 
   // View Elements
-  private AerodromeView mAerodrome;
+  private AerodromeDisplay mAerodrome;
+  private AerodromeRenderer mRenderer;
   private TextView mGameOverText;
   private TextView mScoreText;
   private Button mRestart;
 
   private Game mGame = Game.getInstance();
   private Context mContext;
+  // Handler used to reach the activity's UI Thread.
+  private Handler mMainHandler = new Handler(Looper.getMainLooper());
   private ViewEventsListener mController;
 
-  public GameView(Context context, AerodromeView aerodrome, TextView scoreText,
+  public GameView(Context context, AerodromeDisplay aerodrome, TextView scoreText,
                   TextView gameOverText, Button restart) {
     mContext = context;
     mAerodrome = aerodrome;
+    mRenderer = aerodrome.getRenderer();
     mScoreText = scoreText;
     mGameOverText = gameOverText;
     mRestart = restart;
@@ -78,30 +85,33 @@ public class GameView implements Game.EventsListener, AerodromeView.OnAerodromeE
 
   public void initialize() {
     mGame.setListener(this);
+    mGame.setBatchListener(this);
     mAerodrome.setListener(this);
   }
 
   private void refreshScore() {
-    // A handler is used to reach the activity's UI Thread.
-    Handler handler = new Handler(Looper.getMainLooper());
-    handler.post(new Runnable() {
+    mMainHandler.post(new Runnable() {
       @Override
       public void run() {
-        mScoreText.setText(String.format(mContext.getString(R.string.score_field),
-            mGame.getScore()));
+        setScoreText(mGame.getScore());
       }
     });
   }
 
+  /**
+   * Must be called on the UI Thread.
+   */
+  private void setScoreText(int score) {
+    mScoreText.setText(String.format(mContext.getString(R.string.score_field), score));
+  }
+
   @Override
   public void onGameStart() {
     // The Aerodrome is cleaned and the score refreshed.
-    mAerodrome.cleanView();
+    mRenderer.cleanView();
     refreshScore();
 
-    // A handler is used to reach the activity's UI Thread.
-    Handler handler = new Handler(Looper.getMainLooper());
-    handler.post(new Runnable() {
+    mMainHandler.post(new Runnable() {
       @Override
       public void run() {
         mRestart.setVisibility(View.GONE);
@@ -113,11 +123,9 @@ public class GameView implements Game.EventsListener, AerodromeView.OnAerodromeE
   @Override
   public void onGameOver() {
     // The Aerodrome must change it's visual representation.
-    mAerodrome.onGameOver();
+    mRenderer.onGameOver();
 
-    // A handler is used to reach the activity's UI Thread.
-    Handler handler = new Handler(Looper.getMainLooper());
-    handler.post(new Runnable() {
+    mMainHandler.post(new Runnable() {
       @Override
       public void run() {
         mRestart.setVisibility(View.VISIBLE);
@@ -134,7 +142,7 @@ public class GameView implements Game.EventsListener, AerodromeView.OnAerodromeE
    */
   @Override
   public void onLongRunwayCreated(LongRunway longRunway) {
-    mAerodrome.onLongRunwayCreated(longRunway);
+    mRenderer.onLongRunwayCreated(longRunway);
   }
 
   /**
@@ -145,7 +153,7 @@ public class GameView implements Game.EventsListener, AerodromeView.OnAerodromeE
    */
   @Override
   public void onShortRunwayCreated(ShortRunway shortRunway) {
-    mAerodrome.onShortRunwayCreated(shortRunway);
+    mRenderer.onShortRunwayCreated(shortRunway);
   }
 
   /**
@@ -156,7 +164,7 @@ public class GameView implements Game.EventsListener, AerodromeView.OnAerodromeE
    */
   @Override
   public void onHelipadCreated(Helipad helipad) {
-    mAerodrome.onHelipadCreated(helipad);
+    mRenderer.onHelipadCreated(helipad);
   }
 
   /**
@@ -167,7 +175,7 @@ public class GameView implements Game.EventsListener, AerodromeView.OnAerodromeE
    */
   @Override
   public void onLargePlaneGenerated(LargePlane largePlane) {
-    mAerodrome.onLargePlaneGenerated(largePlane);
+    mRenderer.onLargePlaneGenerated(largePlane);
   }
 
   /**
@@ -178,7 +186,7 @@ public class GameView implements Game.EventsListener, AerodromeView.OnAerodromeE
    */
   @Override
   public void onLightPlaneGenerated(LightPlane lightPlane) {
-    mAerodrome.onLightPlaneGenerated(lightPlane);
+    mRenderer.onLightPlaneGenerated(lightPlane);
   }
 
   /**
@@ -189,7 +197,7 @@ public class GameView implements Game.EventsListener, AerodromeView.OnAerodromeE
    */
   @Override
   public void onHelicopterGenerated(Helicopter helicopter) {
-    mAerodrome.onHelicopterGenerated(helicopter);
+    mRenderer.onHelicopterGenerated(helicopter);
   }
 
   /**
@@ -198,7 +206,7 @@ public class GameView implements Game.EventsListener, AerodromeView.OnAerodromeE
    */
   @Override
   public void onAircraftPositionChanged() {
-    mAerodrome.onAircraftPositionChanged();
+    mRenderer.onAircraftPositionChanged();
   }
 
   /**
@@ -210,7 +218,7 @@ public class GameView implements Game.EventsListener, AerodromeView.OnAerodromeE
    */
   @Override
   public void onAircraftSelect(int id, boolean state) {
-    mAerodrome.onAircraftSelect(id, state);
+    mRenderer.onAircraftSelect(id, state);
   }
 
   /**
@@ -220,7 +228,7 @@ public class GameView implements Game.EventsListener, AerodromeView.OnAerodromeE
    */
   @Override
   public void onLand(int id) {
-    mAerodrome.removeAircraftDrawableById(id);
+    mRenderer.removeAircraftDrawableById(id);
     refreshScore();
   }
 
@@ -231,7 +239,26 @@ public class GameView implements Game.EventsListener, AerodromeView.OnAerodromeE
    */
   @Override
   public void onAircraftOutsideAerodrome(int id) {
-    mAerodrome.removeAircraftDrawableById(id);
+    mRenderer.removeAircraftDrawableById(id);
+  }
+
+  /**
+   * A game update finished. The whole batch is applied to the View with a single post. The result
+   * doesn't refer to the game, so it's read on the UI Thread.
+   *
+   * @param result  Events of the update.
+   */
+  @Override
+  public void onTick(final TickResult result) {
+    mMainHandler.post(new Runnable() {
+      @Override
+      public void run() {
+        mRenderer.applyTick(result);
+        if (result.getScoreDelta() != 0) {
+          setScoreText(result.getScore());
+        }
+      }
+    });
   }
 
   @Override
@@ -2,16 +2,30 @@ package mas.german.landingplanes.view;
 
 import android.content.Context;
 import mas.german.landingplanes.R;
-import mas.german.landingplanes.aircrafts.Aircraft;
 
 /**
  * A class that extends from AircraftDrawable and represents a Large Plane.
  */
 public class LargePlaneDrawable extends AircraftDrawable {
   private static final String TAG = LargePlaneDrawable.class.getSimpleName();
+  static final int TYPE_INDEX = 0;
 
-  LargePlaneDrawable(Context context, float scale, Aircraft aircraft) {
-    super(aircraft.getId(), aircraft.getPosition(), aircraft.getRadius(), aircraft.getDirection(),
-        scale, context.getResources().getColor(R.color.largeAircraft));
+  LargePlaneDrawable(AircraftShape shape, float scale, int id, double x, double y,
+      double direction) {
+    super(id, x, y, direction, scale, shape);
+  }
+
+  @Override
+  int getTypeIndex() {
+    return TYPE_INDEX;
+  }
+
+  /**
+   * Builds the shape shared by the Large Planes.
+   *
+   * @param radius  Radius of the aircraft, in Canvas Coordinates.
+   */
+  static AircraftShape createShape(Context context, float radius) {
+    return new AircraftShape(context, R.color.largeAircraft, radius);
   }
 }
@@ -0,0 +1,31 @@
+package mas.german.landingplanes;
+
+/**
+ * Time Source whose time is only moved by hand, so each update of a game runs a known number of
+ * steps. Shared by the tests and the benchmarks, which step the game without the scheduler.
+ */
+class ManualTimeSource implements SimulationClock.TimeSource {
+    private static final String TAG = ManualTimeSource.class.getSimpleName();
+
+    private long mTime;
+
+    ManualTimeSource() {
+        this(0);
+    }
+
+    ManualTimeSource(long time) {
+        mTime = time;
+    }
+
+    /**
+     * Moves the time forward by the given amount of milliseconds.
+     */
+    void advance(long milliseconds) {
+        mTime += milliseconds;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return mTime;
+    }
+}
@@ -0,0 +1,120 @@
+package mas.german.landingplanes;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import mas.german.landingplanes.aircrafts.*;
+import mas.german.landingplanes.arrivals.PoissonArrivals;
+import org.junit.Test;
+
+/**
+ * Unit Tests related to the Aircraft Pool.
+ */
+public class TestAircraftPool {
+    // Aircraft per second, enough for some to arrive and leave within an update.
+    private static final double ARRIVAL_RATE = 200;
+    private static final int STEPS_PER_UPDATE = 3;
+    private static final int UPDATES = 2000;
+
+    /**
+     * An Aircraft removed from the store is reused once released, with a new ID and the requested
+     * state.
+     */
+    @Test
+    public void testReuseAfterRemove() {
+        AircraftPool pool = new AircraftPool();
+        AircraftStore store = new AircraftStore();
+        LargePlane first = pool.acquireLargePlane(0.05, 0, 10, 20);
+        store.add(first);
+        first.select(true);
+        int firstId = first.getId();
+        assertEquals(0, pool.getFreeCount());
+
+        store.removeAt(0);
+        // It's held by the store until it's released.
+        assertEquals(0, pool.getFreeCount());
+        store.releaseRemoved();
+        assertEquals(1, pool.getFreeCount());
+
+        LargePlane second = pool.acquireLargePlane(0.04, Math.PI, 30, 40);
+        assertSame(first, second);
+        assertTrue(second.getId() != firstId);
+        assertFalse(second.isSelected());
+        assertEquals(0.04, second.getSpeed(), 1e-9);
+        assertEquals(Math.PI, second.getDirection(), 1e-9);
+        assertEquals(30, second.getPosition().getX(), 1e-9);
+        assertEquals(40, second.getPosition().getY(), 1e-9);
+        assertEquals(0, pool.getFreeCount());
+    }
+
+    /**
+     * Clearing the store and releasing gives back all the pooled Aircraft, and only those.
+     */
+    @Test
+    public void testClearReleasesPooledOnly() {
+        AircraftPool pool = new AircraftPool();
+        AircraftStore store = new AircraftStore();
+        store.add(pool.acquireLightPlane(0.02, 0, 10, 10));
+        store.add(pool.acquireHelicopter(0.01, 0, 20, 20));
+        store.add(new LightPlane(0.02, 0, new Position(30, 30)));
+        store.clear();
+        store.releaseRemoved();
+        assertEquals(2, pool.getFreeCount());
+
+        // Each type is reused for the same type.
+        Helicopter helicopter = pool.acquireHelicopter(0.01, 0, 50, 50);
+        assertEquals(1, pool.getFreeCount());
+        LightPlane lightPlane = pool.acquireLightPlane(0.02, 0, 50, 50);
+        assertEquals(0, pool.getFreeCount());
+        assertTrue(helicopter.getId() != lightPlane.getId());
+    }
+
+    /**
+     * An Aircraft that arrives and leaves within an update with several steps isn't reused until
+     * the update's events are delivered, so each generated aircraft keeps it's own ID and every
+     * aircraft removed was generated before.
+     */
+    @Test
+    public void testNotReusedWithinUpdate() {
+        ManualTimeSource timeSource = new ManualTimeSource();
+        Game game = new Game(null, timeSource, 3);
+        game.setArrivalProcess(new PoissonArrivals(ARRIVAL_RATE));
+        game.setCrashesIgnored(true);
+        final List<TickResult> results = new ArrayList<>();
+        game.setBatchListener(new Game.BatchListener() {
+            @Override
+            public void onTick(TickResult result) {
+                results.add(result);
+            }
+        });
+        game.initialize();
+
+        Set<Integer> generated = new HashSet<>();
+        int removed = 0;
+        for (int i = 0; i < UPDATES; i++) {
+            timeSource.advance(STEPS_PER_UPDATE * Game.STEP_MS);
+            game.tick();
+            TickResult result = results.remove(0);
+            for (int j = 0; j < result.getGeneratedCount(); j++) {
+                assertTrue(generated.add(result.getGeneratedId(j)));
+            }
+            for (int j = 0; j < result.getExitedCount(); j++) {
+                assertTrue(generated.contains(result.getExited(j)));
+                removed++;
+            }
+            for (int j = 0; j < result.getLandedCount(); j++) {
+                assertTrue(generated.contains(result.getLanded(j)));
+                removed++;
+            }
+        }
+        game.stop();
+        // Aircraft left, so the pool had some to reuse.
+        assertTrue(removed > 0);
+    }
+}
@@ -0,0 +1,134 @@
+package mas.german.landingplanes;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import mas.german.landingplanes.aircrafts.*;
+import org.junit.Test;
+
+/**
+ * Unit Tests related to the Aircraft Store.
+ */
+public class TestAircraftStore {
+    private static final double ACCEPTED_DELTA = 0.001d;
+    private static final int AIRCRAFT_COUNT = 1000;
+    private static final int WARM_UP_TICKS = 20000;
+    private static final int MEASURED_TICKS = 1000;
+    // Aircraft per row of the formation, distance between them and speed.
+    private static final int ROW = 32;
+    private static final double SPACING = 25;
+    private static final double SPEED = 0.0005;
+
+    /**
+     * Aircraft in the store read and write their state from it.
+     */
+    @Test
+    public void testAircraftIsViewOfStore() {
+        AircraftStore store = new AircraftStore();
+        Aircraft aircraft = new LargePlane(1, 0, new Position(0, 0));
+        store.add(aircraft);
+
+        // Moving the store moves the Aircraft.
+        store.moveAll(1);
+        assertEquals(1, aircraft.getPosition().getX(), ACCEPTED_DELTA);
+        assertEquals(0, aircraft.getPosition().getY(), ACCEPTED_DELTA);
+
+        // Changing the direction of the Aircraft changes the store.
+        aircraft.changeDirection(new Position(1, 10));
+        assertEquals(Math.PI / 2, store.getDirection(0), ACCEPTED_DELTA);
+        aircraft.moveForward(1);
+        assertEquals(1, store.getY(0), ACCEPTED_DELTA);
+
+        // Once removed, the Aircraft keeps the last state of the store.
+        store.removeAt(0);
+        aircraft.moveForward(1);
+        assertEquals(1, aircraft.getPosition().getX(), ACCEPTED_DELTA);
+        assertEquals(2, aircraft.getPosition().getY(), ACCEPTED_DELTA);
+    }
+
+    /**
+     * Removing an Aircraft moves the last one into it's slot.
+     */
+    @Test
+    public void testSwapRemove() {
+        AircraftStore store = new AircraftStore();
+        Aircraft first = new LargePlane(1, 0, new Position(0, 0));
+        Aircraft second = new LightPlane(1, 0, new Position(10, 0));
+        Aircraft third = new Helicopter(1, 0, new Position(20, 0));
+        store.add(first);
+        store.add(second);
+        store.add(third);
+
+        store.removeAt(0);
+        assertEquals(2, store.size());
+        assertSame(third, store.get(0));
+        assertEquals(third.getId(), store.getId(0));
+        assertEquals(20, store.getX(0), ACCEPTED_DELTA);
+        assertSame(second, store.get(1));
+
+        // The moved Aircraft is still a view of it's new slot.
+        store.moveAll(1);
+        assertEquals(21, third.getPosition().getX(), ACCEPTED_DELTA);
+        assertEquals(11, second.getPosition().getX(), ACCEPTED_DELTA);
+    }
+
+    /**
+     * The update loop of the Game must not allocate. Allocation is measured with the per-thread
+     * counters of the JVM, so the test is skipped where they are not available.
+     */
+    @Test
+    public void testTickDoesNotAllocate() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            return;
+        }
+        com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threadBean.isThreadAllocatedMemorySupported()) {
+            return;
+        }
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+
+        // The aircraft fly slowly in formation across a large Aerodrome, away from the starting
+        // sites, so none of them crashes, lands or leaves during the test. The arrivals are turned
+        // away, as the population is already at the cap.
+        ManualTimeSource timeSource = new ManualTimeSource();
+        Game game = new Game(null, timeSource, 7, new Aerodrome(0, 1500, 1500, 0));
+        game.setPopulationCap(AIRCRAFT_COUNT);
+        for (int i = 0; i < AIRCRAFT_COUNT; i++) {
+            Position position = new Position(300 + SPACING * (i % ROW), 300 + SPACING * (i / ROW));
+            switch (i % 3) {
+                case 0:
+                    game.onAircraftGenerated(new LargePlane(SPEED, Math.toRadians(45), position));
+                    break;
+                case 1:
+                    game.onAircraftGenerated(new LightPlane(SPEED, Math.toRadians(45), position));
+                    break;
+                default:
+                    game.onAircraftGenerated(new Helicopter(SPEED, Math.toRadians(45), position));
+                    break;
+            }
+        }
+        game.initialize();
+
+        // Warm up, so the measured ticks run compiled code.
+        for (int i = 0; i < WARM_UP_TICKS; i++) {
+            timeSource.advance(Game.STEP_MS);
+            game.tick();
+        }
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_TICKS; i++) {
+            timeSource.advance(Game.STEP_MS);
+            game.tick();
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        // Less than a byte per aircraft over all the ticks: nothing is allocated per aircraft.
+        assertTrue("Allocated " + allocated + " bytes", allocated < AIRCRAFT_COUNT);
+        // Make sure the whole traffic was updated all along.
+        assertEquals(AIRCRAFT_COUNT, game.getAircraftStore().size());
+        assertEquals(WARM_UP_TICKS + MEASURED_TICKS, game.getStepCount());
+    }
+}
@@ -0,0 +1,165 @@
+package mas.german.landingplanes;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import mas.german.landingplanes.aircrafts.Aircraft;
+import mas.german.landingplanes.arrivals.*;
+import org.junit.Test;
+
+/**
+ * Unit Tests related to the Arrival Processes. The counts are checked within a few standard
+ * deviations of their expected value.
+ */
+public class TestArrivalProcess {
+    /**
+     * Draws all the arrivals before the given time, checking they are in order.
+     */
+    private List<Double> arrivalsUntil(ArrivalProcess process, double end) {
+        Random random = new Random(1);
+        double[] times = new double[100];
+        List<Double> arrivals = new ArrayList<>();
+        double previous = 0;
+        while (previous < end) {
+            int count = process.fill(random, previous, times);
+            for (int i = 0; i < count; i++) {
+                assertTrue(times[i] >= previous);
+                previous = times[i];
+                if (previous < end) {
+                    arrivals.add(previous);
+                }
+            }
+            if (count < times.length) {
+                break;
+            }
+        }
+        return arrivals;
+    }
+
+    @Test
+    public void testPoissonRate() {
+        // 200 per second for 100 seconds.
+        int count = arrivalsUntil(new PoissonArrivals(200), 100000).size();
+        assertTrue(Math.abs(count - 20000) < 600);
+    }
+
+    @Test
+    public void testWavesOnlyArriveInWaves() {
+        // Waves of 200 ms every second at 100 per second, and nothing between them.
+        List<Double> arrivals = arrivalsUntil(new WaveArrivals(0, 100, 1000, 200), 100000);
+        for (double time : arrivals) {
+            assertTrue(time % 1000 < 200);
+        }
+        assertTrue(Math.abs(arrivals.size() - 2000) < 150);
+    }
+
+    @Test
+    public void testScheduleRamp() {
+        // The rate ramps from 0 to 100 per second in 10 seconds, and stays there.
+        ScheduledArrivals process = new ScheduledArrivals(new long[] {0, 10000},
+            new double[] {0, 100});
+        int firstHalf = 0;
+        int secondHalf = 0;
+        int after = 0;
+        for (double time : arrivalsUntil(process, 20000)) {
+            if (time < 5000) {
+                firstHalf++;
+            } else if (time < 10000) {
+                secondHalf++;
+            } else {
+                after++;
+            }
+        }
+        // 125 arrivals in the first half of the ramp, 375 in the second and 1000 after it.
+        assertTrue(Math.abs(firstHalf - 125) < 40);
+        assertTrue(Math.abs(secondHalf - 375) < 70);
+        assertTrue(Math.abs(after - 1000) < 110);
+    }
+
+    /**
+     * A single call generates all the aircraft due by then.
+     */
+    @Test
+    public void testGeneratorGeneratesDueArrivals() {
+        AircraftGenerator generator = new AircraftGenerator(new Aerodrome(0, 100, 100, 0), 1);
+        final List<Aircraft> generated = new ArrayList<>();
+        generator.setOnAircraftGeneratedListener(new AircraftGenerator.OnAircraftGenerated() {
+            @Override
+            public void onAircraftGenerated(Aircraft generatedAircraft) {
+                generated.add(generatedAircraft);
+            }
+        });
+        generator.setArrivalProcess(new PoissonArrivals(500));
+        generator.begin();
+        int count = generator.generateDue(1000);
+        assertEquals(count, generated.size());
+        assertTrue(Math.abs(generated.size() - 500) < 70);
+
+        assertEquals(0, generator.generateDue(1000));
+        generator.generateDue(2000);
+        assertTrue(generated.size() > count);
+
+        // Nothing is generated once stopped.
+        generator.stop();
+        assertEquals(0, generator.generateDue(10000));
+    }
+
+    /**
+     * Arrivals beyond the room given are turned away, and don't arrive later.
+     */
+    @Test
+    public void testGeneratorTurnsAwayBeyondRoom() {
+        AircraftGenerator generator = new AircraftGenerator(new Aerodrome(0, 100, 100, 0), 1);
+        final List<Aircraft> generated = new ArrayList<>();
+        generator.setOnAircraftGeneratedListener(new AircraftGenerator.OnAircraftGenerated() {
+            @Override
+            public void onAircraftGenerated(Aircraft generatedAircraft) {
+                generated.add(generatedAircraft);
+            }
+        });
+        generator.setArrivalProcess(new PoissonArrivals(500));
+        generator.begin();
+        assertEquals(10, generator.generateDue(1000, 10));
+        assertEquals(10, generated.size());
+
+        // The arrivals turned away are not generated with the next ones.
+        int count = generator.generateDue(1010, Integer.MAX_VALUE);
+        assertTrue(count < 20);
+        assertEquals(10 + count, generated.size());
+    }
+
+    /**
+     * Negative rates, and waves without any arrival, are rejected instead of drawing forever.
+     */
+    @Test
+    public void testInvalidRatesRejected() {
+        assertTrue(isRejected(-1, 1, 1000, 100));
+        assertTrue(isRejected(1, -1, 1000, 100));
+        assertTrue(isRejected(0, 0, 1000, 100));
+        assertTrue(isRejected(0, 10, 1000, 0));
+        assertTrue(isRejected(10, 0, 1000, 1000));
+        assertTrue(!isRejected(0, 10, 1000, 100));
+        assertTrue(!isRejected(10, 0, 1000, 100));
+
+        boolean rejected = false;
+        try {
+            new PoissonArrivals(-1);
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        assertTrue(rejected);
+    }
+
+    private boolean isRejected(double basePerSecond, double peakPerSecond, long periodMs,
+                               long waveMs) {
+        try {
+            new WaveArrivals(basePerSecond, peakPerSecond, periodMs, waveMs);
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+        return false;
+    }
+}
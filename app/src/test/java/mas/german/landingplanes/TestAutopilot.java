@@ -0,0 +1,90 @@
+package mas.german.landingplanes;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import mas.german.landingplanes.aircrafts.*;
+import mas.german.landingplanes.landingsites.*;
+import org.junit.Test;
+
+/**
+ * Unit Tests related to the Autopilot. The games are headless and stepped directly.
+ */
+public class TestAutopilot {
+    private static final int STEPS_PER_DECISION = 10;
+
+    /**
+     * An aircraft flying away from the only site it can use is brought back and lands.
+     */
+    @Test
+    public void testRoutesToCompatibleSite() {
+        Game game = new Game(null, SimulationClock.SYSTEM_TIME, 0);
+        game.addLandingSite(new Helipad(new Position(25, 25)));
+        game.addLandingSite(new LongRunway(new Position(50, 75), 0, Math.toRadians(90)));
+        // Closer to the helipad, but it can't land there.
+        game.onAircraftGenerated(new LargePlane(LargePlane.MIN_SPEED, Math.toRadians(135),
+            new Position(30, 30)));
+        Autopilot autopilot = new Autopilot(game);
+
+        assertEquals(2000, autopilot.run(2000, STEPS_PER_DECISION));
+        assertEquals(1, game.getScore());
+        assertTrue(autopilot.getCommandCount() > 0);
+    }
+
+    /**
+     * Two aircraft flying head-on crash on their own, and are turned apart by the autopilot.
+     */
+    @Test
+    public void testAvoidsHeadOnCrash() {
+        Game unattended = createHeadOn();
+        boolean crashed = false;
+        for (int step = 0; step < 1000 && !crashed; step++) {
+            crashed = !unattended.step();
+        }
+        assertTrue(crashed);
+
+        Game game = createHeadOn();
+        Autopilot autopilot = new Autopilot(game);
+        assertEquals(1000, autopilot.run(1000, STEPS_PER_DECISION));
+        assertTrue(autopilot.getCommandCount() > 0);
+    }
+
+    private Game createHeadOn() {
+        Game game = new Game(null, SimulationClock.SYSTEM_TIME, 0);
+        game.onAircraftGenerated(new LightPlane(LightPlane.MIN_SPEED, 0, new Position(10, 50)));
+        game.onAircraftGenerated(new LightPlane(LightPlane.MIN_SPEED, Math.PI,
+            new Position(90, 50)));
+        return game;
+    }
+
+    /**
+     * An unattended run lands aircraft, and it's commands are recorded like the ones of a player,
+     * so the run can be replayed.
+     */
+    @Test
+    public void testUnattendedRunIsReplayable() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ReplayJournal journal = new ReplayJournal(Channels.newChannel(output));
+        Game game = new Game(null, SimulationClock.SYSTEM_TIME, 42);
+        game.setJournal(journal);
+        game.initialize();
+        Autopilot autopilot = new Autopilot(game);
+        long steps = autopilot.run(10000, STEPS_PER_DECISION);
+        game.stop();
+        journal.close();
+
+        assertTrue(game.getScore() > 0);
+        assertTrue(autopilot.getHeadingCount() > autopilot.getCommandCount());
+
+        ReplaySimulator simulator = new ReplaySimulator(ByteBuffer.wrap(output.toByteArray()));
+        ReplaySimulator.Result result = simulator.replayNextGame();
+        assertEquals(game.getScore(), result.getScore());
+        assertTrue(result.matchesJournal());
+        assertFalse(simulator.hasNextGame());
+        assertTrue(steps > 0);
+    }
+}
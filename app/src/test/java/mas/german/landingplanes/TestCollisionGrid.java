@@ -0,0 +1,233 @@
+package mas.german.landingplanes;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import mas.german.landingplanes.aircrafts.*;
+import org.junit.Test;
+
+/**
+ * Unit Tests related to the Collision Grid.
+ */
+public class TestCollisionGrid {
+    private static final int ROUNDS = 200;
+    private static final int MAX_RADIUS = LargePlane.RADIUS;
+
+    /**
+     * Generates random traffic. Some aircraft are placed slightly outside the Aerodrome, as they
+     * are only removed after moving out of it.
+     */
+    private AircraftStore generateTraffic(Random random, Aerodrome aerodrome, int count) {
+        AircraftStore store = new AircraftStore();
+        for (int i = 0; i < count; i++) {
+            double x = aerodrome.getBoundaryLeft() - 5 + random.nextDouble() *
+                (aerodrome.getWidth() + 10);
+            double y = aerodrome.getBoundaryBottom() - 5 + random.nextDouble() *
+                (aerodrome.getHeight() + 10);
+            double direction = random.nextDouble() * 2 * Math.PI;
+            Position position = new Position(x, y);
+            switch (random.nextInt(3)) {
+                case 0:
+                    store.add(new LargePlane(LargePlane.MIN_SPEED, direction, position));
+                    break;
+                case 1:
+                    store.add(new LightPlane(LightPlane.MIN_SPEED, direction, position));
+                    break;
+                default:
+                    store.add(new Helicopter(Helicopter.MIN_SPEED, direction, position));
+                    break;
+            }
+        }
+        return store;
+    }
+
+    /**
+     * The grid must detect exactly the same crashes as testing every aircraft against every other.
+     */
+    @Test
+    public void testSameCrashesAsPairwiseLoop() {
+        Random random = new Random(42);
+        Aerodrome aerodrome = new Aerodrome(0, 100, 100, 0);
+        CollisionGrid grid = new CollisionGrid(aerodrome, MAX_RADIUS);
+
+        int crashingRounds = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            // From sparse to crowded traffic, so both outcomes are covered.
+            AircraftStore store = generateTraffic(random, aerodrome, 1 + round % 60);
+            grid.rebuild(store);
+
+            boolean anyCrash = false;
+            int pairs = 0;
+            for (int i = 0; i < store.size(); i++) {
+                boolean crashes = false;
+                for (int j = 0; j < store.size(); j++) {
+                    if (store.get(i).crashesWith(store.get(j))) {
+                        crashes = true;
+                        if (j > i) {
+                            pairs++;
+                        }
+                    }
+                }
+                assertEquals(crashes, grid.crashes(i));
+                anyCrash |= crashes;
+            }
+            assertEquals(anyCrash, grid.hasCrash());
+            assertEquals(pairs, grid.countCrashes());
+            if (anyCrash) {
+                crashingRounds++;
+            }
+        }
+        // Make sure the traffic actually exercised both cases.
+        assertTrue(crashingRounds > 0);
+        assertTrue(crashingRounds < ROUNDS);
+    }
+
+    /**
+     * Aircraft at the distance of both radius crash, even across cell borders.
+     */
+    @Test
+    public void testCrashAcrossCells() {
+        Aerodrome aerodrome = new Aerodrome(0, 100, 100, 0);
+        CollisionGrid grid = new CollisionGrid(aerodrome, MAX_RADIUS);
+        AircraftStore store = new AircraftStore();
+
+        // Cells are 10 units wide. These two are in different cells, at exactly 10 units.
+        store.add(new LargePlane(1, 0, new Position(5, 50)));
+        store.add(new LargePlane(1, 0, new Position(15, 50)));
+        grid.rebuild(store);
+        assertTrue(grid.hasCrash());
+
+        // Farther than both radius. No crash.
+        store.removeAt(1);
+        store.add(new LargePlane(1, 0, new Position(16, 50)));
+        grid.rebuild(store);
+        assertFalse(grid.hasCrash());
+    }
+
+    /**
+     * Aircraft that fly through each other during a long step crash, even if they are apart at
+     * it's end.
+     */
+    @Test
+    public void testCrashDuringStep() {
+        Aerodrome aerodrome = new Aerodrome(0, 100, 100, 0);
+        CollisionGrid grid = new CollisionGrid(aerodrome, MAX_RADIUS);
+        AircraftStore store = new AircraftStore();
+
+        // Head-on at 0.05 units/ms each. An 800 ms step takes them from 40 units apart to 40 units
+        // apart on the other side.
+        store.add(new LargePlane(0.05, 0, new Position(30, 50)));
+        store.add(new LargePlane(0.05, Math.PI, new Position(70, 50)));
+        store.moveAll(800);
+        grid.rebuild(store);
+        assertFalse(grid.hasCrash());
+        grid.rebuild(store, 800);
+        assertTrue(grid.hasCrash());
+    }
+
+    /**
+     * The grid must find the same aircraft as testing every aircraft against the point.
+     */
+    @Test
+    public void testFindNearestSameAsLoop() {
+        Random random = new Random(7);
+        Aerodrome aerodrome = new Aerodrome(0, 100, 100, 0);
+        CollisionGrid grid = new CollisionGrid(aerodrome, MAX_RADIUS);
+        AircraftStore store = generateTraffic(random, aerodrome, 40);
+        grid.rebuild(store);
+
+        int found = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            double x = random.nextDouble() * 100;
+            double y = random.nextDouble() * 100;
+            int nearest = -1;
+            double nearestDistance = Double.MAX_VALUE;
+            for (int i = 0; i < store.size(); i++) {
+                double distance = store.get(i).getPosition().distanceTo(new Position(x, y));
+                if ((distance <= store.getRadius(i) + 2) && (distance < nearestDistance)) {
+                    nearest = i;
+                    nearestDistance = distance;
+                }
+            }
+            assertEquals(nearest, grid.findNearest(store, x, y, 2));
+            if (nearest >= 0) {
+                found++;
+            }
+        }
+        // Make sure the points actually hit some aircraft.
+        assertTrue(found > 0);
+        assertTrue(found < ROUNDS);
+    }
+
+    /**
+     * Aircraft added or moved to another slot since the last rebuild must still be found, and
+     * removed ones must not.
+     */
+    @Test
+    public void testFindNearestBetweenRebuilds() {
+        Aerodrome aerodrome = new Aerodrome(0, 100, 100, 0);
+        CollisionGrid grid = new CollisionGrid(aerodrome, MAX_RADIUS);
+        AircraftStore store = new AircraftStore();
+        store.add(new LargePlane(1, 0, new Position(10, 10)));
+        store.add(new LargePlane(1, 0, new Position(50, 50)));
+        store.add(new LargePlane(1, 0, new Position(90, 90)));
+        grid.rebuild(store);
+        assertEquals(1, grid.findNearest(store, 51, 50, 0));
+
+        // The last aircraft is moved into the slot of the removed one.
+        store.removeAt(1);
+        grid.addUnindexed(1);
+        assertEquals(-1, grid.findNearest(store, 51, 50, 0));
+        assertEquals(1, grid.findNearest(store, 90, 91, 0));
+
+        store.add(new LightPlane(1, 0, new Position(30, 70)));
+        grid.addUnindexed(2);
+        assertEquals(2, grid.findNearest(store, 30, 70, 0));
+
+        grid.clear();
+        store.clear();
+        assertEquals(-1, grid.findNearest(store, 10, 10, 0));
+    }
+
+    /**
+     * The aircraft collected near a point are the ones a loop over all of them finds, also when
+     * the array given is too small for them.
+     */
+    @Test
+    public void testCollectNearSameAsLoop() {
+        Random random = new Random(11);
+        Aerodrome aerodrome = new Aerodrome(0, 1000, 1000, 0);
+        CollisionGrid grid = new CollisionGrid(aerodrome, 1);
+        int[] items = new int[4];
+        for (int round = 0; round < ROUNDS; round++) {
+            AircraftStore store = generateTraffic(random, aerodrome, 1 + round % 300);
+            grid.rebuild(store, 1000);
+            double x = random.nextDouble() * 1000;
+            double y = random.nextDouble() * 1000;
+            double range = random.nextDouble() * 200;
+
+            Set<Integer> expected = new HashSet<>();
+            for (int i = 0; i < store.size(); i++) {
+                double distance = Math.hypot(store.getX(i) - x, store.getY(i) - y);
+                if (distance <= store.getRadius(i) + range) {
+                    expected.add(i);
+                }
+            }
+            int count = grid.collectNear(x, y, range, items);
+            if (count > items.length) {
+                items = new int[count];
+                count = grid.collectNear(x, y, range, items);
+            }
+            Set<Integer> found = new HashSet<>();
+            for (int k = 0; k < count; k++) {
+                found.add(items[k]);
+            }
+            assertEquals(expected.size(), count);
+            assertEquals(expected, found);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package mas.german.landingplanes;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import mas.german.landingplanes.aircrafts.*;
+import org.junit.Test;
+
+/**
+ * Unit Tests related to the Conflict Detector.
+ */
+public class TestConflictDetector {
+    private static final long HORIZON = 2000;
+
+    /**
+     * Generates random traffic in the middle of a large Aerodrome, so no aircraft leaves it within
+     * the window of the detector.
+     */
+    private AircraftStore generateTraffic(Random random, int count) {
+        AircraftStore store = new AircraftStore();
+        for (int i = 0; i < count; i++) {
+            Position position = new Position(300 + random.nextDouble() * 400,
+                300 + random.nextDouble() * 400);
+            double direction = random.nextDouble() * 2 * Math.PI;
+            switch (random.nextInt(3)) {
+                case 0:
+                    store.add(new LargePlane(LargePlane.MAX_SPEED, direction, position));
+                    break;
+                case 1:
+                    store.add(new LightPlane(LightPlane.MAX_SPEED, direction, position));
+                    break;
+                default:
+                    store.add(new Helicopter(Helicopter.MAX_SPEED, direction, position));
+                    break;
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Returns the upcoming conflicts as strings of both IDs, in increasing order.
+     */
+    private Set<String> upcoming(ConflictDetector detector, long now) {
+        Set<String> pairs = new HashSet<>();
+        for (int k = 0; k < detector.getPairCount(); k++) {
+            if (detector.isUpcoming(k, now)) {
+                int first = detector.getFirstId(k);
+                int second = detector.getSecondId(k);
+                pairs.add(Math.min(first, second) + "-" + Math.max(first, second));
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Same conflicts solving every pair of aircraft over the horizon.
+     */
+    private Set<String> pairwise(AircraftStore store) {
+        Set<String> pairs = new HashSet<>();
+        for (int i = 0; i < store.size(); i++) {
+            for (int j = i + 1; j < store.size(); j++) {
+                Aircraft a = store.get(i);
+                Aircraft b = store.get(j);
+                double distance = Sweep.closestApproach(store.getX(j) - store.getX(i),
+                    store.getY(j) - store.getY(i), b.getVelocityX() - a.getVelocityX(),
+                    b.getVelocityY() - a.getVelocityY(), HORIZON);
+                if (distance <= a.getRadius() + b.getRadius()) {
+                    pairs.add(Math.min(a.getId(), b.getId()) + "-" +
+                        Math.max(a.getId(), b.getId()));
+                }
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * The broad phase must not miss any pair that a pairwise loop finds.
+     */
+    @Test
+    public void testSameConflictsAsPairwiseLoop() {
+        Random random = new Random(3);
+        Aerodrome aerodrome = new Aerodrome(0, 1000, 1000, 0);
+        int roundsWithConflicts = 0;
+        for (int round = 0; round < 50; round++) {
+            AircraftStore store = generateTraffic(random, 20 + 10 * round);
+            ConflictDetector detector = new ConflictDetector(aerodrome, HORIZON);
+            detector.update(store, 0);
+            Set<String> expected = pairwise(store);
+            assertEquals(expected, upcoming(detector, 0));
+            if (!expected.isEmpty()) {
+                roundsWithConflicts++;
+            }
+        }
+        assertTrue(roundsWithConflicts > 0);
+    }
+
+    /**
+     * Turning aircraft only solves their pairs again, and must give the same conflicts as solving
+     * all of them.
+     */
+    @Test
+    public void testIncrementalSameAsFull() {
+        Random random = new Random(11);
+        Aerodrome aerodrome = new Aerodrome(0, 1000, 1000, 0);
+        AircraftStore store = generateTraffic(random, 300);
+        ConflictDetector detector = new ConflictDetector(aerodrome, HORIZON);
+        detector.update(store, 0);
+
+        long now = 0;
+        for (int round = 0; round < 10; round++) {
+            store.moveAll(30);
+            now += 30;
+            for (int k = 0; k < 5; k++) {
+                Aircraft aircraft = store.get(random.nextInt(store.size()));
+                aircraft.changeDirection(new Position(300 + random.nextDouble() * 400,
+                    300 + random.nextDouble() * 400));
+                detector.legChanged(aircraft.getId());
+            }
+            detector.update(store, now);
+
+            ConflictDetector full = new ConflictDetector(aerodrome, HORIZON);
+            full.update(store, now);
+            assertEquals(upcoming(full, now), upcoming(detector, now));
+        }
+    }
+
+    /**
+     * Two aircraft flying head-on are in conflict from when their distance is both radius, until
+     * one of them turns away.
+     */
+    @Test
+    public void testHeadOnConflict() {
+        Aerodrome aerodrome = new Aerodrome(0, 100, 100, 0);
+        AircraftStore store = new AircraftStore();
+        // Closing at 0.1 units/ms from 60 units apart. They touch at 10 units, after 500 ms.
+        LargePlane first = new LargePlane(0.05, 0, new Position(20, 50));
+        LargePlane second = new LargePlane(0.05, Math.PI, new Position(80, 50));
+        store.add(first);
+        store.add(second);
+        ConflictDetector detector = new ConflictDetector(aerodrome, 400);
+        detector.update(store, 0);
+        assertTrue(upcoming(detector, 0).isEmpty());
+
+        detector.setHorizon(HORIZON);
+        detector.update(store, 0);
+        assertEquals(1, upcoming(detector, 0).size());
+        assertEquals(500, detector.getConflictTime(0));
+
+        // Pairs of a removed aircraft are dropped, and solved again when it comes back.
+        detector.remove(second.getId());
+        assertEquals(0, detector.getPairCount());
+        detector.legChanged(second.getId());
+        detector.update(store, 0);
+        assertEquals(1, upcoming(detector, 0).size());
+
+        // Turned away, the conflict is gone.
+        first.changeDirection(new Position(20, 0));
+        detector.legChanged(first.getId());
+        detector.update(store, 0);
+        assertTrue(upcoming(detector, 0).isEmpty());
+    }
+}
@@ -0,0 +1,270 @@
+package mas.german.landingplanes;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import mas.german.landingplanes.aircrafts.*;
+import mas.german.landingplanes.landingsites.*;
+import org.junit.Test;
+
+/**
+ * Unit Tests related to the Event Driven Simulation. Its outcomes are compared with the ones of the
+ * periodic update of the Game.
+ */
+public class TestEventDrivenSimulation {
+    private static final int SCENARIOS = 20;
+    private static final int STEPS = 30000;
+
+    /**
+     * Something the player or the generator does after a step: spawn an aircraft or turn one.
+     */
+    private static class Input {
+        long step;
+        Aircraft spawn;
+        int aircraftIndex;
+        Position target;
+    }
+
+    /**
+     * Game Listener that records the landings, exits and game over.
+     */
+    private static class RecordingListener implements Game.EventsListener {
+        List<String> mOutcomes = new ArrayList<>();
+        long mStep;
+        boolean mGameOver = false;
+
+        @Override
+        public void onGameStart() {
+        }
+
+        @Override
+        public void onGameOver() {
+            mGameOver = true;
+            mOutcomes.add("Crash at " + mStep);
+        }
+
+        @Override
+        public void onLongRunwayCreated(LongRunway longRunway) {
+        }
+
+        @Override
+        public void onShortRunwayCreated(ShortRunway shortRunway) {
+        }
+
+        @Override
+        public void onHelipadCreated(Helipad helipad) {
+        }
+
+        @Override
+        public void onLargePlaneGenerated(LargePlane largePlane) {
+        }
+
+        @Override
+        public void onLightPlaneGenerated(LightPlane lightPlane) {
+        }
+
+        @Override
+        public void onHelicopterGenerated(Helicopter helicopter) {
+        }
+
+        @Override
+        public void onAircraftPositionChanged() {
+        }
+
+        @Override
+        public void onAircraftSelect(int id, boolean state) {
+        }
+
+        @Override
+        public void onLand(int id) {
+            mOutcomes.add("Land " + id + " at " + mStep);
+        }
+
+        @Override
+        public void onAircraftOutsideAerodrome(int id) {
+            mOutcomes.add("Exit " + id + " at " + mStep);
+        }
+    }
+
+    /**
+     * Outcome Listener that records in the same format as the Game Listener.
+     */
+    private static class RecordingOutcomeListener
+        implements EventDrivenSimulation.OutcomeListener {
+        List<String> mOutcomes = new ArrayList<>();
+
+        @Override
+        public void onLand(int id, long step) {
+            mOutcomes.add("Land " + id + " at " + step);
+        }
+
+        @Override
+        public void onAircraftOutsideAerodrome(int id, long step) {
+            mOutcomes.add("Exit " + id + " at " + step);
+        }
+
+        @Override
+        public void onCrash(int id, int otherId, long step) {
+            mOutcomes.add("Crash at " + step);
+        }
+    }
+
+    private List<LandingSite> createSites() {
+        List<LandingSite> sites = new ArrayList<>();
+        sites.add(new LongRunway(new Position(50, 75), 0, Math.toRadians(90)));
+        sites.add(new ShortRunway(new Position(75, 25), Math.toRadians(90), Math.toRadians(90)));
+        sites.add(new Helipad(new Position(25, 25)));
+        return sites;
+    }
+
+    /**
+     * Creates the inputs of a run: a spawn every one to two seconds, and turns of random aircraft,
+     * half of them towards a landing site.
+     */
+    private List<Input> createInputs(Random random, Aerodrome aerodrome, List<LandingSite> sites) {
+        AircraftGenerator generator = new AircraftGenerator(aerodrome, random.nextLong());
+        List<Input> inputs = new ArrayList<>();
+        int spawned = 0;
+        long nextSpawn = 0;
+        for (long step = 0; step < STEPS; step++) {
+            if (step == nextSpawn) {
+                Input input = new Input();
+                input.step = step;
+                input.spawn = generator.generateRandomAircraft();
+                inputs.add(input);
+                spawned++;
+                nextSpawn += 100 + random.nextInt(100);
+            } else if (spawned > 0 && random.nextInt(50) == 0) {
+                Input input = new Input();
+                input.step = step;
+                input.aircraftIndex = random.nextInt(spawned);
+                if (random.nextBoolean()) {
+                    input.target = sites.get(random.nextInt(sites.size())).getPosition();
+                } else {
+                    input.target = new Position(random.nextDouble() * aerodrome.getWidth(),
+                        random.nextDouble() * aerodrome.getHeight());
+                }
+                inputs.add(input);
+            }
+        }
+        return inputs;
+    }
+
+    private List<String> runEventDriven(Aerodrome aerodrome, List<LandingSite> sites,
+                                        List<Input> inputs) {
+        EventDrivenSimulation simulation = new EventDrivenSimulation(aerodrome, Game.STEP_MS);
+        RecordingOutcomeListener listener = new RecordingOutcomeListener();
+        simulation.setListener(listener);
+        for (LandingSite site : sites) {
+            simulation.addLandingSite(site);
+        }
+
+        List<Aircraft> spawned = new ArrayList<>();
+        for (Input input : inputs) {
+            simulation.advanceTo(input.step);
+            if (input.spawn != null) {
+                spawned.add(input.spawn);
+                simulation.spawn(input.spawn);
+            } else {
+                simulation.changeDirection(spawned.get(input.aircraftIndex).getId(), input.target);
+            }
+        }
+        simulation.advanceTo(STEPS);
+        return listener.mOutcomes;
+    }
+
+    private List<String> runPeriodic(List<LandingSite> sites, List<Input> inputs) {
+        Game game = new Game(SimulationClock.SYSTEM_TIME);
+        RecordingListener listener = new RecordingListener();
+        game.setListener(listener);
+        for (LandingSite site : sites) {
+            game.addLandingSite(site);
+        }
+
+        List<Aircraft> spawned = new ArrayList<>();
+        Map<Integer, Aircraft> flying = new HashMap<>();
+        int nextInput = 0;
+        for (long step = 0; step <= STEPS && !listener.mGameOver; step++) {
+            if (step > 0) {
+                listener.mStep = step;
+                game.update(Game.STEP_MS);
+            }
+            // Forget the aircraft that are no longer in the game.
+            for (Aircraft aircraft : new ArrayList<>(flying.values())) {
+                if (listener.mOutcomes.contains("Land " + aircraft.getId() + " at " + step) ||
+                    listener.mOutcomes.contains("Exit " + aircraft.getId() + " at " + step)) {
+                    flying.remove(aircraft.getId());
+                }
+            }
+            while (nextInput < inputs.size() && inputs.get(nextInput).step == step &&
+                !listener.mGameOver) {
+                Input input = inputs.get(nextInput++);
+                if (input.spawn != null) {
+                    spawned.add(input.spawn);
+                    flying.put(input.spawn.getId(), input.spawn);
+                    game.onAircraftGenerated(input.spawn);
+                } else {
+                    Aircraft aircraft = flying.get(spawned.get(input.aircraftIndex).getId());
+                    if (aircraft != null) {
+                        aircraft.changeDirection(input.target);
+                    }
+                }
+            }
+        }
+        return listener.mOutcomes;
+    }
+
+    /**
+     * Both engines must produce the same landings, exits and crashes, at the same steps.
+     */
+    @Test
+    public void testSameOutcomesAsPeriodicUpdate() {
+        Random random = new Random(2016);
+        Aerodrome aerodrome = new Aerodrome(0, 100, 100, 0);
+        int landings = 0;
+        int crashes = 0;
+        for (int scenario = 0; scenario < SCENARIOS; scenario++) {
+            List<LandingSite> sites = createSites();
+            List<Input> inputs = createInputs(random, aerodrome, sites);
+
+            // The event driven run goes first, as it only reads the initial state of the aircraft.
+            List<String> eventDriven = runEventDriven(aerodrome, sites, inputs);
+            List<String> periodic = runPeriodic(sites, inputs);
+            assertEquals(periodic, eventDriven);
+
+            for (String outcome : periodic) {
+                if (outcome.startsWith("Land")) {
+                    landings++;
+                } else if (outcome.startsWith("Crash")) {
+                    crashes++;
+                }
+            }
+        }
+        // Make sure the scenarios covered landings and crashes.
+        assertTrue(landings > 0);
+        assertTrue(crashes > 0);
+    }
+
+    /**
+     * The simulation jumps directly to the next event.
+     */
+    @Test
+    public void testJumpsToNextEvent() {
+        EventDrivenSimulation simulation = new EventDrivenSimulation(
+            new Aerodrome(0, 100, 100, 0), 30);
+        simulation.addLandingSite(new Helipad(new Position(50, 50)));
+
+        // A helicopter flying right at 0.025 units/ms reaches the helipad's range (3 units) after
+        // 47 units, which is 1880 ms. That's during the step 63 of 30 ms.
+        simulation.spawn(new Helicopter(0.025, 0, new Position(0, 50)));
+        assertEquals(63, simulation.getNextEventStep());
+        simulation.advanceTo(1000000);
+        assertEquals(1, simulation.getScore());
+        assertEquals(0, simulation.getAircraftCount());
+    }
+}
@@ -0,0 +1,183 @@
+package mas.german.landingplanes;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+/**
+ * Unit Tests related to the Game Host. The sessions run on the real clock, so the tests wait for
+ * a few updates of each one.
+ */
+public class TestGameHost {
+    private static final int SESSIONS = 3;
+    private static final int UPDATES = 10;
+    private static final long TIMEOUT_MS = 5000;
+
+    /**
+     * Batch Listener that counts the updates of a session and records the threads they run on.
+     */
+    private static class CountingListener implements Game.BatchListener {
+        final CountDownLatch mUpdates = new CountDownLatch(UPDATES);
+        final Set<Thread> mThreads = Collections.synchronizedSet(new HashSet<Thread>());
+
+        @Override
+        public void onTick(TickResult result) {
+            mThreads.add(Thread.currentThread());
+            mUpdates.countDown();
+        }
+
+        boolean awaitUpdates() throws InterruptedException {
+            return mUpdates.await(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private CountingListener startCounting(Game session) {
+        CountingListener listener = new CountingListener();
+        session.setBatchListener(listener);
+        return listener;
+    }
+    /**
+     * Sessions are independent games, counted until they are closed.
+     */
+    @Test
+    public void testSessions() {
+        GameHost host = new GameHost(1);
+        Game first = host.createSession(1);
+        Game second = host.createSession(2);
+        assertNotSame(first, second);
+        assertEquals(2, host.getSessionCount());
+
+        host.closeSession(first);
+        assertEquals(1, host.getSessionCount());
+        // Closing a session twice does nothing.
+        host.closeSession(first);
+        assertEquals(1, host.getSessionCount());
+        host.shutdown();
+        assertEquals(0, host.getSessionCount());
+    }
+
+    /**
+     * No sessions can be created after the host is shut down.
+     */
+    @Test
+    public void testNoSessionsAfterShutdown() {
+        GameHost host = new GameHost(1);
+        host.shutdown();
+        boolean thrown = false;
+        try {
+            host.createSession();
+        } catch (IllegalStateException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+    }
+
+    /**
+     * The sessions of a host with a single thread are all updated, on that thread.
+     */
+    @Test
+    public void testSessionsShareThread() throws InterruptedException {
+        GameHost host = new GameHost(1);
+        List<CountingListener> listeners = new ArrayList<>();
+        for (int i = 0; i < SESSIONS; i++) {
+            Game session = host.createSession(i);
+            listeners.add(startCounting(session));
+            session.initialize();
+        }
+        for (CountingListener listener : listeners) {
+            assertTrue(listener.awaitUpdates());
+        }
+        host.shutdown();
+
+        Set<Thread> threads = new HashSet<>();
+        for (CountingListener listener : listeners) {
+            synchronized (listener.mThreads) {
+                threads.addAll(listener.mThreads);
+            }
+        }
+        assertEquals(1, threads.size());
+    }
+
+    /**
+     * An exception thrown by the listener of a session only stops that session. The others keep
+     * being updated on the same thread.
+     */
+    @Test
+    public void testFailingSessionDoesNotStopOthers() throws InterruptedException {
+        GameHost host = new GameHost(1);
+        final AtomicInteger failures = new AtomicInteger();
+        final CountDownLatch failed = new CountDownLatch(1);
+        Game failing = host.createSession(0);
+        failing.setBatchListener(new Game.BatchListener() {
+            @Override
+            public void onTick(TickResult result) {
+                failures.incrementAndGet();
+                failed.countDown();
+                throw new IllegalStateException("Failure of the listener.");
+            }
+        });
+        Game healthy = host.createSession(1);
+        failing.initialize();
+        healthy.initialize();
+        assertTrue(failed.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+
+        // Only the updates after the failure are counted.
+        CountingListener listener = startCounting(healthy);
+        assertTrue(listener.awaitUpdates());
+        host.shutdown();
+        assertEquals(1, failures.get());
+    }
+
+    /**
+     * A session whose listener blocks holds one of the threads of the host. The other sessions
+     * keep being updated on the rest.
+     */
+    @Test
+    public void testBlockedSessionDoesNotStallOthers() throws InterruptedException {
+        GameHost host = new GameHost(2);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Game blocking = host.createSession(0);
+        blocking.setBatchListener(new Game.BatchListener() {
+            @Override
+            public void onTick(TickResult result) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        List<CountingListener> listeners = new ArrayList<>();
+        List<Game> sessions = new ArrayList<>();
+        for (int i = 1; i <= SESSIONS; i++) {
+            sessions.add(host.createSession(i));
+        }
+        blocking.initialize();
+        assertTrue(blocked.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+
+        try {
+            for (Game session : sessions) {
+                listeners.add(startCounting(session));
+                session.initialize();
+            }
+            for (CountingListener listener : listeners) {
+                assertTrue(listener.awaitUpdates());
+            }
+        } finally {
+            release.countDown();
+            host.shutdown();
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package mas.german.landingplanes;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import mas.german.landingplanes.aircrafts.*;
+import mas.german.landingplanes.landingsites.*;
+import org.junit.Test;
+
+/**
+ * Unit Tests related to the Parallel Update. Its outcomes are compared with the ones of the
+ * sequential update.
+ */
+public class TestParallelUpdate {
+    private static final int SCENARIOS = 5;
+    private static final int AIRCRAFT = 1600;
+    // Aircraft per row of the formation, and distance between them.
+    private static final int ROW = 40;
+    private static final double SPACING = 25;
+    private static final int SITES = 60;
+    private static final int STEPS = 6000;
+
+    /**
+     * Game Listener that records the landings, exits and game over. The IDs are recorded relative
+     * to the first aircraft, so two runs with different aircraft instances can be compared.
+     */
+    private static class RecordingListener implements Game.EventsListener {
+        List<String> mOutcomes = new ArrayList<>();
+        int mFirstId;
+        long mStep;
+        boolean mGameOver = false;
+
+        @Override
+        public void onGameStart() {
+        }
+
+        @Override
+        public void onGameOver() {
+            mGameOver = true;
+            mOutcomes.add("Crash at " + mStep);
+        }
+
+        @Override
+        public void onLongRunwayCreated(LongRunway longRunway) {
+        }
+
+        @Override
+        public void onShortRunwayCreated(ShortRunway shortRunway) {
+        }
+
+        @Override
+        public void onHelipadCreated(Helipad helipad) {
+        }
+
+        @Override
+        public void onLargePlaneGenerated(LargePlane largePlane) {
+        }
+
+        @Override
+        public void onLightPlaneGenerated(LightPlane lightPlane) {
+        }
+
+        @Override
+        public void onHelicopterGenerated(Helicopter helicopter) {
+        }
+
+        @Override
+        public void onAircraftPositionChanged() {
+        }
+
+        @Override
+        public void onAircraftSelect(int id, boolean state) {
+        }
+
+        @Override
+        public void onLand(int id) {
+            mOutcomes.add("Land " + (id - mFirstId) + " at " + mStep);
+        }
+
+        @Override
+        public void onAircraftOutsideAerodrome(int id) {
+            mOutcomes.add("Exit " + (id - mFirstId) + " at " + mStep);
+        }
+    }
+
+    /**
+     * Runs a scenario given by the seed, so both runs get equal aircraft and sites.
+     */
+    private RecordingListener run(long seed, ParallelUpdate parallelUpdate) {
+        RecordingListener listener = new RecordingListener();
+        play(createScenario(seed, parallelUpdate, listener), listener);
+        return listener;
+    }
+
+    /**
+     * Creates the game of a scenario. The IDs are relative to the first aircraft, so the aircraft
+     * of a scenario must be created together, on a single thread.
+     */
+    private Game createScenario(long seed, ParallelUpdate parallelUpdate,
+                                RecordingListener listener) {
+        Random random = new Random(seed);
+        Aerodrome aerodrome = new Aerodrome(0, 1000, 1000, 0);
+        Game game = new Game(Executors.newScheduledThreadPool(1), SimulationClock.SYSTEM_TIME,
+            seed, aerodrome);
+        game.setParallelUpdate(parallelUpdate);
+        game.setListener(listener);
+
+        for (int i = 0; i < SITES; i++) {
+            Position position = new Position(random.nextDouble() * 1000,
+                random.nextDouble() * 1000);
+            double direction = Math.toRadians(90 * random.nextInt(4));
+            switch (random.nextInt(3)) {
+                case 0:
+                    game.addLandingSite(new LongRunway(position, direction, Math.toRadians(90)));
+                    break;
+                case 1:
+                    game.addLandingSite(new ShortRunway(position, direction, Math.toRadians(90)));
+                    break;
+                default:
+                    game.addLandingSite(new Helipad(position));
+                    break;
+            }
+        }
+        // The aircraft fly in formation, all in the same direction and at the same speed, so they
+        // land and leave the aerodrome for a long time before the crash.
+        double speed = 0.02 + 0.03 * random.nextDouble();
+        double direction = Math.toRadians(90 * random.nextInt(4));
+        for (int i = 0; i < AIRCRAFT; i++) {
+            Position position = new Position(SPACING / 2 + SPACING * (i % ROW),
+                SPACING / 2 + SPACING * (i / ROW));
+            Aircraft aircraft;
+            switch (random.nextInt(3)) {
+                case 0:
+                    aircraft = new LargePlane(speed, direction, position);
+                    break;
+                case 1:
+                    aircraft = new LightPlane(speed, direction, position);
+                    break;
+                default:
+                    aircraft = new Helicopter(speed, direction, position);
+                    break;
+            }
+            if (i == 0) {
+                listener.mFirstId = aircraft.getId();
+            }
+            game.onAircraftGenerated(aircraft);
+        }
+        // A last aircraft flies across the formation.
+        game.onAircraftGenerated(new Helicopter(speed, direction + Math.toRadians(90),
+            new Position(random.nextDouble() * 1000, random.nextDouble() * 1000)));
+
+        return game;
+    }
+
+    /**
+     * Updates the game until it's over, or for the steps of the scenario.
+     */
+    private void play(Game game, RecordingListener listener) {
+        for (long step = 1; step <= STEPS && !listener.mGameOver; step++) {
+            listener.mStep = step;
+            game.update(Game.STEP_MS);
+        }
+    }
+
+    /**
+     * Both updates must produce the same landings, exits and crashes, in the same order.
+     */
+    @Test
+    public void testSameOutcomesAsSequentialUpdate() {
+        ParallelUpdate parallelUpdate = new ParallelUpdate(new ForkJoinPool(4), 0);
+        int landings = 0;
+        int exits = 0;
+        int crashes = 0;
+        for (int scenario = 0; scenario < SCENARIOS; scenario++) {
+            List<String> sequential = run(scenario, null).mOutcomes;
+            List<String> parallel = run(scenario, parallelUpdate).mOutcomes;
+            assertEquals(sequential, parallel);
+
+            for (String outcome : sequential) {
+                if (outcome.startsWith("Land")) {
+                    landings++;
+                } else if (outcome.startsWith("Exit")) {
+                    exits++;
+                } else {
+                    crashes++;
+                }
+            }
+        }
+        // Make sure the scenarios covered landings, exits and crashes.
+        assertTrue(landings > 0);
+        assertTrue(exits > 0);
+        assertTrue(crashes > 0);
+    }
+
+    /**
+     * Games updating at the same time on their own threads can share a ParallelUpdate.
+     */
+    @Test
+    public void testSharedByConcurrentGames() throws InterruptedException {
+        ParallelUpdate parallelUpdate = new ParallelUpdate(new ForkJoinPool(4), 0);
+        List<RecordingListener> listeners = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int scenario = 0; scenario < SCENARIOS; scenario++) {
+            final RecordingListener listener = new RecordingListener();
+            final Game game = createScenario(scenario, parallelUpdate, listener);
+            listeners.add(listener);
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    play(game, listener);
+                }
+            }));
+        }
+        // The games are all created before any of them starts, so their IDs aren't interleaved.
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (int scenario = 0; scenario < SCENARIOS; scenario++) {
+            assertEquals(run(scenario, null).mOutcomes, listeners.get(scenario).mOutcomes);
+        }
+    }
+
+    /**
+     * Below the threshold the sequential update is used.
+     */
+    @Test
+    public void testThreshold() {
+        ParallelUpdate parallelUpdate = new ParallelUpdate(new ForkJoinPool(2), 100);
+        assertTrue(!parallelUpdate.isActive(99));
+        assertTrue(parallelUpdate.isActive(100));
+    }
+}
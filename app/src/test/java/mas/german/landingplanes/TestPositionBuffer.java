@@ -0,0 +1,107 @@
+package mas.german.landingplanes;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import mas.german.landingplanes.aircrafts.Aircraft;
+import mas.german.landingplanes.aircrafts.LightPlane;
+import org.junit.Test;
+
+/**
+ * Unit Tests related to the Position Buffer.
+ */
+public class TestPositionBuffer {
+    private static final int PUBLISHES = 200000;
+    private static final int AIRCRAFT = 50;
+
+    /**
+     * Fills the back snapshot with positions derived from the time, so a reader can tell if a
+     * snapshot mixes two updates.
+     */
+    private void publish(PositionBuffer buffer, long time) {
+        PositionSnapshot snapshot = buffer.getBack();
+        snapshot.reset(time, 1, AIRCRAFT);
+        for (int i = 0; i < AIRCRAFT; i++) {
+            snapshot.set(i, i, time, -time, 0);
+        }
+        buffer.publish();
+    }
+
+    /**
+     * The reader gets the latest snapshot, and the same one until something new is published.
+     */
+    @Test
+    public void testLatestSnapshot() {
+        PositionBuffer buffer = new PositionBuffer();
+        publish(buffer, 1);
+        publish(buffer, 2);
+        PositionSnapshot snapshot = buffer.acquire();
+        assertEquals(2, snapshot.getTime());
+        assertEquals(AIRCRAFT, snapshot.size());
+        assertSame(snapshot, buffer.acquire());
+
+        publish(buffer, 3);
+        assertEquals(3, buffer.acquire().getTime());
+    }
+
+    /**
+     * A reader running at the same time as the writer never sees a partially written snapshot,
+     * nor an older one than before.
+     */
+    @Test
+    public void testConcurrentReader() throws InterruptedException {
+        final PositionBuffer buffer = new PositionBuffer();
+        final AtomicBoolean done = new AtomicBoolean(false);
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (long time = 1; time <= PUBLISHES; time++) {
+                    publish(buffer, time);
+                }
+                done.set(true);
+            }
+        });
+        writer.start();
+
+        long lastTime = 0;
+        boolean consistent = true;
+        while (!done.get() || lastTime < PUBLISHES) {
+            PositionSnapshot snapshot = buffer.acquire();
+            long time = snapshot.getTime();
+            assertTrue(time >= lastTime);
+            lastTime = time;
+            for (int i = 0; i < snapshot.size(); i++) {
+                if (snapshot.getX(i) != time || snapshot.getY(i) != -time) {
+                    consistent = false;
+                }
+            }
+        }
+        writer.join();
+        assertTrue(consistent);
+        assertEquals(PUBLISHES, lastTime);
+    }
+
+    /**
+     * The game publishes the direction of each aircraft and the time scale, so a view can draw the
+     * aircraft facing where they fly and move them smoothly between the updates.
+     */
+    @Test
+    public void testGamePublishesDirections() {
+        ManualTimeSource timeSource = new ManualTimeSource();
+        Game game = new Game(null, timeSource, 0);
+        game.setTimeScale(2);
+        Aircraft aircraft = new LightPlane(0.01, Math.PI / 2, new Position(50, 20));
+        game.onAircraftGenerated(aircraft);
+
+        timeSource.advance(Game.STEP_MS);
+        game.tick();
+        PositionSnapshot snapshot = game.getPositionSnapshot();
+        assertEquals(1, snapshot.size());
+        assertEquals(aircraft.getId(), snapshot.getId(0));
+        assertEquals(Math.PI / 2, snapshot.getDirection(0), 1e-9);
+        assertEquals(2.0, snapshot.getTimeScale(), 1e-9);
+        assertEquals(2 * Game.STEP_MS, snapshot.getTime());
+    }
+}
@@ -0,0 +1,165 @@
+package mas.german.landingplanes;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import mas.german.landingplanes.aircrafts.*;
+import mas.german.landingplanes.landingsites.*;
+import org.junit.Test;
+
+/**
+ * Unit Tests related to the Replay Journal. A recorded game is replayed and both must go through
+ * the same events.
+ */
+public class TestReplayJournal {
+    private static final int MAX_STEPS = 200;
+
+    /**
+     * Game Listener that records the landings, exits and game over, with the step they happen at.
+     */
+    private static class RecordingListener implements Game.EventsListener {
+        List<String> mEvents = new ArrayList<>();
+        // Game being recorded, or simulator replaying it.
+        Game mGame;
+        ReplaySimulator mSimulator;
+        volatile boolean mGameOver = false;
+
+        long getStep() {
+            return (mGame != null) ? mGame.getStepCount() : mSimulator.getGame().getStepCount();
+        }
+
+        @Override
+        public void onGameStart() {
+        }
+
+        @Override
+        public void onGameOver() {
+            mGameOver = true;
+            mEvents.add("Crash at " + getStep());
+        }
+
+        @Override
+        public void onLongRunwayCreated(LongRunway longRunway) {
+        }
+
+        @Override
+        public void onShortRunwayCreated(ShortRunway shortRunway) {
+        }
+
+        @Override
+        public void onHelipadCreated(Helipad helipad) {
+        }
+
+        @Override
+        public void onLargePlaneGenerated(LargePlane largePlane) {
+        }
+
+        @Override
+        public void onLightPlaneGenerated(LightPlane lightPlane) {
+        }
+
+        @Override
+        public void onHelicopterGenerated(Helicopter helicopter) {
+        }
+
+        @Override
+        public void onAircraftPositionChanged() {
+        }
+
+        @Override
+        public void onAircraftSelect(int id, boolean state) {
+        }
+
+        @Override
+        public void onLand(int id) {
+            mEvents.add("Land at " + getStep());
+        }
+
+        @Override
+        public void onAircraftOutsideAerodrome(int id) {
+            mEvents.add("Exit at " + getStep());
+        }
+    }
+
+    /**
+     * Plays a game with a landing, an exit, a command and a crash, recording it.
+     */
+    private byte[] record(RecordingListener listener) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ReplayJournal journal = new ReplayJournal(Channels.newChannel(output));
+        ManualTimeSource timeSource = new ManualTimeSource();
+        ScheduledExecutorService executor = Executors.newScheduledThreadPool(1);
+        Game game = new Game(executor, timeSource, 3);
+        listener.mGame = game;
+        game.setListener(listener);
+        game.setJournal(journal);
+        game.initialize();
+
+        // Leaves the aerodrome through the right edge.
+        game.onAircraftGenerated(new LightPlane(0.04, 0, new Position(95, 50)));
+        // Flies away from the helipad, until it's sent to it.
+        game.onAircraftGenerated(new Helicopter(0.03, 0, new Position(10, 10)));
+        // Crash head-on.
+        game.onAircraftGenerated(new LargePlane(0.05, 0, new Position(5, 90)));
+        game.onAircraftGenerated(new LargePlane(0.05, Math.PI, new Position(95, 90)));
+
+        for (int step = 1; step <= MAX_STEPS && !listener.mGameOver; step++) {
+            timeSource.advance(Game.STEP_MS);
+            game.tick();
+            if (step == 2) {
+                Position helicopter = new Position(10 + 0.03 * 2 * Game.STEP_MS, 10);
+                assertTrue(game.selectAircraftAtPosition(helicopter));
+                game.orientateSelectedAircraft(new Position(25, 25));
+            }
+        }
+        game.stop();
+        executor.shutdown();
+        journal.close();
+        return output.toByteArray();
+    }
+
+    /**
+     * The replay goes through the same events, at the same steps.
+     */
+    @Test
+    public void testReplayMatchesGame() throws Exception {
+        RecordingListener recorded = new RecordingListener();
+        byte[] journal = record(recorded);
+        assertTrue(recorded.mGameOver);
+        assertTrue(recorded.mEvents.contains("Exit at 5"));
+
+        ReplaySimulator simulator = new ReplaySimulator(ByteBuffer.wrap(journal));
+        RecordingListener replayed = new RecordingListener();
+        replayed.mSimulator = simulator;
+        simulator.setListener(replayed);
+        assertTrue(simulator.hasNextGame());
+        ReplaySimulator.Result result = simulator.replayNextGame();
+        assertEquals(recorded.mEvents, replayed.mEvents);
+        assertTrue(result.isGameOver());
+        assertTrue(result.matchesJournal());
+        assertEquals(1, result.getScore());
+        assertFalse(simulator.hasNextGame());
+    }
+
+    /**
+     * A journal cut in the middle of a record is replayed up to it's last full record.
+     */
+    @Test
+    public void testTruncatedJournal() throws Exception {
+        byte[] journal = record(new RecordingListener());
+        ByteBuffer truncated = ByteBuffer.wrap(journal, 0, journal.length - 3).slice();
+        ReplaySimulator simulator = new ReplaySimulator(truncated);
+        ReplaySimulator.Result result = simulator.replayNextGame();
+        // The record of the crash was cut, so the replay stops before it.
+        assertFalse(result.isGameOver());
+        assertTrue(result.matchesJournal());
+    }
+}
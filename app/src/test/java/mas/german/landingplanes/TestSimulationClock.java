@@ -0,0 +1,75 @@
+package mas.german.landingplanes;
+
+import static junit.framework.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Unit Tests related to the Simulation Clock.
+ */
+public class TestSimulationClock {
+    private static final long STEP_MS = 10;
+    private static final int MAX_STEPS = 5;
+
+    /**
+     * The clock only counts the time since it was started, not since the origin of the source.
+     */
+    @Test
+    public void testStartsFromCurrentTime() {
+        ManualTimeSource timeSource = new ManualTimeSource(1000000);
+        SimulationClock clock = new SimulationClock(timeSource, STEP_MS, MAX_STEPS);
+        clock.start();
+        assertEquals(0, clock.advance());
+        timeSource.advance(STEP_MS);
+        assertEquals(1, clock.advance());
+    }
+
+    /**
+     * The time that doesn't fill a step is kept, so jittery updates simulate the same steps.
+     */
+    @Test
+    public void testAccumulatesPartialSteps() {
+        ManualTimeSource timeSource = new ManualTimeSource(0);
+        SimulationClock clock = new SimulationClock(timeSource, STEP_MS, MAX_STEPS);
+        clock.start();
+
+        timeSource.advance(25);
+        assertEquals(2, clock.advance());
+        timeSource.advance(4);
+        assertEquals(0, clock.advance());
+        timeSource.advance(11);
+        assertEquals(2, clock.advance());
+        assertEquals(40, clock.getSimulationTime());
+    }
+
+    /**
+     * After a stall, the steps are bounded and the time that couldn't be simulated is dropped.
+     */
+    @Test
+    public void testBoundsStepsAfterStall() {
+        ManualTimeSource timeSource = new ManualTimeSource(0);
+        SimulationClock clock = new SimulationClock(timeSource, STEP_MS, MAX_STEPS);
+        clock.start();
+
+        timeSource.advance(1005);
+        assertEquals(MAX_STEPS, clock.advance());
+        // Only the fraction of a step is kept.
+        timeSource.advance(5);
+        assertEquals(1, clock.advance());
+    }
+
+    /**
+     * Scaled time runs more steps for the same real time.
+     */
+    @Test
+    public void testTimeScale() {
+        ManualTimeSource timeSource = new ManualTimeSource(0);
+        SimulationClock clock = new SimulationClock(timeSource, STEP_MS, MAX_STEPS);
+        clock.setTimeScale(4);
+        clock.start();
+
+        timeSource.advance(10);
+        assertEquals(4, clock.advance());
+        assertEquals(4, clock.getStepCount());
+    }
+}
@@ -0,0 +1,88 @@
+package mas.german.landingplanes;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import mas.german.landingplanes.aircrafts.*;
+import mas.german.landingplanes.landingsites.*;
+import org.junit.Test;
+
+/**
+ * Unit Tests related to the Site Index.
+ */
+public class TestSiteIndex {
+    private static final int SITES = 40;
+    private static final int AIRCRAFT = 20000;
+    // Long steps, so aircraft can reach a site in the middle of the step.
+    private static final long SAMPLE_TIME = 100;
+
+    /**
+     * The index finds the same site as checking every site in order. The checks cover the movement
+     * of the whole step.
+     */
+    @Test
+    public void testSameSiteAsFullScan() {
+        Random random = new Random(2016);
+        Aerodrome aerodrome = new Aerodrome(0, 200, 200, 0);
+        SiteIndex index = new SiteIndex(aerodrome, LargePlane.RADIUS);
+        // The fastest aircraft flies 4 units in a step.
+        index.fitRange(LargePlane.RADIUS + 4);
+        List<LandingSite> sites = new ArrayList<>();
+        for (int i = 0; i < SITES; i++) {
+            // Sites are close to each other, so some aircraft are in range of several of them.
+            Position position = new Position(random.nextDouble() * 60, random.nextDouble() * 60);
+            double direction = Math.toRadians(90 * random.nextInt(4));
+            LandingSite site;
+            switch (random.nextInt(3)) {
+                case 0:
+                    site = new LongRunway(position, direction, Math.toRadians(90));
+                    break;
+                case 1:
+                    site = new ShortRunway(position, direction, Math.toRadians(90));
+                    break;
+                default:
+                    site = new Helipad(position);
+                    break;
+            }
+            sites.add(site);
+            index.add(site);
+        }
+
+        int landings = 0;
+        for (int i = 0; i < AIRCRAFT; i++) {
+            // Some aircraft are outside the aerodrome.
+            Position position = new Position(random.nextDouble() * 70 - 5,
+                random.nextDouble() * 70 - 5);
+            double direction = 2 * Math.PI * random.nextDouble();
+            Aircraft aircraft;
+            switch (random.nextInt(3)) {
+                case 0:
+                    aircraft = new LargePlane(0.04, direction, position);
+                    break;
+                case 1:
+                    aircraft = new LightPlane(0.03, direction, position);
+                    break;
+                default:
+                    aircraft = new Helicopter(0.02, direction, position);
+                    break;
+            }
+
+            int expected = -1;
+            for (int s = 0; s < sites.size(); s++) {
+                if (aircraft.landedDuring(sites.get(s), SAMPLE_TIME)) {
+                    expected = s;
+                    break;
+                }
+            }
+            assertEquals(expected,
+                index.findLanding(aircraft, position.getX(), position.getY(), SAMPLE_TIME));
+            if (expected >= 0) {
+                landings++;
+            }
+        }
+        assertTrue(landings > 0);
+    }
+}
@@ -0,0 +1,141 @@
+package mas.german.landingplanes;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import mas.german.landingplanes.aircrafts.*;
+import mas.german.landingplanes.landingsites.*;
+import org.junit.Test;
+
+/**
+ * Unit Tests related to the batched delivery of the game events.
+ */
+public class TestTickResult {
+    /**
+     * Game Listener that counts the events that are delivered in the batches.
+     */
+    private static class CountingListener implements Game.EventsListener {
+        int mBatchedEvents = 0;
+
+        @Override
+        public void onGameStart() {
+        }
+
+        @Override
+        public void onGameOver() {
+        }
+
+        @Override
+        public void onLongRunwayCreated(LongRunway longRunway) {
+        }
+
+        @Override
+        public void onShortRunwayCreated(ShortRunway shortRunway) {
+        }
+
+        @Override
+        public void onHelipadCreated(Helipad helipad) {
+        }
+
+        @Override
+        public void onLargePlaneGenerated(LargePlane largePlane) {
+            mBatchedEvents++;
+        }
+
+        @Override
+        public void onLightPlaneGenerated(LightPlane lightPlane) {
+            mBatchedEvents++;
+        }
+
+        @Override
+        public void onHelicopterGenerated(Helicopter helicopter) {
+            mBatchedEvents++;
+        }
+
+        @Override
+        public void onAircraftPositionChanged() {
+            mBatchedEvents++;
+        }
+
+        @Override
+        public void onAircraftSelect(int id, boolean state) {
+        }
+
+        @Override
+        public void onLand(int id) {
+            mBatchedEvents++;
+        }
+
+        @Override
+        public void onAircraftOutsideAerodrome(int id) {
+            mBatchedEvents++;
+        }
+    }
+
+    /**
+     * The events of a tick arrive in a single result, and not one by one.
+     */
+    @Test
+    public void testEventsOfTickInOneResult() {
+        ManualTimeSource timeSource = new ManualTimeSource();
+        Game game = new Game(Executors.newScheduledThreadPool(1), timeSource, 0);
+        CountingListener listener = new CountingListener();
+        game.setListener(listener);
+        final List<TickResult> results = new ArrayList<>();
+        game.setBatchListener(new Game.BatchListener() {
+            @Override
+            public void onTick(TickResult result) {
+                results.add(result);
+            }
+        });
+        game.addLandingSite(new Helipad(new Position(50, 50)));
+
+        // One aircraft lands, one leaves the aerodrome and one stays.
+        Aircraft landing = new Helicopter(0.001, 0, new Position(50, 50));
+        Aircraft leaving = new LargePlane(0.05, 0, new Position(99.9, 20));
+        Aircraft staying = new LightPlane(0.01, 0, new Position(20, 80));
+        game.onAircraftGenerated(landing);
+        game.onAircraftGenerated(leaving);
+        game.onAircraftGenerated(staying);
+
+        timeSource.advance(Game.STEP_MS);
+        game.tick();
+        assertEquals(1, results.size());
+        TickResult result = results.get(0);
+        assertEquals(Game.STEP_MS, result.getTime());
+        assertEquals(1, result.getLandedCount());
+        assertEquals(landing.getId(), result.getLanded(0));
+        assertEquals(1, result.getExitedCount());
+        assertEquals(leaving.getId(), result.getExited(0));
+        assertEquals(3, result.getGeneratedCount());
+        assertEquals(leaving.getId(), result.getGeneratedId(1));
+        assertEquals(TickResult.LARGE_PLANE, result.getGeneratedType(1));
+        assertEquals(TickResult.LIGHT_PLANE, result.getGeneratedType(2));
+        assertEquals(TickResult.HELICOPTER, result.getGeneratedType(0));
+        // The generated aircraft are copied as they were generated, not as they are now.
+        assertEquals(99.9, result.getGeneratedX(1), 1e-9);
+        assertEquals(20, result.getGeneratedX(2), 1e-9);
+        assertEquals(80, result.getGeneratedY(2), 1e-9);
+        assertTrue(staying.getPosition().getX() != result.getGeneratedX(2));
+        assertEquals(0, result.getGeneratedDirection(2), 1e-9);
+        assertEquals(1, result.getScoreDelta());
+        assertEquals(1, result.getScore());
+
+        // The next tick starts empty.
+        timeSource.advance(Game.STEP_MS);
+        game.tick();
+        assertEquals(2, results.size());
+        result = results.get(1);
+        assertEquals(0, result.getLandedCount());
+        assertEquals(0, result.getExitedCount());
+        assertEquals(0, result.getGeneratedCount());
+        assertEquals(0, result.getScoreDelta());
+        assertEquals(1, result.getScore());
+
+        // None of the batched events reached the EventsListener.
+        assertEquals(0, listener.mBatchedEvents);
+    }
+}
@@ -0,0 +1,167 @@
+package mas.german.landingplanes.view;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Unit Tests related to the Aircraft Drawable Map. The drawables are never drawn, so they have no
+ * shape.
+ */
+public class TestAircraftDrawableMap {
+    private static final int OPERATIONS = 20000;
+    // Different IDs used by the random changes.
+    private static final int IDS = 500;
+    // Types of aircraft, as given by the drawables.
+    private static final int TYPES = 3;
+    // Slots of a new map. Only a few IDs are put in it, so it doesn't grow.
+    private static final int INITIAL_SLOTS = 64;
+
+    /**
+     * Drawable with the given ID and type index.
+     */
+    private static class TestDrawable extends AircraftDrawable {
+        private final int mTypeIndex;
+
+        TestDrawable(int id, int typeIndex) {
+            super(id, 0, 0, 0, 1f, null);
+            mTypeIndex = typeIndex;
+        }
+
+        @Override
+        int getTypeIndex() {
+            return mTypeIndex;
+        }
+    }
+
+    /**
+     * Returns IDs whose search starts at the same slot, in a map that hasn't grown.
+     */
+    private List<Integer> collidingIds(AircraftDrawableMap map, int slot, int count) {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 1; ids.size() < count; id++) {
+            if (map.slotOf(id) == slot) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Removing an ID from a chain of colliding IDs leaves the rest of the chain reachable, also
+     * when the chain wraps around the end of the table.
+     */
+    @Test
+    public void testRemoveFromCollidingChain() {
+        AircraftDrawableMap map = new AircraftDrawableMap();
+        // A chain starting at the last slot continues at the first one.
+        for (int slot : new int[] {0, INITIAL_SLOTS - 1}) {
+            List<Integer> ids = collidingIds(map, slot, 4);
+            // An ID whose home is right after the chain's, which the chain pushes further.
+            List<Integer> next = collidingIds(map, (slot + 1) % INITIAL_SLOTS, 1);
+            for (int id : ids) {
+                map.put(new TestDrawable(id, 0));
+            }
+            map.put(new TestDrawable(next.get(0), 0));
+
+            for (int removed : new int[] {ids.get(0), ids.get(2)}) {
+                assertEquals(removed, map.remove(removed).getId());
+                assertNull(map.get(removed));
+                assertNull(map.remove(removed));
+            }
+            assertEquals(ids.get(1).intValue(), map.get(ids.get(1)).getId());
+            assertEquals(ids.get(3).intValue(), map.get(ids.get(3)).getId());
+            assertEquals(next.get(0).intValue(), map.get(next.get(0)).getId());
+            assertEquals(3, map.size());
+            map.clear();
+        }
+    }
+
+    /**
+     * A sequence of random changes gives the same contents as a HashMap, while the map grows past
+     * it's initial capacity and entries are shifted back on removal. The IDs are random, as
+     * consecutive ones hardly ever collide.
+     */
+    @Test
+    public void testSameContentsAsHashMap() {
+        Random random = new Random(5);
+        int[] ids = new int[IDS];
+        for (int i = 0; i < IDS; i++) {
+            ids[i] = 1 + random.nextInt(Integer.MAX_VALUE);
+        }
+        AircraftDrawableMap map = new AircraftDrawableMap();
+        Map<Integer, AircraftDrawable> expected = new HashMap<>();
+        for (int i = 0; i < OPERATIONS; i++) {
+            int id = ids[random.nextInt(IDS)];
+            if (random.nextInt(3) == 0) {
+                assertSame(expected.remove(id), map.remove(id));
+            } else {
+                AircraftDrawable drawable = new TestDrawable(id, random.nextInt(TYPES));
+                expected.put(id, drawable);
+                map.put(drawable);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int id : ids) {
+            assertSame(expected.get(id), map.get(id));
+        }
+    }
+
+    /**
+     * The published snapshot holds every drawable, grouped by type, and doesn't change until the
+     * next publish.
+     */
+    @Test
+    public void testSnapshotGroupedByType() {
+        AircraftDrawableMap map = new AircraftDrawableMap();
+        for (int id = 1; id <= 200; id++) {
+            map.put(new TestDrawable(id, id % TYPES));
+        }
+        assertEquals(0, map.getSnapshot().length);
+        map.publish();
+        AircraftDrawable[] snapshot = map.getSnapshot();
+        assertEquals(200, snapshot.length);
+        for (int i = 1; i < snapshot.length; i++) {
+            assertTrue(snapshot[i - 1].getTypeIndex() <= snapshot[i].getTypeIndex());
+        }
+
+        map.remove(1);
+        assertSame(snapshot, map.getSnapshot());
+        map.publish();
+        assertEquals(199, map.getSnapshot().length);
+    }
+
+    /**
+     * Clearing removes all the drawables and the selection, and the map can be filled again.
+     */
+    @Test
+    public void testClear() {
+        AircraftDrawableMap map = new AircraftDrawableMap();
+        for (int id = 1; id <= 100; id++) {
+            map.put(new TestDrawable(id, 0));
+        }
+        AircraftDrawable selected = map.get(7);
+        map.select(7, true);
+        assertTrue(selected.isSelected());
+
+        map.clear();
+        map.publish();
+        assertEquals(0, map.size());
+        assertEquals(0, map.getSnapshot().length);
+        assertNull(map.get(7));
+
+        // The previous selection is forgotten, so selecting another one doesn't touch it.
+        map.put(new TestDrawable(8, 0));
+        map.select(8, true);
+        assertTrue(selected.isSelected());
+        assertTrue(map.get(8).isSelected());
+    }
+}
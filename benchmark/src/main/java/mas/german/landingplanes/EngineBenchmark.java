@@ -0,0 +1,196 @@
+package mas.german.landingplanes;
+
+import java.util.concurrent.TimeUnit;
+import mas.german.landingplanes.aircrafts.AircraftStore;
+import mas.german.landingplanes.aircrafts.Helicopter;
+import mas.german.landingplanes.aircrafts.LargePlane;
+import mas.german.landingplanes.aircrafts.LightPlane;
+import mas.german.landingplanes.landingsites.Helipad;
+import mas.german.landingplanes.landingsites.LandingSite;
+import mas.german.landingplanes.landingsites.LongRunway;
+import mas.german.landingplanes.landingsites.ShortRunway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the hot paths of a Game update, each over the whole traffic, for amounts of
+ * aircraft from 10 to 100000. It's in the Game's package so it can reach the parts of the update
+ * directly. Run it with "gradlew :benchmark:jmh"; the results are saved as JSON, so a change can
+ * be compared against the results of a previous run.
+ *
+ * The aircraft hover in a formation, with all the types mixed, so the traffic stays the same
+ * however many times the update runs: none of them crashes, lands or leaves the Aerodrome. Every
+ * benchmark returns a value, so the JIT can't drop the work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class EngineBenchmark {
+    private static final String TAG = EngineBenchmark.class.getSimpleName();
+    // Distance between the aircraft of the formation.
+    private static final double SPACING = 25;
+    private static final long STEP_MS = Game.STEP_MS;
+
+    // Amount of aircraft. Named without the prefix, as it's the name of the parameter in the
+    // results.
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int aircraft;
+
+    private final ManualTimeSource mTimeSource = new ManualTimeSource();
+    private Game mGame;
+    private Aerodrome mAerodrome;
+    private AircraftStore mStore;
+    private SiteIndex mSites;
+    private CollisionGrid mGrid;
+    // Site tested by land() and verifyDirection().
+    private LandingSite mSite;
+
+    @Setup
+    public void setUp() {
+        int row = (int) Math.ceil(Math.sqrt(aircraft));
+        mAerodrome = new Aerodrome(0, row * SPACING, row * SPACING, 0);
+        // The game is stepped directly, so it needs no executor.
+        mGame = new Game(null, mTimeSource, 0, mAerodrome);
+        for (int i = 0; i < aircraft; i++) {
+            Position position = new Position(SPACING / 2 + SPACING * (i % row),
+                SPACING / 2 + SPACING * (i / row));
+            double direction = Math.toRadians(i % 360);
+            switch (i % 3) {
+                case 0:
+                    mGame.onAircraftGenerated(new LargePlane(0, direction, position));
+                    break;
+                case 1:
+                    mGame.onAircraftGenerated(new LightPlane(0, direction, position));
+                    break;
+                default:
+                    mGame.onAircraftGenerated(new Helicopter(0, direction, position));
+                    break;
+            }
+        }
+        // The sites sit between the aircraft of the formation.
+        mSite = new LongRunway(new Position(SPACING, SPACING), 0, Math.toRadians(90));
+        mGame.addLandingSite(mSite);
+        mGame.addLandingSite(new ShortRunway(new Position(2 * SPACING, SPACING),
+            Math.toRadians(90), Math.toRadians(90)));
+        mGame.addLandingSite(new Helipad(new Position(SPACING, 2 * SPACING)));
+
+        mStore = mGame.getAircraftStore();
+        mSites = mGame.getSites();
+        mSites.fitRange(LargePlane.RADIUS);
+        mGrid = new CollisionGrid(mAerodrome, LargePlane.RADIUS);
+    }
+
+    /**
+     * Moves every aircraft through it's own Aircraft.
+     */
+    @Benchmark
+    public double moveForward() {
+        for (int i = 0; i < mStore.size(); i++) {
+            mStore.get(i).moveForward(STEP_MS);
+        }
+        return mStore.getX(0);
+    }
+
+    /**
+     * Moves every aircraft over the columns of the store, as the update does.
+     */
+    @Benchmark
+    public double moveAll() {
+        mStore.moveAll(STEP_MS);
+        return mStore.getX(0);
+    }
+
+    /**
+     * Places the aircraft in the grid and tests all of them for crashes during a step.
+     */
+    @Benchmark
+    public boolean crashLoop() {
+        mGrid.rebuild(mStore, STEP_MS);
+        return mGrid.hasCrash();
+    }
+
+    /**
+     * Tests every aircraft against the sites in it's cell, as the update does.
+     */
+    @Benchmark
+    public int findLanding() {
+        int landings = 0;
+        for (int i = 0; i < mStore.size(); i++) {
+            if (mSites.findLanding(mStore.get(i), mStore.getX(i), mStore.getY(i), STEP_MS) >= 0) {
+                landings++;
+            }
+        }
+        return landings;
+    }
+
+    /**
+     * Tests every aircraft against a single site.
+     */
+    @Benchmark
+    public int land() {
+        int landings = 0;
+        for (int i = 0; i < mStore.size(); i++) {
+            if (mStore.get(i).land(mSite)) {
+                landings++;
+            }
+        }
+        return landings;
+    }
+
+    @Benchmark
+    public int verifyDirection() {
+        int verified = 0;
+        for (int i = 0; i < mStore.size(); i++) {
+            if (mSite.verifyDirection(mStore.getDirection(i))) {
+                verified++;
+            }
+        }
+        return verified;
+    }
+
+    @Benchmark
+    public int isOutOfBounds() {
+        int outside = 0;
+        for (int i = 0; i < mStore.size(); i++) {
+            if (mAerodrome.isOutOfBounds(mStore.getX(i), mStore.getY(i))) {
+                outside++;
+            }
+        }
+        return outside;
+    }
+
+    /**
+     * Publishes the positions of all the aircraft and reads them back, as the view does. It took
+     * the place of the map of positions the view used to get.
+     */
+    @Benchmark
+    public int publishPositions() {
+        synchronized (mStore) {
+            mGame.publishPositions();
+        }
+        return mGame.getPositionSnapshot().size();
+    }
+
+    /**
+     * A whole iteration of the update task: a step, the conflicts and the publication of the
+     * positions.
+     */
+    @Benchmark
+    public int tick() {
+        mTimeSource.advance(STEP_MS);
+        mGame.tick();
+        return mStore.size();
+    }
+}
@@ -0,0 +1,67 @@
+package mas.german.landingplanes;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import mas.german.landingplanes.aircrafts.Helicopter;
+
+/**
+ * Measures the time of a Game update with a large amount of traffic, sequentially and split
+ * across 1 to N threads by a ParallelUpdate. It's in the Game's package so it can step the game
+ * directly, without the scheduler.
+ *
+ * The aircraft fly in formation, so there are no crashes and the traffic stays the same during the
+ * measure.
+ */
+public class ParallelScaling {
+    private static final String TAG = ParallelScaling.class.getSimpleName();
+    private static final int AIRCRAFT = 20000;
+    // Aircraft per row of the formation, and distance between them.
+    private static final int ROW = 160;
+    private static final double SPACING = 25;
+    private static final double SPEED = 0.001;
+    private static final int WARM_UP_STEPS = 300;
+    private static final int MEASURE_STEPS = 1000;
+
+    /**
+     * Returns the average time of an update, in microseconds.
+     */
+    private static double measure(ScheduledExecutorService executor,
+                                  ParallelUpdate parallelUpdate) {
+        Aerodrome aerodrome = new Aerodrome(0, ROW * SPACING,
+            (AIRCRAFT / ROW + 1) * SPACING, 0);
+        Game game = new Game(executor, SimulationClock.SYSTEM_TIME, 0, aerodrome);
+        game.setParallelUpdate(parallelUpdate);
+        for (int i = 0; i < AIRCRAFT; i++) {
+            Position position = new Position(SPACING / 2 + SPACING * (i % ROW),
+                SPACING / 2 + SPACING * (i / ROW));
+            game.onAircraftGenerated(new Helicopter(SPEED, Math.toRadians(45), position));
+        }
+
+        for (int i = 0; i < WARM_UP_STEPS; i++) {
+            game.update(Game.STEP_MS);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURE_STEPS; i++) {
+            game.update(Game.STEP_MS);
+        }
+        return (System.nanoTime() - start) / 1e3 / MEASURE_STEPS;
+    }
+
+    public static void main(String[] args) {
+        ScheduledExecutorService executor = Executors.newScheduledThreadPool(1);
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        double sequential = measure(executor, null);
+        System.out.println("threads,us_per_update,speedup");
+        System.out.println(String.format("sequential,%.1f,1.00", sequential));
+        for (int threads = 1; threads <= cores; threads++) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            double parallel = measure(executor, new ParallelUpdate(pool, 0));
+            System.out.println(String.format("%d,%.1f,%.2f", threads, parallel,
+                sequential / parallel));
+            pool.shutdown();
+        }
+        executor.shutdown();
+    }
+}
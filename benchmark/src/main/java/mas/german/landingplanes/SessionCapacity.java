@@ -0,0 +1,128 @@
+package mas.german.landingplanes;
+
+import java.util.concurrent.atomic.AtomicLong;
+import mas.german.landingplanes.aircrafts.Helicopter;
+import mas.german.landingplanes.aircrafts.LargePlane;
+import mas.german.landingplanes.aircrafts.LightPlane;
+import mas.german.landingplanes.landingsites.Helipad;
+import mas.german.landingplanes.landingsites.LongRunway;
+import mas.german.landingplanes.landingsites.ShortRunway;
+
+/**
+ * Measures how many game sessions a GameHost with a single thread sustains. Sessions are added in
+ * increasing amounts, and each amount runs for a while counting the updates done by all sessions.
+ * The amount is sustained while the sessions get almost all the updates they are scheduled for,
+ * one every 30 ms.
+ *
+ * Sessions play with the normal aircraft generator and restart on game over, so the traffic stays
+ * like the one of a real game.
+ */
+public class SessionCapacity {
+    private static final String TAG = SessionCapacity.class.getSimpleName();
+    private static final long UPDATE_MS = 30;
+    private static final long WARM_UP_MS = 1000;
+    private static final long MEASURE_MS = 3000;
+    // Fraction of the scheduled updates that must run for the amount to be sustained.
+    private static final double SUSTAINED_RATIO = 0.95;
+    private static final int FIRST_AMOUNT = 50;
+    private static final int MAX_AMOUNT = 100000;
+
+    // Updates done by all the sessions.
+    private static final AtomicLong sUpdates = new AtomicLong();
+
+    /**
+     * Listener that counts the updates of a session and restarts it on game over.
+     */
+    private static class SessionListener implements Game.EventsListener {
+        private final Game mSession;
+
+        SessionListener(Game session) {
+            mSession = session;
+        }
+
+        @Override
+        public void onGameStart() {
+        }
+
+        @Override
+        public void onGameOver() {
+            mSession.initialize();
+        }
+
+        @Override
+        public void onLongRunwayCreated(LongRunway longRunway) {
+        }
+
+        @Override
+        public void onShortRunwayCreated(ShortRunway shortRunway) {
+        }
+
+        @Override
+        public void onHelipadCreated(Helipad helipad) {
+        }
+
+        @Override
+        public void onLargePlaneGenerated(LargePlane largePlane) {
+        }
+
+        @Override
+        public void onLightPlaneGenerated(LightPlane lightPlane) {
+        }
+
+        @Override
+        public void onHelicopterGenerated(Helicopter helicopter) {
+        }
+
+        @Override
+        public void onAircraftPositionChanged() {
+            sUpdates.incrementAndGet();
+        }
+
+        @Override
+        public void onAircraftSelect(int id, boolean state) {
+        }
+
+        @Override
+        public void onLand(int id) {
+        }
+
+        @Override
+        public void onAircraftOutsideAerodrome(int id) {
+        }
+    }
+
+    private static void addSessions(GameHost host, int amount) {
+        for (int i = 0; i < amount; i++) {
+            Game session = host.createSession();
+            session.setListener(new SessionListener(session));
+            session.initialize();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        GameHost host = new GameHost(1);
+        int lastSustained = 0;
+        System.out.println("sessions,updates_per_second,scheduled_per_second,ratio");
+        for (int amount = FIRST_AMOUNT; amount <= MAX_AMOUNT; amount *= 2) {
+            addSessions(host, amount - host.getSessionCount());
+            Thread.sleep(WARM_UP_MS);
+
+            long start = System.nanoTime();
+            long updatesBefore = sUpdates.get();
+            Thread.sleep(MEASURE_MS);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            double updatesPerSecond = (sUpdates.get() - updatesBefore) / seconds;
+            double scheduledPerSecond = amount * 1000.0 / UPDATE_MS;
+            double ratio = updatesPerSecond / scheduledPerSecond;
+            System.out.println(String.format("%d,%.0f,%.0f,%.3f", amount, updatesPerSecond,
+                scheduledPerSecond, ratio));
+
+            if (ratio < SUSTAINED_RATIO) {
+                break;
+            }
+            lastSustained = amount;
+        }
+        host.shutdown();
+        System.out.println("Sessions sustained by one thread: " + lastSustained);
+    }
+}
@@ -0,0 +1,165 @@
+package mas.german.landingplanes;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import mas.german.landingplanes.arrivals.PoissonArrivals;
+
+/**
+ * Stress test of the update loop with the traffic of the aircraft generator. A headless game is
+ * run at increasing spawn rates, and at each rate the duration of every tick is measured once the
+ * traffic has settled. A tick that takes longer than the 30 ms period of the update task misses
+ * it's deadline. It's in the Game's package so it can tick the game directly, without the
+ * scheduler.
+ *
+ * The report gives, for each rate, the aircraft flying during the measure against the percentiles
+ * of the tick duration, as CSV. The run stops at the first rate that misses too many deadlines,
+ * and the last line is the most aircraft sustained before it, the figure to track between
+ * releases.
+ *
+ * The game runs on a large aerodrome and goes on after the crashes, so the traffic keeps growing
+ * with the rate up to the population cap. Every pair of aircraft is still tested at every tick,
+ * and the pairs found crashing are reported, so the ticks cost at least as much as in a game.
+ * Ticks run back to back on a simulated clock, one step each, so the measure doesn't depend on the
+ * precision of the scheduler.
+ *
+ * Arguments, all optional: the file to save the report to, the spawn rates in aircraft per second
+ * separated by commas, and the population cap. An empty argument keeps the default.
+ */
+public class TrafficStress {
+    private static final String TAG = TrafficStress.class.getSimpleName();
+    private static final long UPDATE_MS = 30;
+    private static final double SIZE = 1000;
+    private static final int[] DEFAULT_RATES = {25, 50, 100, 200, 400, 800, 1600};
+    private static final int DEFAULT_POPULATION_CAP = 20000;
+    // Long enough for the first aircraft to cross the aerodrome, so the traffic has settled.
+    private static final int WARM_UP_TICKS = 1000;
+    private static final int MEASURE_TICKS = 1000;
+    // Fraction of the ticks that may miss their deadline for the traffic to be sustained.
+    private static final double SUSTAINED_MISSED_RATIO = 0.01;
+    private static final long SEED = 0;
+
+    /**
+     * Tick durations and traffic measured at a spawn rate.
+     */
+    private static class Level {
+        final int mRate;
+        // Duration of each tick, in nanoseconds, sorted.
+        final long[] mDurations;
+        final double mAircraft;
+        // Pairs of aircraft found crashing per tick.
+        final double mCrashes;
+        final int mMissed;
+
+        Level(int rate, long[] durations, double aircraft, double crashes) {
+            mRate = rate;
+            mDurations = durations;
+            mAircraft = aircraft;
+            mCrashes = crashes;
+            Arrays.sort(mDurations);
+            int missed = 0;
+            for (long duration : mDurations) {
+                if (duration > UPDATE_MS * 1000000) {
+                    missed++;
+                }
+            }
+            mMissed = missed;
+        }
+
+        double getMissedRatio() {
+            return (double) mMissed / mDurations.length;
+        }
+
+        /**
+         * Returns the given percentile of the tick duration, in milliseconds.
+         */
+        double getPercentile(double percentile) {
+            int index = (int) Math.ceil(percentile / 100 * mDurations.length) - 1;
+            return mDurations[Math.max(index, 0)] / 1e6;
+        }
+
+        String toCsv() {
+            return String.format("%d,%.0f,%.1f,%.3f,%.3f,%.3f,%.3f,%d,%.4f", mRate, mAircraft,
+                mCrashes, getPercentile(50), getPercentile(90), getPercentile(99),
+                getPercentile(100), mMissed, getMissedRatio());
+        }
+    }
+
+    private static Level measure(int rate, int populationCap) {
+        ManualTimeSource timeSource = new ManualTimeSource();
+        Game game = new Game(null, timeSource, SEED, new Aerodrome(0, SIZE, SIZE, 0));
+        game.setArrivalProcess(new PoissonArrivals(rate));
+        game.setPopulationCap(populationCap);
+        game.setCrashesIgnored(true);
+        game.initialize();
+
+        for (int i = 0; i < WARM_UP_TICKS; i++) {
+            timeSource.advance(UPDATE_MS);
+            game.tick();
+        }
+        long[] durations = new long[MEASURE_TICKS];
+        long aircraft = 0;
+        long crashesBefore = game.getCrashCount();
+        for (int i = 0; i < MEASURE_TICKS; i++) {
+            timeSource.advance(UPDATE_MS);
+            long start = System.nanoTime();
+            game.tick();
+            durations[i] = System.nanoTime() - start;
+            aircraft += game.getAircraftStore().size();
+        }
+        double crashes = (double) (game.getCrashCount() - crashesBefore) / MEASURE_TICKS;
+        game.stop();
+        return new Level(rate, durations, (double) aircraft / MEASURE_TICKS, crashes);
+    }
+
+    private static int[] parseRates(String rates) {
+        String[] values = rates.split(",");
+        int[] parsed = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            parsed[i] = Integer.parseInt(values[i].trim());
+        }
+        return parsed;
+    }
+
+    public static void main(String[] args) throws FileNotFoundException {
+        PrintWriter report = null;
+        if (args.length > 0) {
+            File file = new File(args[0]);
+            file.getAbsoluteFile().getParentFile().mkdirs();
+            report = new PrintWriter(file);
+        }
+        int[] rates = (args.length > 1 && !args[1].isEmpty()) ? parseRates(args[1])
+            : DEFAULT_RATES;
+        int populationCap = (args.length > 2 && !args[2].isEmpty()) ? Integer.parseInt(args[2])
+            : DEFAULT_POPULATION_CAP;
+
+        try {
+            String header = "spawn_rate,aircraft,crashes_per_tick,p50_ms,p90_ms,p99_ms,max_ms,"
+                + "missed,missed_ratio";
+            System.out.println(header);
+            if (report != null) {
+                report.println(header);
+            }
+            double sustained = 0;
+            for (int rate : rates) {
+                Level level = measure(rate, populationCap);
+                System.out.println(level.toCsv());
+                if (report != null) {
+                    report.println(level.toCsv());
+                }
+                // The higher rates would only miss more, and take longer to run.
+                if (level.getMissedRatio() > SUSTAINED_MISSED_RATIO) {
+                    break;
+                }
+                sustained = Math.max(sustained, level.mAircraft);
+            }
+            System.out.println(String.format("Aircraft sustained within %d ms ticks: %.0f",
+                UPDATE_MS, sustained));
+        } finally {
+            if (report != null) {
+                report.close();
+            }
+        }
+    }
+}